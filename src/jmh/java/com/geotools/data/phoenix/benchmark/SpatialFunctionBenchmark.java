@@ -0,0 +1,248 @@
+package com.geotools.data.phoenix.benchmark;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.WKTWriter;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.Determinism;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.schema.PDatum;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarbinary;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.geotools.data.phoenix.function.ContainsFunction;
+import org.geotools.data.phoenix.function.DwithinFunction;
+import org.geotools.data.phoenix.function.GeohashCellFunction;
+import org.geotools.data.phoenix.function.GeometryCache;
+import org.geotools.data.phoenix.function.IntersectsFunction;
+import org.geotools.data.phoenix.function.MbrintersectsFunction;
+import org.geotools.data.phoenix.function.WithinFunction;
+import org.geotools.data.phoenix.function.XminFunction;
+import org.geotools.data.phoenix.util.GeometryCodec;
+import org.geotools.data.phoenix.util.GeometryEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 空间函数evaluate(Tuple, ImmutableBytesWritable)热点路径的基准测试，模拟RegionServer端对每一行求值的过程
+ * 每次调用对一行求值，因此结果即为每行耗时（ns/op）；配合-prof gc运行时，gc.alloc.rate.norm即为每行分配的字节数
+ * 运行方式：mvn -Pbenchmark test-compile exec:exec，可通过-Djmh.args传入JMH参数，例如
+ * -Djmh.args="-prof gc -p shape=POLYGON_1K -p function=ST_INTERSECTS SpatialFunctionBenchmark"
+ * Created by Administrator on 2026/10/17.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialFunctionBenchmark {
+
+    /**
+     * 模拟数据的分布范围
+     */
+    private final static double WORLD = 100;
+
+    private final static byte[] FAMILY = Bytes.toBytes("0");
+    private final static byte[] QUALIFIER = Bytes.toBytes("GEOM");
+
+    /**
+     * 每行空间列的形状
+     */
+    public enum Shape {
+        POINT(1, 0),
+        LINE_1K(1000, 0.5),
+        POLYGON_10(10, 0.5),
+        POLYGON_1K(1000, 0.5),
+        POLYGON_100K(100000, 0.5);
+
+        final int vertices;
+        final double radius;
+
+        Shape(int vertices, double radius) {
+            this.vertices = vertices;
+            this.radius = radius;
+        }
+
+        /**
+         * 行数为2的幂次，顶点数较多时减少行数以控制内存
+         * @return
+         */
+        int rows() {
+            return vertices >= 100000 ? 16 : 1024;
+        }
+    }
+
+    @Param({"POINT", "LINE_1K", "POLYGON_10", "POLYGON_1K", "POLYGON_100K"})
+    public Shape shape;
+
+    @Param({"WKB", "TWKB", "WKT"})
+    public GeometryEncoding encoding;
+
+    @Param({"ST_INTERSECTS", "ST_CONTAINS", "ST_WITHIN", "ST_MBRINTERSECTS", "ST_DWITHIN", "ST_XMIN", "ST_GEOHASH_CELL"})
+    public String function;
+
+    /**
+     * RegionServer端几何对象缓存的容量，为0时关闭缓存
+     */
+    @Param({"0", "67108864"})
+    public long cacheBytes;
+
+    private final GeometryFactory factory = new GeometryFactory();
+    private final ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+
+    private Tuple[] rows;
+    private int mask;
+    private int index;
+    private Expression expression;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        /*缓存实例在第一次使用时按系统属性创建，且每个Trial都在独立的JVM中运行*/
+        System.setProperty(GeometryCache.MAX_BYTES_PROPERTY, String.valueOf(cacheBytes));
+        GeometryCache.getInstance().clear();
+
+        Random random = new Random(42);
+        rows = new Tuple[shape.rows()];
+        mask = rows.length - 1;
+        for (int i = 0; i < rows.length; i++) {
+            Geometry geometry = createGeometry(random);
+            byte[] value = encoding == GeometryEncoding.WKT
+                    ? new WKTWriter().write(geometry).getBytes(StandardCharsets.UTF_8)
+                    : GeometryCodec.encode(geometry, encoding, 2, GeometryEncoding.DEFAULT_TWKB_PRECISION);
+            rows[i] = new SingleKeyValueTuple(new KeyValue(Bytes.toBytes(String.format("row%08d", i)), FAMILY, QUALIFIER, 1L, value));
+        }
+        expression = createFunction();
+    }
+
+    @Benchmark
+    public boolean evaluate() {
+        Tuple tuple = rows[index++ & mask];
+        return expression.evaluate(tuple, ptr);
+    }
+
+    /**
+     * 在数据范围内随机生成一个几何对象
+     * @param random
+     * @return
+     */
+    private Geometry createGeometry(Random random) {
+        double x = random.nextDouble() * WORLD;
+        double y = random.nextDouble() * WORLD;
+        if (shape == Shape.POINT)
+            return factory.createPoint(new Coordinate(x, y));
+        if (shape == Shape.LINE_1K) {
+            Coordinate[] coordinates = new Coordinate[shape.vertices];
+            for (int i = 0; i < coordinates.length; i++) {
+                coordinates[i] = new Coordinate(x + shape.radius * i / coordinates.length, y + shape.radius * Math.sin(i * 0.1));
+            }
+            return factory.createLineString(coordinates);
+        }
+        Coordinate[] ring = new Coordinate[shape.vertices + 1];
+        for (int i = 0; i < shape.vertices; i++) {
+            double angle = 2 * Math.PI * i / shape.vertices;
+            ring[i] = new Coordinate(x + shape.radius * Math.cos(angle), y + shape.radius * Math.sin(angle));
+        }
+        ring[shape.vertices] = ring[0];
+        return factory.createPolygon(ring);
+    }
+
+    /**
+     * 构造与RegionServer端一致的函数表达式：第一个参数为引用单元格的列，第二个参数为查询几何对象的常量
+     * @return
+     */
+    private Expression createFunction() throws SQLException {
+        Expression column = new KeyValueColumnExpression(new GeometryDatum(encoding == GeometryEncoding.WKT ? PVarchar.INSTANCE : PVarbinary.INSTANCE), FAMILY, QUALIFIER);
+        /*查询范围约覆盖数据范围的四分之一，使结果中既有命中也有未命中*/
+        Geometry query = factory.createPolygon(new Coordinate[]{
+                new Coordinate(20, 20), new Coordinate(70, 25), new Coordinate(65, 70), new Coordinate(25, 65), new Coordinate(20, 20)});
+        Expression literal = encoding == GeometryEncoding.WKT
+                ? LiteralExpression.newConstant(new WKTWriter().write(query), PVarchar.INSTANCE, Determinism.ALWAYS)
+                : LiteralExpression.newConstant(GeometryCodec.encode(query, encoding, 2, GeometryEncoding.DEFAULT_TWKB_PRECISION), PVarbinary.INSTANCE, Determinism.ALWAYS);
+        List<Expression> pair = Arrays.asList(column, literal);
+        switch (function) {
+            case "ST_INTERSECTS":
+                return new IntersectsFunction(pair);
+            case "ST_CONTAINS":
+                return new ContainsFunction(Arrays.asList(literal, column));
+            case "ST_WITHIN":
+                return new WithinFunction(pair);
+            case "ST_MBRINTERSECTS":
+                return new MbrintersectsFunction(pair);
+            case "ST_DWITHIN":
+                return new DwithinFunction(Arrays.asList(column, literal, LiteralExpression.newConstant(1.0, PDouble.INSTANCE, Determinism.ALWAYS)));
+            case "ST_XMIN":
+                return new XminFunction(Arrays.<Expression>asList(column));
+            case "ST_GEOHASH_CELL":
+                return new GeohashCellFunction(Arrays.asList(column, LiteralExpression.newConstant(5, PInteger.INSTANCE, Determinism.ALWAYS)));
+            default:
+                throw new IllegalArgumentException("Unknown function: " + function);
+        }
+    }
+
+    /**
+     * 空间列的元数据
+     */
+    private static class GeometryDatum implements PDatum {
+        @SuppressWarnings("rawtypes")
+        private final PDataType type;
+
+        @SuppressWarnings("rawtypes")
+        GeometryDatum(PDataType type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean isNullable() {
+            return true;
+        }
+
+        @SuppressWarnings("rawtypes")
+        @Override
+        public PDataType getDataType() {
+            return type;
+        }
+
+        @Override
+        public Integer getMaxLength() {
+            return null;
+        }
+
+        @Override
+        public Integer getScale() {
+            return null;
+        }
+
+        @Override
+        public SortOrder getSortOrder() {
+            return SortOrder.getDefault();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.geotools.data.phoenix;
+
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureReader;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.Id;
+import org.opengis.filter.identity.Identifier;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件描述：按要素ID批量读取要素，ID较多时（如WFS按FID列表查询、编辑工具选中的要素）将其分块，
+ * 每块编码为主键上的pk IN (...)点查询，各块在多个线程中并行执行，结果通过同一个读取器依次返回
+ * 各块的结果交错返回，不保证与ID或排序条件的顺序一致
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class FeatureIdReader implements SimpleFeatureReader {
+    /**
+     * 默认每块的ID个数
+     */
+    public final static int DEFAULT_CHUNK_SIZE = 500;
+    /**
+     * 默认的并行线程数
+     */
+    public final static int DEFAULT_THREADS = 4;
+
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    /**
+     * 一个分块读取结束的标记
+     */
+    private final static Object CHUNK_END = new Object();
+
+    private final SimpleFeatureType featureType;
+    private final BlockingQueue<Object> queue;
+    private final ExecutorService executor;
+    private final int chunks;
+    private final int maxFeatures;
+
+    /**
+     * 已读取结束的分块个数
+     */
+    private int finished;
+    private int returned;
+    private SimpleFeature next;
+    private volatile boolean closed;
+
+    /**
+     * @param dataStore 数据源
+     * @param query 过滤条件为要素ID的查询
+     * @throws IOException
+     */
+    public FeatureIdReader(JDBCDataStore dataStore, Query query) throws IOException {
+        this(dataStore, query, DEFAULT_CHUNK_SIZE, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param dataStore 数据源
+     * @param query 过滤条件为要素ID的查询，属性列表和提示对每个分块都有效，要素个数上限对全部结果有效
+     * @param chunkSize 每块的ID个数
+     * @param threads 并行线程数
+     * @throws IOException
+     */
+    public FeatureIdReader(final JDBCDataStore dataStore, Query query, int chunkSize, int threads) throws IOException {
+        if (!(query.getFilter() instanceof Id))
+            throw new IllegalArgumentException("Query filter must be a feature id filter: " + query.getFilter());
+        if (chunkSize < 1 || threads < 1)
+            throw new IllegalArgumentException("Chunk size and threads must be positive: " + chunkSize + ", " + threads);
+        if (query.getStartIndex() != null && query.getStartIndex() > 0)
+            throw new IllegalArgumentException("Start index is not supported by chunked feature id lookups");
+        this.featureType = dataStore.getFeatureSource(query.getTypeName()).getFeatures(query).getSchema();
+        this.maxFeatures = query.isMaxFeaturesUnlimited() ? -1 : query.getMaxFeatures();
+        this.queue = new LinkedBlockingQueue<>(chunkSize * threads);
+
+        List<Identifier> ids = new ArrayList<>(((Id) query.getFilter()).getIdentifiers());
+        List<Query> chunkQueries = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            Query chunkQuery = new Query(query);
+            chunkQuery.setFilter(FF.id(new LinkedHashSet<>(ids.subList(start, Math.min(start + chunkSize, ids.size())))));
+            chunkQueries.add(chunkQuery);
+        }
+        this.chunks = chunkQueries.size();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks)), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "phoenix-fid-lookup");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (final Query chunkQuery : chunkQueries) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    readChunk(dataStore, chunkQuery);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 读取一个分块，每个分块使用独立的连接
+     * @param dataStore
+     * @param chunkQuery
+     */
+    private void readChunk(JDBCDataStore dataStore, Query chunkQuery) {
+        if (closed)
+            return;
+        try {
+            FeatureReader<SimpleFeatureType, SimpleFeature> reader = dataStore.getFeatureReader(chunkQuery, Transaction.AUTO_COMMIT);
+            try {
+                while (!closed && reader.hasNext()) {
+                    put(reader.next());
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (Throwable e) {
+            put(e);
+        } finally {
+            put(CHUNK_END);
+        }
+    }
+
+    /**
+     * 将结果放入队列，队列已满时等待读取，读取器关闭后直接丢弃
+     * @param item
+     */
+    private void put(Object item) {
+        try {
+            while (!closed) {
+                if (queue.offer(item, 100, TimeUnit.MILLISECONDS))
+                    return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (next != null)
+            return true;
+        if (closed || (maxFeatures >= 0 && returned >= maxFeatures))
+            return false;
+        while (finished < chunks) {
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for feature id lookups", e);
+            }
+            if (item == CHUNK_END) {
+                finished++;
+            } else if (item instanceof Throwable) {
+                close();
+                throw new IOException("Feature id lookup failed", (Throwable) item);
+            } else {
+                next = (SimpleFeature) item;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException, IllegalArgumentException, NoSuchElementException {
+        if (!hasNext())
+            throw new NoSuchElementException("No more features");
+        SimpleFeature feature = next;
+        next = null;
+        returned++;
+        return feature;
+    }
+
+    /**
+     * 关闭读取器，正在读取的分块在当前一行之后停止并释放连接，尚未开始的分块不再执行
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        next = null;
+        queue.clear();
+    }
+}
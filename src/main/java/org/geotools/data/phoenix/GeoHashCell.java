@@ -0,0 +1,65 @@
+package org.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.geotools.data.phoenix.util.GeoHashConverter;
+
+/**
+ * 文件描述：按GeoHash网格聚合的结果
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class GeoHashCell {
+    /**
+     * 网格编码，即截断后的long类型GeoHash
+     */
+    private final long cell;
+    /**
+     * 网格的GeoHash字符长度
+     */
+    private final int precision;
+    /**
+     * 网格中的要素个数
+     */
+    private final long count;
+    /**
+     * 网格中指定属性的和，未指定求和属性时为null
+     */
+    private final Double sum;
+
+    public GeoHashCell(long cell, int precision, long count, Double sum) {
+        this.cell = cell;
+        this.precision = precision;
+        this.count = count;
+        this.sum = sum;
+    }
+
+    public long getCell() {
+        return cell;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+
+    /**
+     * 获取网格的经纬度范围
+     * @return
+     */
+    public Envelope getBounds() {
+        double[] bounds = GeoHashConverter.cellBounds(cell, precision);
+        return new Envelope(bounds[0], bounds[2], bounds[1], bounds[3]);
+    }
+
+    @Override
+    public String toString() {
+        return "GeoHashCell[" + Long.toHexString(cell) + "/" + precision + ", count=" + count + (sum != null ? ", sum=" + sum : "") + "]";
+    }
+}
@@ -0,0 +1,256 @@
+package org.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.jdbc.FilterToSQL;
+import org.geotools.data.jdbc.FilterToSQLException;
+import org.geotools.data.phoenix.util.GeoHashConverter;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PreparedFilterToSQL;
+import org.geotools.jdbc.PreparedStatementSQLDialect;
+import org.geotools.jdbc.SQLDialect;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 文件描述：按GeoHash网格分组统计要素个数与属性和，用于热力图和密度图
+ * 分组在Phoenix中执行（GROUP BY ST_GEOHASH_CELL(...)），各Region并行聚合后只向客户端返回网格结果，而非全部要素；
+ * 过滤条件中不能在Phoenix中精确判断的部分（如地理坐标系中以米为单位的距离条件）无法参与服务端聚合，
+ * 此时读取满足条件的要素在客户端按同样的网格统计
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class GeoHashDensity {
+    private final static Logger LOGGER = Logger.getLogger(GeoHashDensity.class.getName());
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    private final JDBCDataStore dataStore;
+
+    public GeoHashDensity(JDBCDataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * 统计各网格中的要素个数
+     * @param typeName 要素类型名称
+     * @param filter 过滤条件，通常为视口的BBOX，可以为null
+     * @param precision 网格的GeoHash字符长度，取值为[1, 12]
+     * @return
+     * @throws IOException
+     */
+    public List<GeoHashCell> getCells(String typeName, Filter filter, int precision) throws IOException {
+        return getCells(typeName, filter, precision, null);
+    }
+
+    /**
+     * 统计各网格中的要素个数与指定数值属性的和
+     * @param typeName 要素类型名称
+     * @param filter 过滤条件，通常为视口的BBOX，可以为null
+     * @param precision 网格的GeoHash字符长度，取值为[1, 12]
+     * @param sumAttribute 求和的数值属性，为null时只统计个数
+     * @return
+     * @throws IOException
+     */
+    public List<GeoHashCell> getCells(String typeName, Filter filter, int precision, String sumAttribute) throws IOException {
+        if (precision < 1 || precision > GeoHashConverter.MAX_HASH_LENGTH)
+            throw new IllegalArgumentException("GeoHash precision must be in [1, " + GeoHashConverter.MAX_HASH_LENGTH + "]: " + precision);
+        SimpleFeatureType featureType = dataStore.getSchema(typeName);
+        if (featureType.getGeometryDescriptor() == null)
+            throw new IllegalArgumentException("Feature type " + typeName + " has no geometry");
+        if (sumAttribute != null && featureType.getDescriptor(sumAttribute) == null)
+            throw new IllegalArgumentException("Unknown attribute: " + sumAttribute);
+
+        if (filter == null)
+            filter = Filter.INCLUDE;
+        Filter[] split = dataStore.getSQLDialect().splitFilter(filter, featureType);
+        if (split[1] != null && split[1] != Filter.INCLUDE) {
+            LOGGER.log(Level.FINE, "Filter cannot be fully encoded, aggregating GeoHash cells on the client; {0}", split[1]);
+            return getCellsOnClient(featureType, filter, precision, sumAttribute);
+        }
+
+        FilterToSQL filterToSQL = createFilterToSQL(featureType);
+        String sql = selectCellsSQL(featureType, split[0], precision, sumAttribute, filterToSQL);
+        LOGGER.log(Level.FINE, "GeoHash cell aggregation; {0}", sql);
+        List<GeoHashCell> cells = new ArrayList<>();
+        Connection cx = dataStore.getConnection(Transaction.AUTO_COMMIT);
+        Statement st = null;
+        ResultSet rs = null;
+        try {
+            if (filterToSQL instanceof PreparedFilterToSQL) {
+                PreparedStatement ps = cx.prepareStatement(sql);
+                st = ps;
+                setFilterValues((PreparedFilterToSQL) filterToSQL, ps, cx);
+                rs = ps.executeQuery();
+            } else {
+                st = cx.createStatement();
+                rs = st.executeQuery(sql);
+            }
+            while (rs.next()) {
+                long cell = rs.getLong(1);
+                if (rs.wasNull())
+                    continue;
+                Double sum = null;
+                if (sumAttribute != null) {
+                    sum = rs.getDouble(3);
+                    if (rs.wasNull())
+                        sum = null;
+                }
+                cells.add(new GeoHashCell(cell, precision, rs.getLong(2), sum));
+            }
+        } catch (SQLException e) {
+            throw (IOException) new IOException("Error aggregating GeoHash cells").initCause(e);
+        } finally {
+            dataStore.closeSafe(rs);
+            dataStore.closeSafe(st);
+            dataStore.closeSafe(cx);
+        }
+        return cells;
+    }
+
+    /**
+     * 读取满足过滤条件的要素，在客户端按网格统计，网格与ST_GEOHASH_CELL的计算方式相同：取外包矩形的中心点
+     * @param featureType
+     * @param filter 完整的过滤条件，数据源按其拆分结果在Phoenix中过滤后于客户端判断剩余部分
+     * @param precision
+     * @param sumAttribute
+     * @return
+     * @throws IOException
+     */
+    private List<GeoHashCell> getCellsOnClient(SimpleFeatureType featureType, Filter filter, int precision, String sumAttribute) throws IOException {
+        String geometryName = featureType.getGeometryDescriptor().getLocalName();
+        Query query = new Query(featureType.getTypeName(), filter,
+                sumAttribute != null ? new String[]{geometryName, sumAttribute} : new String[]{geometryName});
+        /*网格编码与个数、和；和在全部取值为空时为null，与SQL的SUM一致*/
+        Map<Long, long[]> counts = new LinkedHashMap<>();
+        Map<Long, Double> sums = new LinkedHashMap<>();
+        SimpleFeatureIterator features = dataStore.getFeatureSource(featureType.getTypeName()).getFeatures(query).features();
+        try {
+            while (features.hasNext()) {
+                SimpleFeature feature = features.next();
+                Geometry geometry = (Geometry) feature.getAttribute(geometryName);
+                if (geometry == null || geometry.isEmpty())
+                    continue;
+                Envelope envelope = geometry.getEnvelopeInternal();
+                long cell = GeoHashConverter.truncate(GeoHashConverter.longAndLatiToGeohash(
+                        (envelope.getMinX() + envelope.getMaxX()) / 2, (envelope.getMinY() + envelope.getMaxY()) / 2), precision);
+                long[] count = counts.get(cell);
+                if (count == null)
+                    counts.put(cell, count = new long[1]);
+                count[0]++;
+                Object value = sumAttribute != null ? feature.getAttribute(sumAttribute) : null;
+                if (value instanceof Number) {
+                    Double sum = sums.get(cell);
+                    sums.put(cell, (sum != null ? sum : 0) + ((Number) value).doubleValue());
+                }
+            }
+        } finally {
+            features.close();
+        }
+        List<GeoHashCell> cells = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, long[]> entry : counts.entrySet()) {
+            cells.add(new GeoHashCell(entry.getKey(), precision, entry.getValue()[0], sums.get(entry.getKey())));
+        }
+        return cells;
+    }
+
+    /**
+     * 按数据源的方言创建过滤条件编码器，使用预编译语句时字面量作为参数绑定
+     * @param featureType
+     * @return
+     */
+    private FilterToSQL createFilterToSQL(SimpleFeatureType featureType) {
+        if (dataStore.getSQLDialect() instanceof PreparedStatementSQLDialect)
+            return dataStore.createPreparedFilterToSQL(featureType);
+        return dataStore.createFilterToSQL(featureType);
+    }
+
+    /**
+     * 绑定过滤条件中的字面量参数
+     * @param filterToSQL
+     * @param ps
+     * @param cx
+     * @throws SQLException
+     */
+    private void setFilterValues(PreparedFilterToSQL filterToSQL, PreparedStatement ps, Connection cx) throws SQLException {
+        PreparedStatementSQLDialect dialect = (PreparedStatementSQLDialect) dataStore.getSQLDialect();
+        List<Object> values = filterToSQL.getLiteralValues();
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            Class binding = filterToSQL.getLiteralTypes().get(i);
+            if (binding != null && Geometry.class.isAssignableFrom(binding)) {
+                Integer srid = filterToSQL.getSRIDs().get(i);
+                Integer dimension = filterToSQL.getDimensions().get(i);
+                dialect.setGeometryValue((Geometry) value, dimension != null ? dimension : 2, srid != null ? srid : -1, binding, ps, i + 1);
+            } else {
+                dialect.setValue(value, binding, ps, i + 1, cx);
+            }
+        }
+    }
+
+    /**
+     * 生成按网格分组的查询语句：点空间列带有_GEOHASH列时直接按该列分组，无需解码几何对象，
+     * 空几何对象的行在_GEOHASH列中为0，以空间列非空的条件排除
+     * @param featureType
+     * @param filter 能在Phoenix中完整执行的过滤条件
+     * @param precision
+     * @param sumAttribute
+     * @param filterToSQL 过滤条件编码器，预编译编码器的字面量写为?，由调用方绑定
+     * @return
+     * @throws IOException
+     */
+    String selectCellsSQL(SimpleFeatureType featureType, Filter filter, int precision, String sumAttribute, FilterToSQL filterToSQL) throws IOException {
+        SQLDialect dialect = dataStore.getSQLDialect();
+        String geometryName = featureType.getGeometryDescriptor().getLocalName();
+        PhoenixDialect phoenixDialect = PhoenixDataStoreFactory.getPhoenixDialect(dialect);
+        String geoHashColumn = phoenixDialect != null ? phoenixDialect.getGeoHashColumn(featureType.getTypeName(), geometryName) : null;
+        StringBuffer cell = new StringBuffer("ST_GEOHASH_CELL(");
+        dialect.encodeColumnName(null, geoHashColumn != null ? geoHashColumn : geometryName, cell);
+        cell.append(", ").append(precision).append(")");
+        if (geoHashColumn != null) {
+            Filter notNull = FF.not(FF.isNull(FF.property(geometryName)));
+            filter = filter == null || filter == Filter.INCLUDE ? notNull : FF.and(filter, notNull);
+        }
+
+        StringBuffer sql = new StringBuffer("SELECT ");
+        sql.append(cell).append(", COUNT(*)");
+        if (sumAttribute != null) {
+            sql.append(", SUM(");
+            dialect.encodeColumnName(null, sumAttribute, sql);
+            sql.append(")");
+        }
+        sql.append(" FROM ");
+        if (dataStore.getDatabaseSchema() != null) {
+            dialect.encodeSchemaName(dataStore.getDatabaseSchema(), sql);
+            sql.append(".");
+        }
+        dialect.encodeTableName(featureType.getTypeName(), sql);
+        if (filter != null && filter != Filter.INCLUDE) {
+            try {
+                sql.append(" ").append(filterToSQL.encodeToString(filter));
+            } catch (FilterToSQLException e) {
+                throw (IOException) new IOException("Error encoding filter").initCause(e);
+            }
+        }
+        sql.append(" GROUP BY ").append(cell);
+        return sql.toString();
+    }
+}
@@ -0,0 +1,255 @@
+package org.geotools.data.phoenix;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.jdbc.JDBCDataStore;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 文件描述：离线导入初始数据集，将要素直接生成为HBase的HFile后批量加载，不经过RegionServer的写入路径
+ * 要素经{@link PhoenixBatchWriter}以UPSERT写入但不提交，从Phoenix客户端取出其生成的数据表及索引表的KeyValue，
+ * 因此行键、空间列编码、_GEOHASH列与在线写入完全一致；KeyValue按表和列族排序后写为HFile，
+ * 最后交给HBase的LoadIncrementalHFiles加载，跨越Region边界的HFile由其自动切分。
+ * 使用的HBase配置由调用方提供，可以指向生产集群，也可以指向测试用的HBase mini-cluster
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class HFileBulkLoader {
+    private final static Logger LOGGER = Logger.getLogger(HFileBulkLoader.class.getName());
+
+    /**
+     * 默认每次从Phoenix客户端取出KeyValue前写入的要素个数，不能超过客户端缓存行数的上限（phoenix.mutate.maxSize）
+     */
+    public final static int DEFAULT_ROWS_PER_DRAIN = 10000;
+    /**
+     * 默认每个HFile中的KeyValue个数，超过时排序写出一个HFile，同一列族的多个HFile键范围可以重叠
+     */
+    public final static int DEFAULT_KEY_VALUES_PER_FILE = 1000000;
+
+    private final JDBCDataStore dataStore;
+    private final Configuration conf;
+    private final Path outputDir;
+    private int rowsPerDrain = DEFAULT_ROWS_PER_DRAIN;
+    private int keyValuesPerFile = DEFAULT_KEY_VALUES_PER_FILE;
+
+    /**
+     * 各HBase表、各列族尚未写出的KeyValue，键为“表名/列族”
+     */
+    private final Map<String, List<KeyValue>> pending_key_values = new HashMap<>();
+    /**
+     * 各要素类型的要素ID序列，加载之前多次写入同一要素类型时ID不重复
+     */
+    private final Map<String, AtomicLong> type_id_map = new HashMap<>();
+
+    /**
+     * @param dataStore 数据源
+     * @param conf HBase配置
+     * @param outputDir HFile的输出目录，其下按HBase表名和列族分目录
+     */
+    public HFileBulkLoader(JDBCDataStore dataStore, Configuration conf, Path outputDir) {
+        this.dataStore = dataStore;
+        this.conf = conf;
+        this.outputDir = outputDir;
+    }
+
+    public void setRowsPerDrain(int rowsPerDrain) {
+        if (rowsPerDrain < 1)
+            throw new IllegalArgumentException("Rows per drain must be positive: " + rowsPerDrain);
+        this.rowsPerDrain = rowsPerDrain;
+    }
+
+    public int getRowsPerDrain() {
+        return rowsPerDrain;
+    }
+
+    public void setKeyValuesPerFile(int keyValuesPerFile) {
+        if (keyValuesPerFile < 1)
+            throw new IllegalArgumentException("Key values per file must be positive: " + keyValuesPerFile);
+        this.keyValuesPerFile = keyValuesPerFile;
+    }
+
+    public int getKeyValuesPerFile() {
+        return keyValuesPerFile;
+    }
+
+    /**
+     * 生成HFile并加载到HBase
+     * @param typeName 要素类型名称，表需已通过createSchema创建
+     * @param features 要导入的要素，如由ShapefileDataStore读出的要素集合
+     * @return 导入的要素个数
+     * @throws IOException
+     */
+    public long load(String typeName, SimpleFeatureCollection features) throws IOException {
+        long count = write(typeName, features);
+        bulkLoad();
+        return count;
+    }
+
+    /**
+     * 将要素生成为输出目录下的HFile
+     * @param typeName 要素类型名称
+     * @param features 要导入的要素
+     * @return 写入的要素个数
+     * @throws IOException
+     */
+    public long write(String typeName, SimpleFeatureCollection features) throws IOException {
+        long count = 0;
+        AtomicLong nextId = type_id_map.get(typeName);
+        if (nextId == null)
+            type_id_map.put(typeName, nextId = new AtomicLong(-1));
+        PhoenixBatchWriter writer = new PhoenixBatchWriter(dataStore, typeName, Integer.MAX_VALUE, 0, nextId);
+        try {
+            SimpleFeatureIterator iterator = features.features();
+            try {
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    if (++count % rowsPerDrain == 0)
+                        drain(writer);
+                }
+            } finally {
+                iterator.close();
+            }
+            drain(writer);
+            flushAll();
+        } finally {
+            writer.rollback();
+            writer.close();
+        }
+        LOGGER.log(Level.INFO, "Wrote {0} features of {1} as HFiles under {2}", new Object[]{count, typeName, outputDir});
+        return count;
+    }
+
+    /**
+     * 取出Phoenix客户端缓存的KeyValue（包括索引表的），然后丢弃缓存的行
+     * @param writer
+     * @throws IOException
+     */
+    private void drain(PhoenixBatchWriter writer) throws IOException {
+        byte[] now = Bytes.toBytes(System.currentTimeMillis());
+        try {
+            Iterator<Pair<byte[], List<KeyValue>>> iterator = getUncommittedData(writer.getConnection());
+            while (iterator.hasNext()) {
+                Pair<byte[], List<KeyValue>> table = iterator.next();
+                String tableName = Bytes.toString(table.getFirst());
+                for (KeyValue keyValue : table.getSecond()) {
+                    keyValue.updateLatestStamp(now);/*与HFileOutputFormat一致，未指定时间戳的KeyValue使用当前时间*/
+                    String key = tableName + Path.SEPARATOR + Bytes.toString(keyValue.getFamily());
+                    List<KeyValue> keyValues = pending_key_values.get(key);
+                    if (keyValues == null)
+                        pending_key_values.put(key, keyValues = new ArrayList<>());
+                    keyValues.add(keyValue);
+                    if (keyValues.size() >= keyValuesPerFile)
+                        flush(key);
+                }
+            }
+        } catch (SQLException e) {
+            throw (IOException) new IOException("Error reading uncommitted Phoenix data").initCause(e);
+        }
+        writer.rollback();
+    }
+
+    /**
+     * 获取连接中缓存的尚未提交的KeyValue，按HBase表分组，包括索引表的
+     * @param cx 批量写入器使用的Phoenix连接
+     * @return 各HBase表名及其KeyValue
+     * @throws SQLException
+     */
+    protected Iterator<Pair<byte[], List<KeyValue>>> getUncommittedData(Connection cx) throws SQLException {
+        return PhoenixRuntime.getUncommittedDataIterator(cx, true);
+    }
+
+    private void flushAll() throws IOException {
+        for (String key : new ArrayList<>(pending_key_values.keySet())) {
+            flush(key);
+        }
+    }
+
+    /**
+     * 将一个列族尚未写出的KeyValue排序后写为一个HFile
+     * @param key 表名/列族
+     * @throws IOException
+     */
+    private void flush(String key) throws IOException {
+        List<KeyValue> keyValues = pending_key_values.remove(key);
+        if (keyValues == null || keyValues.isEmpty())
+            return;
+        Collections.sort(keyValues, KeyValue.COMPARATOR);
+        Path file = new Path(new Path(outputDir, key), UUID.randomUUID().toString().replace("-", ""));
+        FileSystem fs = file.getFileSystem(conf);
+        StoreFile.Writer writer = new StoreFile.WriterBuilder(conf, new CacheConfig(conf), fs)
+                .withFilePath(file)
+                .withComparator(KeyValue.COMPARATOR)
+                .withFileContext(new HFileContextBuilder().build())
+                .build();
+        try {
+            KeyValue previous = null;
+            for (KeyValue keyValue : keyValues) {
+                if (previous != null && KeyValue.COMPARATOR.compare(previous, keyValue) == 0)
+                    continue;/*同一行重复写入时只保留一个*/
+                writer.append(keyValue);
+                previous = keyValue;
+            }
+            writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY, Bytes.toBytes(System.currentTimeMillis()));
+            writer.appendFileInfo(StoreFile.BULKLOAD_TASK_KEY, Bytes.toBytes(HFileBulkLoader.class.getSimpleName()));
+            writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(false));
+            writer.appendTrackedTimestampsToMetadata();
+        } finally {
+            writer.close();
+        }
+        LOGGER.log(Level.FINE, "Wrote {0} key values to {1}", new Object[]{keyValues.size(), file});
+    }
+
+    /**
+     * 将输出目录下各表的HFile加载到HBase，加载后文件被移入表的目录
+     * @throws IOException
+     */
+    public void bulkLoad() throws IOException {
+        FileSystem fs = outputDir.getFileSystem(conf);
+        if (!fs.exists(outputDir))
+            return;
+        LoadIncrementalHFiles loader;
+        try {
+            loader = new LoadIncrementalHFiles(conf);
+        } catch (Exception e) {
+            throw (IOException) new IOException("Error creating HFile loader").initCause(e);
+        }
+        for (FileStatus status : fs.listStatus(outputDir)) {
+            if (!status.isDirectory())
+                continue;
+            String tableName = status.getPath().getName();
+            LOGGER.log(Level.INFO, "Bulk loading HFiles into {0}", tableName);
+            HTable table = new HTable(conf, tableName);
+            try {
+                loader.doBulkLoad(status.getPath(), table);
+            } finally {
+                table.close();
+            }
+        }
+    }
+}
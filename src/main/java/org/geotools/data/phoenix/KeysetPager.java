@@ -0,0 +1,188 @@
+package org.geotools.data.phoenix;
+
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.JDBCFeatureSource;
+import org.geotools.jdbc.JDBCFeatureStore;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.sort.SortBy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文件描述：按主键的键集分页（seek分页），替代LIMIT/OFFSET分页
+ * Phoenix通过扫描并丢弃前面的行实现OFFSET，页码越大越慢；这里记住上一页最后一行的主键，
+ * 下一页以(pk1, pk2, ...) > (v1, v2, ...)为条件按主键顺序读取，Phoenix直接从该行键开始扫描，每一页的代价相同
+ * 主键列需要作为要素属性暴露（数据源参数Expose primary keys为true），才能在过滤条件中引用
+ * 这是单独的接口，Query.setStartIndex及WFS的startIndex分页不经过这里，仍按LIMIT/OFFSET执行
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class KeysetPager {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    private final JDBCDataStore dataStore;
+    private final String typeName;
+    private final Filter filter;
+    private final int pageSize;
+    private final List<String> keyColumns;
+
+    /**
+     * 上一页最后一行的主键取值，读取第一页之前为null
+     */
+    private List<Object> lastKey;
+    private boolean exhausted;
+
+    /**
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @param filter 过滤条件，可以为null
+     * @param pageSize 每页的要素个数
+     * @throws IOException
+     */
+    public KeysetPager(JDBCDataStore dataStore, String typeName, Filter filter, int pageSize) throws IOException {
+        this(dataStore, typeName, getKeyColumns(dataStore, typeName), filter, pageSize);
+    }
+
+    /**
+     * 主键列已知时（如与续页标记一同保存）不再从要素源获取主键
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @param keyColumns 按主键顺序排列的主键列
+     * @param filter 过滤条件，可以为null
+     * @param pageSize 每页的要素个数
+     */
+    public KeysetPager(JDBCDataStore dataStore, String typeName, List<String> keyColumns, Filter filter, int pageSize) {
+        if (pageSize < 1)
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        if (!dataStore.isExposePrimaryKeyColumns())
+            throw new IllegalArgumentException("Keyset paging requires the primary key columns to be exposed");
+        if (keyColumns.isEmpty())
+            throw new IllegalArgumentException("Feature type " + typeName + " has no primary key");
+        this.dataStore = dataStore;
+        this.typeName = typeName;
+        this.filter = filter != null ? filter : Filter.INCLUDE;
+        this.pageSize = pageSize;
+        this.keyColumns = Collections.unmodifiableList(new ArrayList<>(keyColumns));
+    }
+
+    private static List<String> getKeyColumns(JDBCDataStore dataStore, String typeName) throws IOException {
+        SimpleFeatureSource source = dataStore.getFeatureSource(typeName);
+        PrimaryKey primaryKey = source instanceof JDBCFeatureStore ? ((JDBCFeatureStore) source).getPrimaryKey()
+                : ((JDBCFeatureSource) source).getPrimaryKey();
+        List<String> columns = new ArrayList<>();
+        for (PrimaryKeyColumn column : primaryKey.getColumns()) {
+            columns.add(column.getName());
+        }
+        return columns;
+    }
+
+    /**
+     * 是否还有下一页，上一页不满时认为已读完
+     * @return
+     */
+    public boolean hasNext() {
+        return !exhausted;
+    }
+
+    /**
+     * 读取下一页，并记住其最后一行的主键
+     * @return 下一页的要素，没有更多要素时返回空列表
+     * @throws IOException
+     */
+    public List<SimpleFeature> next() throws IOException {
+        List<SimpleFeature> page = new ArrayList<>(pageSize);
+        if (exhausted)
+            return page;
+        FeatureReader<SimpleFeatureType, SimpleFeature> reader = dataStore.getFeatureReader(getQuery(), Transaction.AUTO_COMMIT);
+        try {
+            while (reader.hasNext()) {
+                page.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+        if (!page.isEmpty()) {
+            SimpleFeature last = page.get(page.size() - 1);
+            List<Object> key = new ArrayList<>(keyColumns.size());
+            for (String column : keyColumns) {
+                key.add(last.getAttribute(column));
+            }
+            lastKey = key;
+        }
+        exhausted = page.size() < pageSize;
+        return page;
+    }
+
+    /**
+     * 生成下一页的查询：原过滤条件加上主键大于上一页最后一行的条件，按主键排序并限制个数
+     * 也可以直接交给其他GeoTools接口执行，执行后需通过{@link #setLastKey(List)}记录最后一行的主键
+     * @return
+     */
+    public Query getQuery() {
+        Filter pageFilter = filter;
+        if (lastKey != null) {
+            Filter keyset = keysetFilter(keyColumns, lastKey);
+            pageFilter = filter == Filter.INCLUDE ? keyset : FF.and(filter, keyset);
+        }
+        Query query = new Query(typeName, pageFilter);
+        query.setSortBy(new SortBy[]{SortBy.NATURAL_ORDER});
+        query.setMaxFeatures(pageSize);
+        return query;
+    }
+
+    /**
+     * 构造按主键字典序大于指定取值的条件：c1 > v1 OR (c1 = v1 AND c2 > v2) OR ...，
+     * 由PhoenixFilterToSQL编码为行值构造器(c1, c2, ...) > (v1, v2, ...)
+     * @param columns 按主键顺序排列的列
+     * @param key 对应的取值
+     * @return
+     */
+    static Filter keysetFilter(List<String> columns, List<Object> key) {
+        List<Filter> alternatives = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            List<Filter> terms = new ArrayList<>(i + 1);
+            for (int j = 0; j < i; j++) {
+                terms.add(FF.equals(FF.property(columns.get(j)), FF.literal(key.get(j))));
+            }
+            terms.add(FF.greater(FF.property(columns.get(i)), FF.literal(key.get(i))));
+            alternatives.add(terms.size() == 1 ? terms.get(0) : FF.and(terms));
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : FF.or(alternatives);
+    }
+
+    /**
+     * 获取上一页最后一行的主键，可保存在WFS等无状态请求的续页标记中
+     * @return 读取第一页之前为null
+     */
+    public List<Object> getLastKey() {
+        return lastKey;
+    }
+
+    /**
+     * 从保存的主键恢复分页位置
+     * @param lastKey 上一页最后一行的主键，为null时从第一页开始
+     */
+    public void setLastKey(List<Object> lastKey) {
+        if (lastKey != null && lastKey.size() != keyColumns.size())
+            throw new IllegalArgumentException("Expected " + keyColumns.size() + " key values: " + lastKey);
+        this.lastKey = lastKey != null ? new ArrayList<>(lastKey) : null;
+        this.exhausted = false;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+}
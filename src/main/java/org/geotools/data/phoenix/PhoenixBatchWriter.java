@@ -0,0 +1,481 @@
+package org.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Geometry;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.Hints;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.JDBCFeatureSource;
+import org.geotools.jdbc.JDBCFeatureStore;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.geotools.jdbc.SQLDialect;
+import org.geotools.util.Converters;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 文件描述：批量写入要素，用于大批量导入
+ * 要素以预编译的UPSERT语句写入，连接不自动提交，Phoenix在客户端缓存写入的行，
+ * 每写满指定行数或距上次提交超过指定时间时提交一次，一次提交将缓存的行批量发送到各RegionServer，
+ * 避免逐条语句提交的往返开销。空间列按目标表的编码写入，_GEOHASH列由点坐标计算
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class PhoenixBatchWriter implements Closeable {
+    private final static Logger LOGGER = Logger.getLogger(PhoenixBatchWriter.class.getName());
+
+    /**
+     * 默认每次提交的行数
+     */
+    public final static int DEFAULT_BATCH_SIZE = 1000;
+    /**
+     * 默认的提交间隔（毫秒）
+     */
+    public final static long DEFAULT_COMMIT_INTERVAL = 1000;
+
+    private final JDBCDataStore dataStore;
+    private final PhoenixDialect dialect;
+    private final SimpleFeatureType featureType;
+    private final PrimaryKey primaryKey;
+    private final int batchSize;
+    private final long commitInterval;
+
+    /**
+     * 写入的非主键属性
+     */
+    private final List<AttributeDescriptor> attributes;
+    /**
+     * 各主键列对应的空间列，不是_GEOHASH列时为null
+     */
+    private final List<String> keyGeometries;
+    /**
+     * 下一个生成的要素ID，未提供要素ID的要素从表中现有的最大值加一开始编号，多个写入器可以共用
+     */
+    private final AtomicLong nextId;
+
+    private final Connection cx;
+    private final PreparedStatement ps;
+    private final ScheduledExecutorService timer;
+
+    private int pending;
+    private long lastCommit;
+    private long started;
+    private long written;
+    private long commits;
+    private long commitMillis;
+    private boolean closed;
+    /**
+     * 定时提交失败的错误，此时缓存的行已丢失，之后的写入、提交和关闭都抛出该错误
+     */
+    private volatile IOException failure;
+
+    /**
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @throws IOException
+     */
+    public PhoenixBatchWriter(JDBCDataStore dataStore, String typeName) throws IOException {
+        this(dataStore, typeName, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @param batchSize 每次提交的行数，受Phoenix客户端缓存行数的上限（phoenix.mutate.maxSize）限制
+     * @param commitInterval 提交间隔（毫秒），写入较慢时缓存的行最多等待这么久就会提交，不大于0时只按行数提交
+     * @throws IOException
+     */
+    public PhoenixBatchWriter(JDBCDataStore dataStore, String typeName, int batchSize, long commitInterval) throws IOException {
+        this(dataStore, typeName, batchSize, commitInterval, null);
+    }
+
+    /**
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @param batchSize 每次提交的行数
+     * @param commitInterval 提交间隔（毫秒）
+     * @param nextId 共用的要素ID序列，为null时首次需要时从表中现有的最大值加一开始
+     * @throws IOException
+     */
+    PhoenixBatchWriter(JDBCDataStore dataStore, String typeName, int batchSize, long commitInterval, AtomicLong nextId) throws IOException {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.dataStore = dataStore;
+        this.dialect = PhoenixDataStoreFactory.getPhoenixDialect(dataStore.getSQLDialect());
+        if (dialect == null)
+            throw new IllegalArgumentException("Data store is not a Phoenix data store");
+        this.featureType = dataStore.getSchema(typeName);
+        this.primaryKey = getPrimaryKey(dataStore, typeName);
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.nextId = nextId != null ? nextId : new AtomicLong(-1);
+
+        this.attributes = new ArrayList<>();
+        for (AttributeDescriptor descriptor : featureType.getAttributeDescriptors()) {
+            if (!isKeyColumn(descriptor.getLocalName()))
+                attributes.add(descriptor);
+        }
+        this.keyGeometries = new ArrayList<>();
+        for (PrimaryKeyColumn column : primaryKey.getColumns()) {
+            keyGeometries.add(getKeyGeometry(column.getName()));
+        }
+
+        String sql = upsertSQL();
+        LOGGER.log(Level.FINE, "Batch upsert; {0}", sql);
+        try {
+            this.cx = dataStore.getDataSource().getConnection();
+            cx.setAutoCommit(false);
+            this.ps = cx.prepareStatement(sql);
+        } catch (SQLException e) {
+            throw (IOException) new IOException("Error preparing batch upsert").initCause(e);
+        }
+        this.started = System.currentTimeMillis();
+        this.lastCommit = started;
+        if (commitInterval > 0) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "phoenix-batch-commit");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    commitIfDue();
+                }
+            }, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.timer = null;
+        }
+    }
+
+    private static PrimaryKey getPrimaryKey(JDBCDataStore dataStore, String typeName) throws IOException {
+        SimpleFeatureSource source = dataStore.getFeatureSource(typeName);
+        if (source instanceof JDBCFeatureStore)
+            return ((JDBCFeatureStore) source).getPrimaryKey();
+        return ((JDBCFeatureSource) source).getPrimaryKey();
+    }
+
+    private boolean isKeyColumn(String name) {
+        for (PrimaryKeyColumn column : primaryKey.getColumns()) {
+            if (column.getName().equalsIgnoreCase(name))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取_GEOHASH主键列对应的空间列
+     * @param keyColumn
+     * @return 不是_GEOHASH列时返回null
+     */
+    private String getKeyGeometry(String keyColumn) {
+        for (AttributeDescriptor descriptor : attributes) {
+            if (descriptor instanceof GeometryDescriptor
+                    && keyColumn.equalsIgnoreCase(dialect.getGeoHashColumn(featureType.getTypeName(), descriptor.getLocalName())))
+                return descriptor.getLocalName();
+        }
+        return null;
+    }
+
+    /**
+     * 生成UPSERT INTO 表 (属性列, 主键列) VALUES (?, ...)
+     * @return
+     */
+    private String upsertSQL() {
+        SQLDialect sqlDialect = dataStore.getSQLDialect();
+        StringBuffer sql = new StringBuffer("UPSERT INTO ");
+        if (dataStore.getDatabaseSchema() != null) {
+            sqlDialect.encodeSchemaName(dataStore.getDatabaseSchema(), sql);
+            sql.append(".");
+        }
+        sqlDialect.encodeTableName(featureType.getTypeName(), sql);
+        sql.append(" (");
+        int count = 0;
+        for (AttributeDescriptor descriptor : attributes) {
+            sqlDialect.encodeColumnName(null, descriptor.getLocalName(), sql);
+            sql.append(", ");
+            count++;
+        }
+        for (PrimaryKeyColumn column : primaryKey.getColumns()) {
+            sqlDialect.encodeColumnName(null, column.getName(), sql);
+            sql.append(", ");
+            count++;
+        }
+        sql.setLength(sql.length() - 2);
+        sql.append(") VALUES (");
+        for (int i = 0; i < count; i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        sql.append(")");
+        return sql.toString();
+    }
+
+    /**
+     * 写入一个要素，要素的用户数据中{@link Hints#USE_PROVIDED_FID}为true时使用其要素ID，否则生成新的ID；
+     * 达到批量行数时提交
+     * @param feature
+     * @throws IOException 写入出错或之前的定时提交失败时抛出
+     */
+    public synchronized void write(SimpleFeature feature) throws IOException {
+        if (closed)
+            throw new IOException("Batch writer is closed");
+        checkFailure();
+        try {
+            int column = 1;
+            for (AttributeDescriptor descriptor : attributes) {
+                setAttribute(descriptor, feature.getAttribute(descriptor.getLocalName()), column++);
+            }
+            List<Object> keyValues = getKeyValues(feature);
+            for (int i = 0; i < primaryKey.getColumns().size(); i++) {
+                PrimaryKeyColumn keyColumn = primaryKey.getColumns().get(i);
+                Object value = i < keyValues.size() ? keyValues.get(i) : null;
+                if (keyGeometries.get(i) != null)
+                    value = PhoenixDialect.encodeGeoHash((Geometry) feature.getAttribute(keyGeometries.get(i)));
+                if (value == null)
+                    throw new IOException("Primary key column " + keyColumn.getName() + " of feature " + feature.getID() + " has no value");
+                ps.setObject(column++, Converters.convert(value, keyColumn.getType()));
+            }
+            ps.executeUpdate();
+            pending++;
+        } catch (SQLException e) {
+            throw (IOException) new IOException("Error writing feature " + feature.getID()).initCause(e);
+        }
+        if (pending >= batchSize)
+            commit();
+    }
+
+    /**
+     * 绑定一个属性，空间列按目标表的编码绑定
+     * @param descriptor
+     * @param value
+     * @param column
+     * @throws SQLException
+     */
+    private void setAttribute(AttributeDescriptor descriptor, Object value, int column) throws SQLException {
+        if (descriptor instanceof GeometryDescriptor) {
+            Object dimension = descriptor.getUserData().get(Hints.COORDINATE_DIMENSION);
+            dialect.setGeometryValue((Geometry) value, dimension instanceof Integer ? (Integer) dimension : 2,
+                    featureType.getTypeName(), ps, column);
+        } else if (value == null) {
+            Integer sqlType = dataStore.getMapping(descriptor.getType().getBinding());
+            ps.setNull(column, sqlType != null ? sqlType : Types.OTHER);
+        } else {
+            Object converted = Converters.convert(value, descriptor.getType().getBinding());
+            ps.setObject(column, converted != null ? converted : value);
+        }
+    }
+
+    /**
+     * 获取要素的主键取值，_GEOHASH列的取值随后由几何对象计算，要素ID中缺少的列为null
+     * @param feature
+     * @return
+     * @throws IOException
+     * @throws SQLException
+     */
+    private List<Object> getKeyValues(SimpleFeature feature) throws IOException, SQLException {
+        if (Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID)))
+            return JDBCDataStore.decodeFID(primaryKey, feature.getID(), true);
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < primaryKey.getColumns().size(); i++) {
+            values.add(keyGeometries.get(i) != null ? null : nextId(primaryKey.getColumns().get(i)));
+        }
+        return values;
+    }
+
+    /**
+     * 生成下一个要素ID，首次生成时查询表中现有的最大值
+     * @param column
+     * @return
+     * @throws SQLException
+     */
+    private long nextId(PrimaryKeyColumn column) throws SQLException {
+        synchronized (nextId) {
+            if (nextId.get() < 0) {
+                StringBuffer sql = new StringBuffer("SELECT MAX(");
+                dataStore.getSQLDialect().encodeColumnName(null, column.getName(), sql);
+                sql.append(") FROM ");
+                if (dataStore.getDatabaseSchema() != null) {
+                    dataStore.getSQLDialect().encodeSchemaName(dataStore.getDatabaseSchema(), sql);
+                    sql.append(".");
+                }
+                dataStore.getSQLDialect().encodeTableName(featureType.getTypeName(), sql);
+                LOGGER.fine(sql.toString());
+                Statement st = cx.createStatement();
+                try {
+                    ResultSet rs = st.executeQuery(sql.toString());
+                    try {
+                        nextId.set(rs.next() ? rs.getLong(1) + 1 : 1);
+                    } finally {
+                        dataStore.closeSafe(rs);
+                    }
+                } finally {
+                    dataStore.closeSafe(st);
+                }
+            }
+        }
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * 距上次提交超过提交间隔时提交，由定时任务调用；提交失败时记录错误，由调用方下一次写入、提交或关闭时抛出
+     */
+    private synchronized void commitIfDue() {
+        if (closed || failure != null || pending == 0 || System.currentTimeMillis() - lastCommit < commitInterval)
+            return;
+        try {
+            commit();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error committing batch", e);
+            failure = e;
+        }
+    }
+
+    /**
+     * 定时提交失败的错误
+     * @return 没有失败时返回null
+     */
+    IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * 定时提交失败时抛出
+     * @throws IOException
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null)
+            throw (IOException) new IOException("Scheduled batch commit failed, uncommitted rows were lost").initCause(failure);
+    }
+
+    /**
+     * 提交缓存的行
+     * @throws IOException
+     */
+    public synchronized void commit() throws IOException {
+        checkFailure();
+        if (pending == 0)
+            return;
+        long start = System.currentTimeMillis();
+        try {
+            cx.commit();
+        } catch (SQLException e) {
+            try {
+                cx.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.FINE, "Error rolling back batch", ex);
+            }
+            pending = 0;
+            throw (IOException) new IOException("Error committing batch").initCause(e);
+        }
+        lastCommit = System.currentTimeMillis();
+        commitMillis += lastCommit - start;
+        written += pending;
+        commits++;
+        pending = 0;
+    }
+
+    /**
+     * 丢弃缓存的行，用于只生成数据而不提交的场合（如生成HFile）
+     * @throws IOException
+     */
+    synchronized void rollback() throws IOException {
+        try {
+            cx.rollback();
+        } catch (SQLException e) {
+            throw (IOException) new IOException("Error rolling back batch").initCause(e);
+        } finally {
+            pending = 0;
+        }
+    }
+
+    /**
+     * 写入器使用的连接，其中缓存着尚未提交的行
+     * @return
+     */
+    Connection getConnection() {
+        return cx;
+    }
+
+    /**
+     * 已提交的行数
+     * @return
+     */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * 已写入尚未提交的行数
+     * @return
+     */
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * 提交次数
+     * @return
+     */
+    public synchronized long getCommitCount() {
+        return commits;
+    }
+
+    /**
+     * 提交累计耗费的时间（毫秒），与总耗时的比值反映写入受集群还是客户端制约
+     * @return
+     */
+    public synchronized long getCommitMillis() {
+        return commitMillis;
+    }
+
+    /**
+     * 从创建写入器起平均每秒提交的行数
+     * @return
+     */
+    public synchronized double getThroughput() {
+        long elapsed = System.currentTimeMillis() - started;
+        return elapsed > 0 ? written * 1000.0 / elapsed : 0;
+    }
+
+    /**
+     * 提交剩余的行并释放连接
+     * @throws IOException 提交出错或之前的定时提交失败时抛出，连接仍会释放
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            commit();
+        } finally {
+            closed = true;
+            if (timer != null)
+                timer.shutdownNow();
+            dataStore.closeSafe(ps);
+            dataStore.closeSafe(cx);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package org.geotools.data.phoenix;
+
+import org.geotools.factory.Hints;
+import org.geotools.jdbc.JDBCDataStore;
+import org.opengis.feature.simple.SimpleFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件描述：并行分区批量写入要素，用于全国范围等大数据集的导入
+ * 要素按行键（以要素ID开头）均匀地分配到若干个分区，每个分区由独立的线程和连接通过{@link PhoenixBatchWriter}写入，
+ * 数据在空间上集中（如只覆盖一个省）时各分区的负载仍然均衡；各分区的队列有界，写入快于集群处理时调用方被阻塞（背压），
+ * 阻塞的累计时间可通过{@link #getBlockedMillis()}查看
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class PhoenixBulkWriter implements Closeable {
+    /**
+     * 默认的分区个数（写入线程数）
+     */
+    public final static int DEFAULT_PARTITIONS = 4;
+    /**
+     * 默认每个分区队列中等待写入的要素个数上限
+     */
+    public final static int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /**
+     * 分区写入结束的标记
+     */
+    private final static Object END = new Object();
+
+    private final List<BlockingQueue<Object>> queues;
+    private final List<PhoenixBatchWriter> writers;
+    private final ExecutorService executor;
+    private final AtomicLong blockedMillis = new AtomicLong();
+    private final AtomicLong roundRobin = new AtomicLong();
+
+    private volatile Throwable failure;
+    private boolean closed;
+
+    /**
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @throws IOException
+     */
+    public PhoenixBulkWriter(JDBCDataStore dataStore, String typeName) throws IOException {
+        this(dataStore, typeName, DEFAULT_PARTITIONS, PhoenixBatchWriter.DEFAULT_BATCH_SIZE,
+                PhoenixBatchWriter.DEFAULT_COMMIT_INTERVAL, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param dataStore 数据源
+     * @param typeName 要素类型名称
+     * @param partitions 分区个数，即写入线程和连接的个数，通常取RegionServer个数的整数倍
+     * @param batchSize 每个分区每次提交的行数
+     * @param commitInterval 每个分区的提交间隔（毫秒）
+     * @param queueCapacity 每个分区队列中等待写入的要素个数上限
+     * @throws IOException
+     */
+    public PhoenixBulkWriter(JDBCDataStore dataStore, String typeName, int partitions, int batchSize, long commitInterval, int queueCapacity) throws IOException {
+        if (partitions < 1 || queueCapacity < 1)
+            throw new IllegalArgumentException("Partitions and queue capacity must be positive: " + partitions + ", " + queueCapacity);
+        AtomicLong nextId = new AtomicLong(-1);/*各分区共用要素ID序列*/
+        this.queues = new ArrayList<>(partitions);
+        this.writers = new ArrayList<>(partitions);
+        try {
+            for (int i = 0; i < partitions; i++) {
+                queues.add(new ArrayBlockingQueue<>(queueCapacity));
+                writers.add(new PhoenixBatchWriter(dataStore, typeName, batchSize, commitInterval, nextId));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (PhoenixBatchWriter writer : writers) {
+                writer.close();
+            }
+            throw e;
+        }
+        this.executor = Executors.newFixedThreadPool(partitions, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "phoenix-bulk-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < partitions; i++) {
+            final BlockingQueue<Object> queue = queues.get(i);
+            final PhoenixBatchWriter writer = writers.get(i);
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    writePartition(queue, writer);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 依次写入一个分区队列中的要素，出错后继续取出队列中的要素并丢弃，直到结束标记，使调用方不被阻塞
+     * @param queue
+     * @param writer
+     */
+    private void writePartition(BlockingQueue<Object> queue, PhoenixBatchWriter writer) {
+        try {
+            Object item;
+            while ((item = queue.take()) != END) {
+                if (failure != null)
+                    continue;
+                try {
+                    writer.write((SimpleFeature) item);
+                } catch (Throwable e) {
+                    fail(e);
+                }
+            }
+            if (failure == null)
+                writer.commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 记录第一个错误
+     * @param e
+     */
+    private synchronized void fail(Throwable e) {
+        if (failure == null)
+            failure = e;
+    }
+
+    /**
+     * 获取要素所属的分区：使用提供的要素ID时按其散列值分配，否则要素ID由写入器按序列生成，轮流分配
+     * @param feature
+     * @return
+     */
+    int getPartition(SimpleFeature feature) {
+        if (Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID)))
+            return partitionOf(feature.getID(), queues.size());
+        return (int) (roundRobin.getAndIncrement() % queues.size());
+    }
+
+    /**
+     * 按要素ID的散列值计算所属的分区，与数据的空间分布无关
+     * @param featureId 要素ID
+     * @param partitions 分区个数
+     * @return [0, partitions)中的分区号
+     */
+    public static int partitionOf(String featureId, int partitions) {
+        int hash = featureId.hashCode();
+        hash ^= hash >>> 16;/*混合高位，使相邻的ID也能分散*/
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return (hash & Integer.MAX_VALUE) % partitions;
+    }
+
+    /**
+     * 写入一个要素，所属分区的队列已满时阻塞直到有空位
+     * @param feature
+     * @throws IOException 之前的写入出错时抛出
+     */
+    public void write(SimpleFeature feature) throws IOException {
+        checkFailure();
+        if (closed)
+            throw new IOException("Bulk writer is closed");
+        BlockingQueue<Object> queue = queues.get(getPartition(feature));
+        if (queue.offer(feature))
+            return;
+        long start = System.currentTimeMillis();
+        try {
+            while (!queue.offer(feature, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for bulk writer partition", e);
+        } finally {
+            blockedMillis.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 任一分区写入出错或定时提交失败时抛出
+     * @throws IOException
+     */
+    private void checkFailure() throws IOException {
+        if (failure == null) {
+            for (PhoenixBatchWriter writer : writers) {
+                if (writer.getFailure() != null)
+                    fail(writer.getFailure());
+            }
+        }
+        if (failure != null)
+            throw (IOException) new IOException("Bulk write failed").initCause(failure);
+    }
+
+    /**
+     * 已提交的行数
+     * @return
+     */
+    public long getWrittenCount() {
+        long written = 0;
+        for (PhoenixBatchWriter writer : writers) {
+            written += writer.getWrittenCount();
+        }
+        return written;
+    }
+
+    /**
+     * 各分区队列中等待写入的要素个数，持续接近队列容量说明集群跟不上写入速度
+     * @return
+     */
+    public int[] getQueuedCounts() {
+        int[] counts = new int[queues.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = queues.get(i).size();
+        }
+        return counts;
+    }
+
+    /**
+     * 调用方因分区队列已满而阻塞的累计时间（毫秒）
+     * @return
+     */
+    public long getBlockedMillis() {
+        return blockedMillis.get();
+    }
+
+    /**
+     * 各分区平均每秒提交的行数之和
+     * @return
+     */
+    public double getThroughput() {
+        double throughput = 0;
+        for (PhoenixBatchWriter writer : writers) {
+            throughput += writer.getThroughput();
+        }
+        return throughput;
+    }
+
+    /**
+     * 等待各分区写完并提交，释放全部连接
+     * @throws IOException 任一分区写入出错时抛出
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            for (BlockingQueue<Object> queue : queues) {
+                queue.put(END);
+            }
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                /*等待各分区写完*/
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new IOException("Interrupted while closing bulk writer", e);
+        } finally {
+            for (PhoenixBatchWriter writer : writers) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+        checkFailure();
+    }
+}
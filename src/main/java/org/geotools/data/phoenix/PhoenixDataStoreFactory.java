@@ -1,6 +1,8 @@
 package org.geotools.data.phoenix;
 
 import org.geotools.data.Parameter;
+import org.geotools.data.phoenix.util.GeoHashCover;
+import org.geotools.data.phoenix.util.GeometryEncoding;
 import org.geotools.jdbc.JDBCDataStore;
 import org.geotools.jdbc.JDBCDataStoreFactory;
 import org.geotools.jdbc.SQLDialect;
@@ -40,6 +42,26 @@ public class PhoenixDataStoreFactory extends JDBCDataStoreFactory {
      * 密码
      */
     public static final Param PASSWD = new Param("passwd", String.class, new SimpleInternationalString("password used to login"), false, null, Collections.singletonMap(Parameter.IS_PASSWORD, Boolean.TRUE));
+    /**
+     * 新建表中空间列的存储编码，取值为WKB或TWKB
+     */
+    public static final Param GEOMETRY_ENCODING = new Param("geometry encoding", String.class, "Binary encoding of geometry columns in new tables, WKB or TWKB", false, GeometryEncoding.WKB.name());
+    /**
+     * 新建表使用TWKB编码时坐标保留的小数位数
+     */
+    public static final Param TWKB_PRECISION = new Param("twkb precision", Integer.class, "Decimal digits kept by TWKB coordinates", false, GeometryEncoding.DEFAULT_TWKB_PRECISION);
+    /**
+     * 空间过滤条件下推为GeoHash键范围时的区间个数上限
+     */
+    public static final Param GEOHASH_MAX_RANGES = new Param("geohash max ranges", Integer.class, "Maximum number of geohash key ranges a spatial filter is pushed down as", false, GeoHashCover.DEFAULT_MAX_RANGES);
+    /**
+     * 几何字面量的GeoHash覆盖细分到的字符长度
+     */
+    public static final Param GEOHASH_MAX_PRECISION = new Param("geohash max precision", Integer.class, "Geohash length down to which the key range cover of a query geometry is refined", false, GeoHashCover.DEFAULT_MAX_PRECISION);
+    /**
+     * 是否使用预编译语句，开启后过滤条件和写入的取值都作为参数绑定
+     */
+    public static final Param PREPARED_STATEMENTS = new Param("preparedStatements", Boolean.class, "Use prepared statements", false, Boolean.FALSE);
 
     @Override
     public String getDisplayName() {
@@ -138,5 +160,55 @@ public class PhoenixDataStoreFactory extends JDBCDataStoreFactory {
         parameters.put(DBTYPE.key, DBTYPE);
         parameters.put(DATABASE.key, DATABASE);
         parameters.put(HOST.key, HOST);
+        parameters.put(GEOMETRY_ENCODING.key, GEOMETRY_ENCODING);
+        parameters.put(TWKB_PRECISION.key, TWKB_PRECISION);
+        parameters.put(GEOHASH_MAX_RANGES.key, GEOHASH_MAX_RANGES);
+        parameters.put(GEOHASH_MAX_PRECISION.key, GEOHASH_MAX_PRECISION);
+        parameters.put(PREPARED_STATEMENTS.key, PREPARED_STATEMENTS);
+    }
+
+    /**
+     * 根据参数配置方言中空间列的存储编码，并在需要时换用预编译语句的方言
+     * @param dataStore
+     * @param params
+     * @return
+     * @throws IOException
+     */
+    @Override
+    protected JDBCDataStore createDataStoreInternal(JDBCDataStore dataStore, Map params) throws IOException {
+        PhoenixDialect dialect = getPhoenixDialect(dataStore.getSQLDialect());
+        if (dialect != null) {
+            GeometryEncoding encoding = GeometryEncoding.lookUp((String) GEOMETRY_ENCODING.lookUp(params));
+            if (encoding != null)
+                dialect.setGeometryEncoding(encoding);
+            Integer precision = (Integer) TWKB_PRECISION.lookUp(params);
+            if (precision != null)
+                dialect.setTwkbPrecision(precision);
+            Integer maxRanges = (Integer) GEOHASH_MAX_RANGES.lookUp(params);
+            if (maxRanges != null)
+                dialect.setGeoHashMaxRanges(maxRanges);
+            Integer maxPrecision = (Integer) GEOHASH_MAX_PRECISION.lookUp(params);
+            if (maxPrecision != null)
+                dialect.setGeoHashMaxPrecision(maxPrecision);
+            Boolean prepared = (Boolean) PREPARED_STATEMENTS.lookUp(params);
+            if (Boolean.TRUE.equals(prepared) && !(dataStore.getSQLDialect() instanceof PhoenixDialectPrepared))
+                dataStore.setSQLDialect(new PhoenixDialectPrepared(dataStore, dialect));
+        }
+        return dataStore;
+    }
+
+    /**
+     * 获取方言所委托的Phoenix方言
+     * @param dialect
+     * @return
+     */
+    static PhoenixDialect getPhoenixDialect(SQLDialect dialect) {
+        if (dialect instanceof PhoenixDialectBasic)
+            return ((PhoenixDialectBasic) dialect).delegate;
+        if (dialect instanceof PhoenixDialectPrepared)
+            return ((PhoenixDialectPrepared) dialect).delegate;
+        if (dialect instanceof PhoenixDialect)
+            return (PhoenixDialect) dialect;
+        return null;
     }
 }
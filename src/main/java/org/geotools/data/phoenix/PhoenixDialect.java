@@ -2,7 +2,18 @@ package org.geotools.data.phoenix;
 
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBWriter;
 import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.io.WKTWriter;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.SchemaUtil;
+import org.geotools.data.Query;
+import org.geotools.data.phoenix.util.GeoHashConverter;
+import org.geotools.data.phoenix.util.GeoHashCover;
+import org.geotools.data.phoenix.util.GeometryCodec;
+import org.geotools.data.phoenix.util.GeometryEncoding;
+import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.factory.Hints;
 import org.geotools.geometry.jts.Geometries;
 import org.geotools.jdbc.Index;
@@ -12,12 +23,28 @@ import org.geotools.referencing.CRS;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.Id;
+import org.opengis.filter.Not;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.spatial.Beyond;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Disjoint;
+import org.opengis.filter.spatial.DistanceBufferOperator;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -37,6 +64,78 @@ public class PhoenixDialect extends SQLDialect {
     protected final static Integer MULTIPOLYGON = new Integer(3006);
     protected final static Integer GEOMETRY = new Integer(3007);
 
+    /**
+     * 要素类型用户数据中指定空间列存储编码的键，取值为WKB或TWKB
+     */
+    public final static String GEOMETRY_ENCODING = "phoenix.geometryEncoding";
+    /**
+     * 要素类型用户数据中指定TWKB坐标精度（保留的小数位数）的键
+     */
+    public final static String TWKB_PRECISION = "phoenix.twkbPrecision";
+    /**
+     * 要素类型用户数据中默认空间列对应的_GEOHASH列名的键，读取要素类型时写入，带有此键的图层可按GeoHash的Z序输出
+     */
+    public final static String GEOHASH_COLUMN = "phoenix.geoHashColumn";
+    /**
+     * 要素类型或属性用户数据中指定新建表加盐分桶个数的键，取值为1到256的整数，建表语句中追加SALT_BUCKETS表选项；
+     * 二者都指定时以属性上的取值为准
+     */
+    public final static String SALT_BUCKETS = "phoenix.saltBuckets";
+    /**
+     * 要素类型或空间列用户数据中指定数据预期经纬度范围的键，取值为Envelope，据此按GeoHash前缀预分裂_GEOHASH索引表
+     */
+    public final static String SPLIT_EXTENT = "phoenix.splitExtent";
+    /**
+     * 要素类型或空间列用户数据中指定_GEOHASH索引表预分裂的Region个数的键，默认为{@link #DEFAULT_SPLIT_REGIONS}
+     */
+    public final static String SPLIT_REGIONS = "phoenix.splitRegions";
+    /**
+     * 默认预分裂的Region个数
+     */
+    public final static int DEFAULT_SPLIT_REGIONS = 16;
+    /**
+     * Phoenix允许的加盐分桶个数上限
+     */
+    private final static int MAX_SALT_BUCKETS = 256;
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    /**
+     * 查询提示：对主键的非前导列也使用跳跃扫描，取值为Boolean
+     */
+    public final static Hints.Key HINT_SKIP_SCAN = new Hints.Key(Boolean.class);
+    /**
+     * 查询提示：扫描的数据块不放入RegionServer的块缓存，取值为Boolean；
+     * 未指定时，不限个数且没有空间过滤条件的查询（如导出全表）自动添加，显式设为false可关闭
+     */
+    public final static Hints.Key HINT_NO_CACHE = new Hints.Key(Boolean.class);
+    /**
+     * 查询提示：结果很少，一次RPC取回全部结果，取值为Boolean；未指定时，按要素ID查询自动添加
+     */
+    public final static Hints.Key HINT_SMALL = new Hints.Key(Boolean.class);
+    /**
+     * 查询提示：强制使用的索引名称，多个索引以空格分隔
+     */
+    public final static Hints.Key HINT_INDEX = new Hints.Key(String.class);
+    /**
+     * 查询提示：强制使用默认空间列_GEOHASH列上的索引，取值为Boolean；
+     * 未指定时，按_GEOHASH排序或过滤条件下推为该列键范围的查询自动添加，显式设为false可关闭
+     */
+    public final static Hints.Key HINT_GEOHASH_INDEX = new Hints.Key(Boolean.class);
+    /**
+     * 查询提示：原样加入的其他Phoenix提示，如USE_SORT_MERGE_JOIN
+     */
+    public final static Hints.Key HINT_QUERY = new Hints.Key(String.class);
+
+    /**
+     * 计算空间范围时各边界坐标的函数与聚合方式，各列别名为空间列名加上后缀，顺序为最小X、最小Y、最大X、最大Y
+     */
+    protected final static String[][] EXTENT_AGGREGATES = {
+            {"MIN", "ST_XMIN", "_XMIN"},
+            {"MIN", "ST_YMIN", "_YMIN"},
+            {"MAX", "ST_XMAX", "_XMAX"},
+            {"MAX", "ST_YMAX", "_YMAX"}
+    };
+
     /**
      * 几何类型名称与类型的映射
      */
@@ -94,7 +193,11 @@ public class PhoenixDialect extends SQLDialect {
      */
     private Map<String, String> geo_column_map;
     /**
-     * 根绝空间类型字符串替换为VARCHAR的类型列表
+     * 创建表中由属性用户数据指定的表选项，键为用户数据的键
+     */
+    private Map<String, Object> table_option_map;
+    /**
+     * 根据空间类型字符串替换为存储编码对应类型的类型列表
      */
     protected final static List<String> TYPE_TO_VARCHAR = new ArrayList<String>() {
         {
@@ -121,12 +224,131 @@ public class PhoenixDialect extends SQLDialect {
      * 设置是否一次插入多次读取标志
      */
     protected boolean isImmutableRows;
+    /**
+     * 新建表中空间列默认的存储编码
+     */
+    protected GeometryEncoding geometryEncoding;
+    /**
+     * 新建表使用TWKB编码时默认的坐标精度
+     */
+    protected int twkbPrecision;
+    /**
+     * 空间过滤条件下推为_GEOHASH键范围时的区间个数上限
+     */
+    protected int geoHashMaxRanges;
+    /**
+     * 几何字面量的GeoHash覆盖细分到的字符长度
+     */
+    protected int geoHashMaxPrecision;
+    /**
+     * 各表空间列的存储编码，键为大写的表名，由geometry_columns元数据表加载
+     */
+    private Map<String, GeometryEncoding> table_encoding_map;
+    /**
+     * 各表使用TWKB编码时的坐标精度，键为大写的表名
+     */
+    private Map<String, Integer> table_precision_map;
+    /**
+     * 各表中带有_GEOHASH列的点空间列，键为大写的表名，值为大写的空间列名与其_GEOHASH列名的映射
+     */
+    private Map<String, Map<String, String>> table_geohash_map;
+    /**
+     * 当前线程正在写入的行中带有_GEOHASH列的空间列的取值，键为大写的"表名.空间列名"，
+     * 几何取值先于主键写出，写出_GEOHASH主键时取出并计算GeoHash；取值为空时GeoTools不写出几何取值，此时没有记录
+     */
+    private final ThreadLocal<Map<String, Geometry>> row_geometry_map = new ThreadLocal<Map<String, Geometry>>() {
+        @Override
+        protected Map<String, Geometry> initialValue() {
+            return new HashMap<>();
+        }
+    };
+    /**
+     * 当前线程正在生成或绑定的UPSERT语句
+     */
+    private final ThreadLocal<UpsertStatement> upsertStatement = new ThreadLocal<>();
+
+    /**
+     * 正在生成或绑定的UPSERT语句，几何取值所属的列由语句的列名列表及取值在VALUES中的位置确定，
+     * 不依赖之前各取值的写法（GeoTools对空值直接写出null，不经过方言）
+     */
+    private static class UpsertStatement {
+        final StringBuffer sql;
+        final String tableName;
+        /**
+         * 按顺序排列的大写列名，列名列表不完整时为空
+         */
+        final List<String> columns = new ArrayList<>();
+        /**
+         * VALUES中已扫描到的位置，只扫描新写出的部分
+         */
+        private int scanned = -1;
+        private int depth;
+        private boolean quoted;
+        /**
+         * 正在写出的取值在VALUES中的序号
+         */
+        private int value;
+        /**
+         * 预编译语句中几何参数的序号与所属的空间列
+         */
+        final Map<Integer, String> parameter_geometry_map = new HashMap<>();
+
+        UpsertStatement(StringBuffer sql, String tableName, String nameEscape) {
+            this.sql = sql;
+            this.tableName = tableName;
+            int open = sql.indexOf("(");
+            int close = open >= 0 ? sql.indexOf(")", open) : -1;
+            int values = close >= 0 ? sql.toString().toUpperCase().indexOf("VALUES", close) : -1;
+            int start = values >= 0 ? sql.indexOf("(", values) : -1;
+            if (start < 0)
+                return;
+            for (String column : sql.substring(open + 1, close).split(",")) {
+                if (!"".equals(nameEscape))
+                    column = column.replace(nameEscape, "");
+                columns.add(column.trim().toUpperCase());
+            }
+            scanned = start + 1;
+        }
+
+        /**
+         * 正在写出的取值所属的列：VALUES中顶层的逗号个数即已写出的取值个数，跳过字符串及函数调用中的逗号
+         * @return 大写的列名，无法确定时返回null
+         */
+        String currentColumn() {
+            if (scanned < 0)
+                return null;
+            for (; scanned < sql.length(); scanned++) {
+                char c = sql.charAt(scanned);
+                if (quoted) {
+                    if (c == '\'')
+                        quoted = false;
+                } else if (c == '\'') {
+                    quoted = true;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    value++;
+                }
+            }
+            return value < columns.size() ? columns.get(value) : null;
+        }
+    }
 
     protected PhoenixDialect(JDBCDataStore dataStore) {
         super(dataStore);
         isImmutableRows = true;/*默认设置为只能一次插入多次读取*/
+        geometryEncoding = GeometryEncoding.WKB;
+        twkbPrecision = GeometryEncoding.DEFAULT_TWKB_PRECISION;
+        geoHashMaxRanges = GeoHashCover.DEFAULT_MAX_RANGES;
+        geoHashMaxPrecision = GeoHashCover.DEFAULT_MAX_PRECISION;
         pk_column_names = new ArrayList<>();
         geo_column_map = new HashMap<>();
+        table_option_map = new HashMap<>();
+        table_encoding_map = new ConcurrentHashMap<>();
+        table_precision_map = new ConcurrentHashMap<>();
+        table_geohash_map = new ConcurrentHashMap<>();
     }
 
     public void setImmutableRows(boolean immutableRows) {
@@ -137,6 +359,56 @@ public class PhoenixDialect extends SQLDialect {
         return isImmutableRows;
     }
 
+    /**
+     * 设置新建表中空间列默认的存储编码，WKT仅用于读取早期的表，不能作为新表的编码
+     * @param geometryEncoding
+     */
+    public void setGeometryEncoding(GeometryEncoding geometryEncoding) {
+        if (geometryEncoding == null || !geometryEncoding.isBinary())
+            throw new IllegalArgumentException("Geometry encoding of new tables must be WKB or TWKB");
+        this.geometryEncoding = geometryEncoding;
+    }
+
+    public GeometryEncoding getGeometryEncoding() {
+        return geometryEncoding;
+    }
+
+    public void setTwkbPrecision(int twkbPrecision) {
+        this.twkbPrecision = twkbPrecision;
+    }
+
+    public int getTwkbPrecision() {
+        return twkbPrecision;
+    }
+
+    /**
+     * 设置空间过滤条件下推为_GEOHASH键范围时的区间个数上限，区间越多粗过滤越精确，但语句越长
+     * @param geoHashMaxRanges
+     */
+    public void setGeoHashMaxRanges(int geoHashMaxRanges) {
+        if (geoHashMaxRanges < 1)
+            throw new IllegalArgumentException("GeoHash max ranges must be positive: " + geoHashMaxRanges);
+        this.geoHashMaxRanges = geoHashMaxRanges;
+    }
+
+    public int getGeoHashMaxRanges() {
+        return geoHashMaxRanges;
+    }
+
+    /**
+     * 设置几何字面量的GeoHash覆盖细分到的字符长度，越长覆盖越贴合几何对象，但生成覆盖的计算量越大
+     * @param geoHashMaxPrecision
+     */
+    public void setGeoHashMaxPrecision(int geoHashMaxPrecision) {
+        if (geoHashMaxPrecision < 1 || geoHashMaxPrecision > GeoHashConverter.MAX_HASH_LENGTH)
+            throw new IllegalArgumentException("GeoHash precision must be in [1, " + GeoHashConverter.MAX_HASH_LENGTH + "]: " + geoHashMaxPrecision);
+        this.geoHashMaxPrecision = geoHashMaxPrecision;
+    }
+
+    public int getGeoHashMaxPrecision() {
+        return geoHashMaxPrecision;
+    }
+
     /**
      * 设置索引后缀名
      * @param indexSuffix
@@ -191,6 +463,34 @@ public class PhoenixDialect extends SQLDialect {
         }
     }
 
+    /**
+     * 生成建表语句之前调用，收集要素类型用户数据中的表选项
+     * @param schemaName
+     * @param featureType
+     * @param cx
+     * @throws SQLException
+     */
+    @Override
+    public void preCreateTable(String schemaName, SimpleFeatureType featureType, Connection cx) throws SQLException {
+        super.preCreateTable(schemaName, featureType, cx);
+        table_option_map.clear();
+        Object saltBuckets = featureType.getUserData().get(SALT_BUCKETS);
+        if (saltBuckets != null)
+            table_option_map.put(SALT_BUCKETS, saltBuckets);
+    }
+
+    /**
+     * 建表语句中每一列之后调用，收集属性用户数据中的表选项
+     * @param att
+     * @param sql
+     */
+    @Override
+    public void encodePostColumnCreateTable(AttributeDescriptor att, StringBuffer sql) {
+        Object saltBuckets = att.getUserData().get(SALT_BUCKETS);
+        if (saltBuckets != null)
+            table_option_map.put(SALT_BUCKETS, saltBuckets);
+    }
+
     /**
      * 建表之后的表选项参数设置
      * @param tableName
@@ -204,8 +504,22 @@ public class PhoenixDialect extends SQLDialect {
         sql.append("PRIMARY KEY ( ");
         sql.append(String.join(", ", pk_column_names));
         sql.append(" ))");/*添加上右括号*/
+        Object saltBuckets = table_option_map.get(SALT_BUCKETS);
+        pk_column_names.clear();
+        geo_column_map.clear();
+        table_option_map.clear();
+        List<String> options = new ArrayList<>();
         if (isImmutableRows) {
-            sql.append(" IMMUTABLE_ROWS = true");
+            options.add("IMMUTABLE_ROWS = true");
+        }
+        if (saltBuckets != null) {
+            int buckets = Integer.parseInt(saltBuckets.toString());
+            if (buckets < 1 || buckets > MAX_SALT_BUCKETS)
+                throw new IllegalArgumentException("Salt buckets must be between 1 and " + MAX_SALT_BUCKETS + ": " + buckets);
+            options.add("SALT_BUCKETS = " + buckets);
+        }
+        if (!options.isEmpty()) {
+            sql.append(" ").append(String.join(", ", options));
         }
     }
 
@@ -257,11 +571,18 @@ public class PhoenixDialect extends SQLDialect {
      */
     @Override
     public void encodeGeometryEnvelope(String tableName, String geometryColumn, StringBuffer sql) {
-        encodeColumnName(null, geometryColumn, sql);
+        /*Phoenix的UDF只能是标量函数，因此由逐行的边界坐标函数配合内置的MIN和MAX聚合计算范围，聚合在各Region上并行执行后在客户端合并*/
+        for (int i = 0; i < EXTENT_AGGREGATES.length; i++) {
+            if (i > 0)
+                sql.append(", ");
+            sql.append(EXTENT_AGGREGATES[i][0]).append("(").append(EXTENT_AGGREGATES[i][1]).append("(");
+            encodeColumnName(null, geometryColumn, sql);
+            sql.append(")) AS ").append(geometryColumn).append(EXTENT_AGGREGATES[i][2]);
+        }
     }
 
     /**
-     * 在此将所有类型名称为空间类型替换为字符串类型
+     * 在此将所有类型名称为空间类型替换为二进制类型，具体采用WKB或TWKB编码由表的元数据决定
      * @param sqlTypeName
      * @param sql
      */
@@ -271,8 +592,8 @@ public class PhoenixDialect extends SQLDialect {
             sql.setLength(sql.length() - 1);/*去掉最后一个空格*/
             String geoColumnName = sql.toString().substring(sql.lastIndexOf(" ") + 1);/*空间列名*/
             geo_column_map.put(geoColumnName, sqlTypeName);/*将空间列的列名与其类型的对应关系加入到映射中*/
-            pk_column_names.add(geoColumnName);/*将空间列也纳入到主键属性中*/
-            sql.append(" VARCHAR(255)");
+            /*二进制的空间列不纳入主键：Phoenix只允许VARBINARY作为主键的最后一列，且行键过长会放大每个单元格的存储*/
+            sql.append(" VARBINARY");
         } else {
             super.encodeColumnType(sqlTypeName, sql);
         }
@@ -290,6 +611,8 @@ public class PhoenixDialect extends SQLDialect {
      * This method must not read any other objects from the result set other then
      * the one referenced by <tt>column</tt>.
      * </p>
+     * 此处例外：每个空间列的范围由{@link #encodeGeometryEnvelope(String, String, StringBuffer)}生成的连续四列聚合值组成，
+     * GeoTools按空间列的序号i依次以i + 1调用本方法，因此第i个空间列的范围从第4i + 1列起读出
      *
      * @param rs     A result set
      * @param column Index into the result set which points at the spatial extent
@@ -298,15 +621,20 @@ public class PhoenixDialect extends SQLDialect {
      */
     @Override
     public Envelope decodeGeometryEnvelope(ResultSet rs, int column, Connection cx) throws SQLException, IOException {
-        String geoStr = rs.getString(column);
-        try {
-            Polygon polygon = (Polygon) new WKTReader().read(geoStr);
-
-            return polygon.getEnvelopeInternal();
-        } catch (ParseException e) {
-            String msg = "Error decoding wkb for envelope";
-            throw (IOException) new IOException(msg).initCause(e);
+        int first = (column - 1) * EXTENT_AGGREGATES.length + 1;
+        ResultSetMetaData metadata = rs.getMetaData();
+        if (first + EXTENT_AGGREGATES.length - 1 <= metadata.getColumnCount()
+                && metadata.getColumnLabel(first).toUpperCase().endsWith(EXTENT_AGGREGATES[0][2])) {
+            double[] ordinates = new double[EXTENT_AGGREGATES.length];
+            for (int i = 0; i < ordinates.length; i++) {
+                ordinates[i] = rs.getDouble(first + i);
+                if (rs.wasNull())
+                    return new Envelope();
+            }
+            return new Envelope(ordinates[0], ordinates[2], ordinates[1], ordinates[3]);
         }
+        Geometry geometry = decodeGeometry(rs.getObject(column), new GeometryFactory());
+        return geometry != null ? geometry.getEnvelopeInternal() : new Envelope();
     }
 
     /**
@@ -322,18 +650,298 @@ public class PhoenixDialect extends SQLDialect {
      */
     @Override
     public Geometry decodeGeometryValue(GeometryDescriptor descriptor, ResultSet rs, String column, GeometryFactory factory, Connection cx) throws IOException, SQLException {
-        String geoWktStr = rs.getString(column);
-        if (geoWktStr == null) {
+        return decodeGeometry(rs.getObject(column), factory);
+    }
+
+    /**
+     * 解码空间列的取值，VARBINARY列为WKB或TWKB，早期的VARCHAR列为WKT
+     * @param value 结果集中的取值
+     * @param factory
+     * @return
+     * @throws IOException
+     */
+    Geometry decodeGeometry(Object value, GeometryFactory factory) throws IOException {
+        if (value == null) {
             return null;
         }
         try {
-            return new WKTReader(factory).read(geoWktStr);
+            if (value instanceof byte[])
+                return GeometryCodec.decode((byte[]) value, factory);
+            return new WKTReader(factory).read(value.toString());
         } catch (ParseException e) {
-            String msg = "Error decoding wkt";
+            String msg = "Error decoding geometry";
             throw (IOException) new IOException(msg).initCause(e);
         }
     }
 
+    /**
+     * 将几何对象编码为UPSERT语句中的值，编码方式由语句的目标表决定
+     * 由于Phoenix没有二进制字面量，二进制编码以DECODE('十六进制串', 'HEX')的形式写入
+     * @param value
+     * @param dimension
+     * @param sql
+     */
+    public void encodeGeometryValue(Geometry value, int dimension, StringBuffer sql) {
+        String geometryColumn = nextUpsertGeometry(sql);
+        UpsertStatement statement = upsertStatement.get();
+        String tableName = statement != null ? statement.tableName : null;
+        recordRowGeometry(tableName, geometryColumn, value);
+        if (value == null || value.isEmpty()) {
+            sql.append("NULL");
+            return;
+        }
+        GeometryEncoding encoding = getGeometryEncoding(tableName);
+        if (encoding.isBinary()) {
+            byte[] bytes = GeometryCodec.encode(value, encoding, dimension, getTwkbPrecision(tableName));
+            sql.append("DECODE('").append(WKBWriter.toHex(bytes)).append("', 'HEX')");
+        } else {
+            sql.append("'").append(new WKTWriter().write(value)).append("'");
+        }
+    }
+
+    /**
+     * 将几何对象绑定为预编译语句的参数
+     * UPSERT语句中按目标表的编码绑定；过滤条件中的几何字面量（tableName为null）绑定为WKB，空间函数根据首字节识别编码
+     * @param value
+     * @param dimension
+     * @param tableName UPSERT语句的目标表，过滤条件中为null
+     * @param ps
+     * @param column
+     * @throws SQLException
+     */
+    public void setGeometryValue(Geometry value, int dimension, String tableName, PreparedStatement ps, int column) throws SQLException {
+        GeometryEncoding encoding = tableName != null ? getGeometryEncoding(tableName) : GeometryEncoding.WKB;
+        if (value == null || value.isEmpty()) {
+            ps.setNull(column, encoding.isBinary() ? Types.VARBINARY : Types.VARCHAR);
+            return;
+        }
+        if (encoding.isBinary())
+            ps.setBytes(column, GeometryCodec.encode(value, encoding, dimension, getTwkbPrecision(tableName)));
+        else
+            ps.setString(column, new WKTWriter().write(value));
+    }
+
+    /**
+     * 从正在生成的UPSERT语句中解析出目标表名
+     * @param sql
+     * @return 大写的表名，不是UPSERT语句时返回null
+     */
+    String getUpsertTableName(StringBuffer sql) {
+        String upper = sql.toString().toUpperCase();
+        int start = upper.indexOf("UPSERT INTO ");
+        if (start < 0)
+            return null;
+        start += "UPSERT INTO ".length();
+        int end = start;
+        while (end < upper.length() && upper.charAt(end) != ' ' && upper.charAt(end) != '(')
+            end++;
+        String tableName = upper.substring(start, end);
+        if (!"".equals(getNameEscape()))
+            tableName = tableName.replace(getNameEscape(), "");
+        return tableName.substring(tableName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * 生成UPSERT语句时，确定接下来写出的几何取值所属的列；开始生成新的语句时清除上一行遗留的几何取值
+     * @param sql 正在生成的语句
+     * @return 几何取值所属的大写列名，不是UPSERT语句时返回null
+     */
+    String nextUpsertGeometry(StringBuffer sql) {
+        UpsertStatement statement = upsertStatement.get();
+        if (statement == null || statement.sql != sql) {
+            String tableName = getUpsertTableName(sql);
+            statement = tableName != null ? new UpsertStatement(sql, tableName, getNameEscape()) : null;
+            upsertStatement.set(statement);
+            if (statement != null)
+                row_geometry_map.get().clear();
+        }
+        return statement != null ? statement.currentColumn() : null;
+    }
+
+    /**
+     * 预编译语句中写出几何参数之后调用，登记参数所属的空间列；不是UPSERT语句（如过滤条件中的几何字面量）时清除登记
+     * @param sql 正在生成的语句
+     */
+    void prepareUpsertGeometry(StringBuffer sql) {
+        String geometryColumn = nextUpsertGeometry(sql);
+        UpsertStatement statement = upsertStatement.get();
+        if (statement == null || geometryColumn == null)
+            return;
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?')
+                parameter++;
+        }
+        statement.parameter_geometry_map.put(parameter, geometryColumn);
+    }
+
+    /**
+     * 绑定预编译语句的几何参数：UPSERT语句中的参数按目标表的编码绑定，并记录为当前行的取值；其余绑定为WKB
+     * @param value
+     * @param dimension
+     * @param ps
+     * @param column 参数序号
+     * @throws SQLException
+     */
+    void setUpsertGeometryValue(Geometry value, int dimension, PreparedStatement ps, int column) throws SQLException {
+        UpsertStatement statement = upsertStatement.get();
+        String geometryColumn = statement != null ? statement.parameter_geometry_map.get(column) : null;
+        if (geometryColumn == null) {
+            setGeometryValue(value, dimension, null, ps, column);
+            return;
+        }
+        setGeometryValue(value, dimension, statement.tableName, ps, column);
+        recordRowGeometry(statement.tableName, geometryColumn, value);
+    }
+
+    /**
+     * 记录当前线程正在写入的行中空间列的取值，只记录带有_GEOHASH列的空间列
+     * @param tableName 表名
+     * @param geometryColumn 空间列名
+     * @param value 取值，可以为null
+     */
+    private void recordRowGeometry(String tableName, String geometryColumn, Geometry value) {
+        if (getGeoHashColumn(tableName, geometryColumn) != null)
+            row_geometry_map.get().put(tableName.toUpperCase() + "." + geometryColumn.toUpperCase(), value);
+    }
+
+    /**
+     * 点空间列的_GEOHASH主键列使用以"表名.空间列名"命名的伪序列，插入要素时GeoTools从序列中取得主键取值，
+     * 并据此生成要素ID，因此写入的行键与返回的要素ID一致
+     * @param schemaName
+     * @param tableName
+     * @param columnName
+     * @param cx
+     * @return 不是_GEOHASH列或表中没有对应的空间列时返回null
+     * @throws SQLException
+     */
+    @Override
+    public String getSequenceForColumn(String schemaName, String tableName, String columnName, Connection cx) throws SQLException {
+        String suffix = TYPE_TO_SUFFIX_MAP.get(Point.class);
+        if (columnName == null || !columnName.toUpperCase().endsWith(suffix))
+            return super.getSequenceForColumn(schemaName, tableName, columnName, cx);
+        String geometryColumn = columnName.substring(0, columnName.length() - suffix.length());
+        DatabaseMetaData md = cx.getMetaData();
+        ResultSet rs = md.getColumns(null, dataStore.escapeNamePattern(md, schemaName),
+                dataStore.escapeNamePattern(md, tableName), dataStore.escapeNamePattern(md, geometryColumn));
+        try {
+            if (!rs.next())
+                return null;
+        } finally {
+            dataStore.closeSafe(rs);
+        }
+        return tableName.toUpperCase() + "." + geometryColumn.toUpperCase();
+    }
+
+    /**
+     * 取得_GEOHASH伪序列的下一个值，即当前线程正在写入的行中对应空间列的GeoHash；
+     * 空间列为空（GeoTools写出null，不经过方言，因此没有记录）的行取0，
+     * 空间查询的内部键范围附带空间列非空的条件，这类行不会仅凭键被选中
+     * @param schemaName
+     * @param sequenceName 形如"表名.空间列名"
+     * @param cx
+     * @return
+     * @throws SQLException
+     */
+    @Override
+    public Object getNextSequenceValue(String schemaName, String sequenceName, Connection cx) throws SQLException {
+        Long geoHash = encodeGeoHash(row_geometry_map.get().remove(sequenceName.toUpperCase()));
+        return geoHash != null ? geoHash : 0L;
+    }
+
+    /**
+     * 计算几何对象的GeoHash，点取其坐标，其余几何对象取外包矩形的中心
+     * @param geometry
+     * @return 几何对象为空时返回null
+     */
+    public static Long encodeGeoHash(Geometry geometry) {
+        if (geometry == null || geometry.isEmpty())
+            return null;
+        if (geometry instanceof Point)
+            return GeoHashConverter.longAndLatiToGeohash(((Point) geometry).getX(), ((Point) geometry).getY());
+        Envelope envelope = geometry.getEnvelopeInternal();
+        return GeoHashConverter.longAndLatiToGeohash((envelope.getMinX() + envelope.getMaxX()) / 2, (envelope.getMinY() + envelope.getMaxY()) / 2);
+    }
+
+    /**
+     * 获取表中空间列的存储编码，未登记的表使用新建表的默认编码
+     * @param tableName 表名
+     * @return
+     */
+    public GeometryEncoding getGeometryEncoding(String tableName) {
+        GeometryEncoding encoding = tableName != null ? table_encoding_map.get(tableName.toUpperCase()) : null;
+        return encoding != null ? encoding : geometryEncoding;
+    }
+
+    /**
+     * 获取表使用TWKB编码时的坐标精度，未登记的表使用默认精度
+     * @param tableName 表名
+     * @return
+     */
+    public int getTwkbPrecision(String tableName) {
+        Integer precision = tableName != null ? table_precision_map.get(tableName.toUpperCase()) : null;
+        return precision != null ? precision : twkbPrecision;
+    }
+
+    /**
+     * 登记表中空间列的存储编码
+     * @param tableName 表名
+     * @param encoding 存储编码
+     * @param precision TWKB坐标精度，可以为null
+     */
+    void registerGeometryEncoding(String tableName, GeometryEncoding encoding, Integer precision) {
+        table_encoding_map.put(tableName.toUpperCase(), encoding);
+        if (precision != null)
+            table_precision_map.put(tableName.toUpperCase(), precision);
+        else
+            table_precision_map.remove(tableName.toUpperCase());
+    }
+
+    /**
+     * 登记表中带有_GEOHASH列的点空间列
+     * @param featureType
+     * @param metadata 为null时不检查列是否存在（新建的表），否则只登记表中确实存在_GEOHASH列的空间列（早期的表可能没有）
+     * @param schemaName
+     * @throws SQLException
+     */
+    void registerGeoHashColumns(SimpleFeatureType featureType, DatabaseMetaData metadata, String schemaName) throws SQLException {
+        Map<String, String> columns = new HashMap<>();
+        for (AttributeDescriptor attributeDescriptor : featureType.getAttributeDescriptors()) {
+            String suffix = TYPE_TO_SUFFIX_MAP.get(attributeDescriptor.getType().getBinding());
+            if (!(attributeDescriptor instanceof GeometryDescriptor) || suffix == null)
+                continue;
+            String column = attributeDescriptor.getLocalName().toUpperCase() + suffix;
+            if (metadata != null) {
+                ResultSet rs = metadata.getColumns(null, dataStore.escapeNamePattern(metadata, schemaName),
+                        dataStore.escapeNamePattern(metadata, featureType.getTypeName()), dataStore.escapeNamePattern(metadata, column));
+                try {
+                    if (!rs.next())
+                        continue;
+                } finally {
+                    dataStore.closeSafe(rs);
+                }
+            }
+            columns.put(attributeDescriptor.getLocalName().toUpperCase(), column);
+        }
+        if (columns.isEmpty())
+            table_geohash_map.remove(featureType.getTypeName().toUpperCase());
+        else
+            table_geohash_map.put(featureType.getTypeName().toUpperCase(), columns);
+    }
+
+    /**
+     * 获取表中点空间列对应的_GEOHASH列
+     * @param tableName 表名
+     * @param geometryColumn 空间列名
+     * @return _GEOHASH列名，表中没有该列时返回null
+     */
+    public String getGeoHashColumn(String tableName, String geometryColumn) {
+        if (tableName == null || geometryColumn == null)
+            return null;
+        Map<String, String> columns = table_geohash_map.get(tableName.toUpperCase());
+        return columns != null ? columns.get(geometryColumn.toUpperCase()) : null;
+    }
+
     @Override
     public void initializeConnection(Connection cx) throws SQLException {
         super.initializeConnection(cx);
@@ -365,8 +973,13 @@ public class PhoenixDialect extends SQLDialect {
     @Override
     public Class<?> getMapping(ResultSet columnMetaData, Connection cx) throws SQLException {
         String typeName = columnMetaData.getString("TYPE_NAME");
-        if (typeName != null && "VARBINARY".equalsIgnoreCase(typeName)) {
-            String gType = lookupGeometryType(columnMetaData, cx, "geometry_columns", "f_geometry_column");
+        if (typeName != null && ("VARBINARY".equalsIgnoreCase(typeName) || "VARCHAR".equalsIgnoreCase(typeName))) {/*早期的表以VARCHAR存储WKT*/
+            String gType = null;
+            try {
+                gType = lookupGeometryType(columnMetaData, cx, "geometry_columns", "f_geometry_column");
+            } catch (SQLException e) {
+                /*geometry_columns不存在时按普通列处理*/
+            }
             if (gType != null && TYPE_TO_CLASS_MAP.containsKey(gType))
                 return TYPE_TO_CLASS_MAP.get(gType);
         }
@@ -458,7 +1071,11 @@ public class PhoenixDialect extends SQLDialect {
                     encodeColumnName(null, "srid", sql);/*添加空间参考ID列*/
                     sql.append(" INTEGER, ");
                     encodeColumnName(null, "type", sql);/*添加该列对应的类型列*/
-                    sql.append(" VARCHAR(32)");
+                    sql.append(" VARCHAR(32), ");
+                    encodeColumnName(null, "encoding", sql);/*添加存储编码列*/
+                    sql.append(" VARCHAR(16), ");
+                    encodeColumnName(null, "coord_precision", sql);/*添加TWKB坐标精度列*/
+                    sql.append(" INTEGER");
                     sql.append(")");
                     if (LOGGER.isLoggable(Level.FINE)) {
                         LOGGER.fine(sql.toString());
@@ -467,11 +1084,38 @@ public class PhoenixDialect extends SQLDialect {
                 } finally {
                     dataStore.closeSafe(st);
                 }
+            } else {
+                Statement st = cx.createStatement();
+                try {
+                    /*早期创建的元数据表中没有存储编码相关的列，在此补齐*/
+                    StringBuffer sql = new StringBuffer("ALTER TABLE ");
+                    encodeTableName("geometry_columns", sql);
+                    sql.append(" ADD IF NOT EXISTS ");
+                    encodeColumnName(null, "encoding", sql);
+                    sql.append(" VARCHAR(16), ");
+                    encodeColumnName(null, "coord_precision", sql);
+                    sql.append(" INTEGER");
+                    LOGGER.fine(sql.toString());
+                    st.execute(sql.toString());
+                } finally {
+                    dataStore.closeSafe(st);
+                }
             }
         } finally {
             dataStore.closeSafe(rs);
         }
 
+        GeometryEncoding encoding = GeometryEncoding.lookUp((String) featureType.getUserData().get(GEOMETRY_ENCODING));
+        if (encoding == null || !encoding.isBinary())
+            encoding = geometryEncoding;
+        Integer precision = null;
+        if (encoding == GeometryEncoding.TWKB) {
+            Object value = featureType.getUserData().get(TWKB_PRECISION);
+            precision = value != null ? Integer.valueOf(value.toString()) : twkbPrecision;
+        }
+        registerGeometryEncoding(featureType.getTypeName(), encoding, precision);
+        registerGeoHashColumns(featureType, null, schemaName);
+
         for (AttributeDescriptor attributeDescriptor : featureType.getAttributeDescriptors()) {
             if (!(attributeDescriptor instanceof GeometryDescriptor))
                 continue;
@@ -494,14 +1138,34 @@ public class PhoenixDialect extends SQLDialect {
 
             StringBuffer sql = new StringBuffer("UPSERT INTO ");
             encodeTableName("geometry_columns", sql);
-            sql.append(" VALUES (").append("'").append(UUID.randomUUID().toString().replace("-", "")).append("', ");
+            sql.append(" (");
+            encodeColumnName(null, "id", sql);
+            sql.append(", ");
+            encodeColumnName(null, "f_table_schema", sql);
+            sql.append(", ");
+            encodeColumnName(null, "f_table_name", sql);
+            sql.append(", ");
+            encodeColumnName(null, "f_geometry_column", sql);
+            sql.append(", ");
+            encodeColumnName(null, "coord_dimension", sql);
+            sql.append(", ");
+            encodeColumnName(null, "srid", sql);
+            sql.append(", ");
+            encodeColumnName(null, "type", sql);
+            sql.append(", ");
+            encodeColumnName(null, "encoding", sql);
+            sql.append(", ");
+            encodeColumnName(null, "coord_precision", sql);
+            sql.append(") VALUES (").append("'").append(UUID.randomUUID().toString().replace("-", "")).append("', ");
             sql.append(schemaName != null ? "'" + schemaName.toUpperCase() + "'" : "NULL").append(", ");
             sql.append("'").append(featureType.getTypeName().toUpperCase()).append("', ");
             sql.append("'").append(attributeDescriptor.getLocalName().toUpperCase()).append("', ");
             sql.append("2, ");
             sql.append(srid).append(", ");
             Geometries g = Geometries.getForBinding((Class<? extends Geometry>) gd.getType().getBinding());
-            sql.append("'").append(g != null ? g.getName().toUpperCase() : "GEOMETRY").append("')");
+            sql.append("'").append(g != null ? g.getName().toUpperCase() : "GEOMETRY").append("', ");
+            sql.append("'").append(encoding.name()).append("', ");
+            sql.append(precision != null ? precision.toString() : "NULL").append(")");
             LOGGER.fine(sql.toString());
             Statement st = cx.createStatement();
             try {
@@ -512,6 +1176,63 @@ public class PhoenixDialect extends SQLDialect {
         }
     }
 
+    /**
+     * 读取要素类型时从元数据表中加载空间列的存储编码，元数据表中没有编码信息的早期表按WKT处理
+     * @param featureType
+     * @param metadata
+     * @param schemaName
+     * @param cx
+     * @throws SQLException
+     */
+    @Override
+    public void postCreateFeatureType(SimpleFeatureType featureType, DatabaseMetaData metadata, String schemaName, Connection cx) throws SQLException {
+        super.postCreateFeatureType(featureType, metadata, schemaName, cx);
+        if (featureType.getGeometryDescriptor() == null)
+            return;
+        GeometryEncoding encoding = GeometryEncoding.WKT;
+        Integer precision = null;
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT ");
+        encodeColumnName(null, "encoding", sql);
+        sql.append(", ");
+        encodeColumnName(null, "coord_precision", sql);
+        sql.append(" FROM ");
+        encodeTableName("geometry_columns", sql);
+        sql.append(" WHERE ");
+        encodeColumnName(null, "f_table_name", sql);
+        sql.append(" = '").append(featureType.getTypeName().toUpperCase()).append("' AND ");
+        encodeColumnName(null, "f_geometry_column", sql);
+        sql.append(" = '").append(featureType.getGeometryDescriptor().getLocalName().toUpperCase()).append("'");
+        LOGGER.fine(sql.toString());
+
+        Statement st = cx.createStatement();
+        try {
+            ResultSet rs = st.executeQuery(sql.toString());
+            try {
+                if (rs.next()) {
+                    GeometryEncoding stored = GeometryEncoding.lookUp(rs.getString(1));
+                    encoding = stored != null ? stored : GeometryEncoding.WKT;
+                    int value = rs.getInt(2);
+                    precision = rs.wasNull() ? null : value;
+                }
+            } finally {
+                dataStore.closeSafe(rs);
+            }
+        } catch (SQLException e) {
+            /*元数据表中没有编码列时为早期的WKT表*/
+        } finally {
+            dataStore.closeSafe(st);
+        }
+        registerGeometryEncoding(featureType.getTypeName(), encoding, precision);
+        featureType.getUserData().put(GEOMETRY_ENCODING, encoding.name());
+        if (precision != null)
+            featureType.getUserData().put(TWKB_PRECISION, precision);
+        registerGeoHashColumns(featureType, metadata, schemaName);
+        String geoHashColumn = getGeoHashColumn(featureType.getTypeName(), featureType.getGeometryDescriptor().getLocalName());
+        if (geoHashColumn != null)
+            featureType.getUserData().put(GEOHASH_COLUMN, geoHashColumn);
+    }
+
     /**
      * 在新增加的列上创建合适的索引
      * @param schemaName
@@ -723,7 +1444,7 @@ public class PhoenixDialect extends SQLDialect {
     }
 
     /**
-     * 拼接分页SQL
+     * 拼接分页SQL，Phoenix通过扫描并丢弃行实现OFFSET，大页码的分页应使用{@link KeysetPager}按主键分页，只需LIMIT
      * @param sql
      * @param limit
      * @param offset
@@ -734,12 +1455,213 @@ public class PhoenixDialect extends SQLDialect {
             if (offset > 0)
                 sql.append(" LIMIT " + limit + " OFFSET " + offset);
             else
-                sql.append(" LIMIT " + limit + " OFFSET 0");
+                sql.append(" LIMIT " + limit);
         } else if (offset > 0) {
             sql.append(" LIMIT " + Long.MAX_VALUE + " OFFSET " + offset);
         }
     }
 
+    /**
+     * 声明支持的查询提示，使其随Query传递到生成SQL的阶段
+     * @param hints
+     */
+    @Override
+    public void addSupportedHints(Set<Hints.Key> hints) {
+        hints.add(HINT_SKIP_SCAN);
+        hints.add(HINT_NO_CACHE);
+        hints.add(HINT_SMALL);
+        hints.add(HINT_INDEX);
+        hints.add(HINT_GEOHASH_INDEX);
+        hints.add(HINT_QUERY);
+    }
+
+    /**
+     * 拆分为在Phoenix中执行的条件与在客户端判断的条件
+     * 地理坐标系中以长度单位给出的距离条件无法精确换算为度数，编码为能覆盖精确结果的近似条件，
+     * 因此顶层AND中含有这类条件的子条件都留在客户端判断，其中的距离条件本身同时下推，用于缩小扫描范围
+     * @param filter
+     * @param schema
+     * @return
+     */
+    @Override
+    public Filter[] splitFilter(Filter filter, SimpleFeatureType schema) {
+        List<Filter> children = filter instanceof And ? ((And) filter).getChildren() : Collections.singletonList(filter);
+        List<Filter> exact = new ArrayList<>();
+        List<Filter> pre = new ArrayList<>();
+        List<Filter> post = new ArrayList<>();
+        for (Filter child : children) {
+            if (!PhoenixFilterToSQLHelper.hasApproximateDistance(child, schema)) {
+                exact.add(child);
+                continue;
+            }
+            post.add(child);
+            if (child instanceof DistanceBufferOperator)
+                pre.add(child);
+        }
+        if (post.isEmpty())
+            return super.splitFilter(filter, schema);
+        if (!exact.isEmpty()) {
+            Filter[] split = super.splitFilter(exact.size() == 1 ? exact.get(0) : FF.and(exact), schema);
+            pre.add(split[0]);
+            post.add(split[1]);
+        }
+        return new Filter[]{and(pre), and(post)};
+    }
+
+    /**
+     * 合并为AND条件，忽略其中的INCLUDE
+     * @param filters
+     * @return
+     */
+    private static Filter and(List<Filter> filters) {
+        List<Filter> children = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (filter != Filter.INCLUDE)
+                children.add(filter);
+        }
+        if (children.isEmpty())
+            return Filter.INCLUDE;
+        return children.size() == 1 ? children.get(0) : FF.and(children);
+    }
+
+    /**
+     * 在SELECT之后写出Query中的Phoenix查询提示
+     * @param sql
+     * @param featureType
+     * @param query
+     */
+    @Override
+    public void handleSelectHints(StringBuffer sql, SimpleFeatureType featureType, Query query) {
+        String hints = getSelectHints(featureType, query);
+        if (!hints.isEmpty())
+            sql.append("/*+ ").append(hints).append(" */ ");
+    }
+
+    /**
+     * 根据Query中的提示及查询条件生成Phoenix查询提示
+     * @param featureType
+     * @param query
+     * @return 以空格分隔的提示，没有提示时返回空串
+     */
+    String getSelectHints(SimpleFeatureType featureType, Query query) {
+        Hints hints = query != null ? query.getHints() : null;
+        Filter filter = query != null && query.getFilter() != null ? query.getFilter() : Filter.INCLUDE;
+        boolean unlimited = query == null || query.isMaxFeaturesUnlimited();
+        List<String> result = new ArrayList<>();
+        if (isHintEnabled(hints, HINT_SKIP_SCAN, false))
+            result.add("SKIP_SCAN");
+        if (isHintEnabled(hints, HINT_NO_CACHE, unlimited && !hasSpatialFilter(filter)))
+            result.add("NO_CACHE");
+        if (isHintEnabled(hints, HINT_SMALL, filter instanceof Id))
+            result.add("SMALL");
+        StringBuilder indexes = new StringBuilder();
+        Object index = hints != null ? hints.get(HINT_INDEX) : null;
+        if (index != null && !"".equals(index.toString().trim()))
+            indexes.append(' ').append(index.toString().trim());
+        GeometryDescriptor gd = featureType.getGeometryDescriptor();
+        if (isHintEnabled(hints, HINT_GEOHASH_INDEX, isGeoHashOrdered(featureType, query) || hasGeoHashCover(featureType, filter)) && gd != null && Point.class.equals(gd.getType().getBinding()))
+            indexes.append(' ').append(gd.getLocalName()).append(TYPE_TO_SUFFIX_MAP.get(Point.class)).append(INDEX_SUFFIX);
+        if (indexes.length() > 0) {
+            String schema = dataStore.getDatabaseSchema();
+            result.add("INDEX(" + (schema != null ? schema + "." : "") + featureType.getTypeName() + indexes + ")");
+        }
+        Object raw = hints != null ? hints.get(HINT_QUERY) : null;
+        if (raw != null && !"".equals(raw.toString().trim()))
+            result.add(raw.toString().trim());
+        StringBuilder sb = new StringBuilder();
+        for (String hint : result) {
+            if (sb.length() > 0)
+                sb.append(' ');
+            sb.append(hint);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 判断查询是否首先按默认点空间列的_GEOHASH列排序（见{@link SpatialOrder#zOrder}），
+     * 此时默认使用_GEOHASH列上的索引，Phoenix按索引的键顺序扫描即可得到有序的结果，不需要再排序
+     * @param featureType
+     * @param query
+     * @return
+     */
+    boolean isGeoHashOrdered(SimpleFeatureType featureType, Query query) {
+        GeometryDescriptor gd = featureType.getGeometryDescriptor();
+        SortBy[] sortBy = query != null ? query.getSortBy() : null;
+        if (gd == null || sortBy == null || sortBy.length == 0 || sortBy[0] == null || sortBy[0].getPropertyName() == null)
+            return false;
+        String geoHashColumn = getGeoHashColumn(featureType.getTypeName(), gd.getLocalName());
+        return geoHashColumn != null && geoHashColumn.equalsIgnoreCase(sortBy[0].getPropertyName().getPropertyName());
+    }
+
+    /**
+     * 判断过滤条件（或其顶层AND中的某一项）是否会被编码为默认点空间列_GEOHASH列上的键范围
+     * 主键以FID开头，_GEOHASH不是前导列，Phoenix无法据其键范围确定数据表的扫描起止行键，
+     * 只有在以_GEOHASH开头的索引上，键范围才能缩小扫描范围
+     * @param featureType
+     * @param filter
+     * @return
+     */
+    boolean hasGeoHashCover(SimpleFeatureType featureType, Filter filter) {
+        GeometryDescriptor gd = featureType.getGeometryDescriptor();
+        if (gd == null || getGeoHashColumn(featureType.getTypeName(), gd.getLocalName()) == null)
+            return false;
+        if (filter instanceof And) {
+            for (Filter child : ((And) filter).getChildren()) {
+                if (hasGeoHashCover(featureType, child))
+                    return true;
+            }
+            return false;
+        }
+        /*Disjoint与Beyond的结果位于查询范围之外，不生成键范围*/
+        if (!(filter instanceof BinarySpatialOperator) || filter instanceof Disjoint || filter instanceof Beyond)
+            return false;
+        BinarySpatialOperator operator = (BinarySpatialOperator) filter;
+        Expression literal = operator.getExpression1() instanceof Literal ? operator.getExpression1() : operator.getExpression2();
+        Expression property = literal == operator.getExpression1() ? operator.getExpression2() : operator.getExpression1();
+        if (!(literal instanceof Literal) || !(property instanceof PropertyName))
+            return false;
+        String name = ((PropertyName) property).getPropertyName();
+        if (name != null && !"".equals(name) && !gd.getLocalName().equalsIgnoreCase(name))
+            return false;
+        if (filter instanceof DWithin && PhoenixFilterToSQLHelper.toCrsDistance((DWithin) filter, featureType) == null) {
+            /*无法换算为度数上界的距离不生成键范围*/
+            Geometry geometry = literal.evaluate(null, Geometry.class);
+            return !Double.isNaN(PhoenixFilterToSQLHelper.toDegreeBound((DWithin) filter, featureType, geometry));
+        }
+        return true;
+    }
+
+    /**
+     * 判断Boolean类型的提示是否开启
+     * @param hints
+     * @param key
+     * @param defaultValue 未指定该提示时的取值
+     * @return
+     */
+    private static boolean isHintEnabled(Hints hints, Hints.Key key, boolean defaultValue) {
+        Object value = hints != null ? hints.get(key) : null;
+        return value != null ? Boolean.TRUE.equals(value) : defaultValue;
+    }
+
+    /**
+     * 判断过滤条件中是否含有空间过滤条件
+     * @param filter
+     * @return
+     */
+    static boolean hasSpatialFilter(Filter filter) {
+        if (filter instanceof BinarySpatialOperator)
+            return true;
+        if (filter instanceof Not)
+            return hasSpatialFilter(((Not) filter).getFilter());
+        if (filter instanceof BinaryLogicOperator) {
+            for (Filter child : ((BinaryLogicOperator) filter).getChildren()) {
+                if (hasSpatialFilter(child))
+                    return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 删除索引
      * @param cx
@@ -800,6 +1722,7 @@ public class PhoenixDialect extends SQLDialect {
         }
         sql.setLength(sql.length() - 2);
         sql.append(")");
+        encodeSplitPoints(cx, schema, databaseSchema, index, sql);
 
         Statement st = cx.createStatement();
         try {
@@ -811,4 +1734,82 @@ public class PhoenixDialect extends SQLDialect {
             dataStore.closeSafe(st);
         }
     }
+
+    /**
+     * 以_GEOHASH列开头的索引按预期范围的GeoHash前缀预分裂，使导入初期的写入不集中在一个Region；
+     * 数据表以FID开头，GeoHash的分裂点只对索引表有意义。数据表加盐时索引表随之加盐，Phoenix不允许再指定分裂点
+     * @param cx
+     * @param featureType
+     * @param databaseSchema
+     * @param index
+     * @param sql
+     * @throws SQLException
+     */
+    private void encodeSplitPoints(Connection cx, SimpleFeatureType featureType, String databaseSchema, Index index, StringBuffer sql) throws SQLException {
+        GeometryDescriptor gd = getGeoHashGeometry(featureType, index.getAttributes().get(0));
+        if (gd == null)
+            return;
+        Object extent = getTableOption(featureType, gd, SPLIT_EXTENT);
+        if (extent == null)
+            return;
+        if (!(extent instanceof Envelope))
+            throw new IllegalArgumentException(SPLIT_EXTENT + " must be an Envelope: " + extent);
+        if (isSalted(cx, databaseSchema, index.getTypeName())) {
+            LOGGER.warning("Table " + index.getTypeName() + " is salted, index " + index.getIndexName() + " is not pre-split");
+            return;
+        }
+        Object regions = getTableOption(featureType, gd, SPLIT_REGIONS);
+        long[] points = GeoHashCover.splitPoints((Envelope) extent, regions != null ? Integer.parseInt(regions.toString()) : DEFAULT_SPLIT_REGIONS);
+        if (points.length == 0)
+            return;
+        sql.append(" SPLIT ON (");
+        for (long point : points) {
+            sql.append(point).append(", ");
+        }
+        sql.setLength(sql.length() - 2);
+        sql.append(")");
+    }
+
+    /**
+     * 获取_GEOHASH列所属的点空间列
+     * @param featureType
+     * @param columnName
+     * @return 不是_GEOHASH列时返回null
+     */
+    private GeometryDescriptor getGeoHashGeometry(SimpleFeatureType featureType, String columnName) {
+        for (AttributeDescriptor attributeDescriptor : featureType.getAttributeDescriptors()) {
+            if (!(attributeDescriptor instanceof GeometryDescriptor))
+                continue;
+            String suffix = TYPE_TO_SUFFIX_MAP.get(attributeDescriptor.getType().getBinding());
+            if (suffix != null && (attributeDescriptor.getLocalName() + suffix).equalsIgnoreCase(columnName))
+                return (GeometryDescriptor) attributeDescriptor;
+        }
+        return null;
+    }
+
+    /**
+     * 获取表选项，空间列用户数据中的取值优先于要素类型用户数据中的取值
+     * @param featureType
+     * @param gd
+     * @param key
+     * @return
+     */
+    private Object getTableOption(SimpleFeatureType featureType, GeometryDescriptor gd, String key) {
+        Object value = gd.getUserData().get(key);
+        return value != null ? value : featureType.getUserData().get(key);
+    }
+
+    /**
+     * 从Phoenix的元数据中判断表是否加盐
+     * @param cx
+     * @param schemaName
+     * @param tableName
+     * @return
+     * @throws SQLException
+     */
+    private boolean isSalted(Connection cx, String schemaName, String tableName) throws SQLException {
+        PTable table = PhoenixRuntime.getTable(cx, SchemaUtil.getTableName(SchemaUtil.normalizeIdentifier(schemaName),
+                SchemaUtil.normalizeIdentifier(tableName)));
+        return table.getBucketNum() != null;
+    }
 }
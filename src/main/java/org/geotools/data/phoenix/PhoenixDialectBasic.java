@@ -3,16 +3,16 @@ package org.geotools.data.phoenix;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
-import com.vividsolutions.jts.io.ParseException;
-import com.vividsolutions.jts.io.WKBReader;
-import com.vividsolutions.jts.io.WKTWriter;
+import org.geotools.data.Query;
 import org.geotools.data.jdbc.FilterToSQL;
+import org.geotools.factory.Hints;
 import org.geotools.jdbc.BasicSQLDialect;
 import org.geotools.jdbc.Index;
 import org.geotools.jdbc.JDBCDataStore;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.Filter;
 
 import java.io.IOException;
 import java.sql.Connection;
@@ -20,6 +20,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 文件描述：
@@ -64,6 +65,16 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
         delegate.registerSqlTypeNameToClassMappings(mappings);
     }
 
+    @Override
+    public void preCreateTable(String schemaName, SimpleFeatureType featureType, Connection cx) throws SQLException {
+        delegate.preCreateTable(schemaName, featureType, cx);
+    }
+
+    @Override
+    public void encodePostColumnCreateTable(AttributeDescriptor att, StringBuffer sql) {
+        delegate.encodePostColumnCreateTable(att, sql);
+    }
+
     @Override
     public void encodePostCreateTable(String tableName, StringBuffer sql) {
         delegate.encodePostCreateTable(tableName, sql);
@@ -74,6 +85,11 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
         delegate.encodeTableName(raw, sql);
     }
 
+    @Override
+    public void encodeColumnName(String prefix, String raw, StringBuffer sql) {
+        delegate.encodeColumnName(prefix, raw, sql);
+    }
+
     @Override
     public void postCreateTable(String schemaName, SimpleFeatureType featureType, Connection cx) throws SQLException, IOException {
         delegate.postCreateTable(schemaName, featureType, cx);
@@ -154,6 +170,21 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
         return delegate.getLastAutoGeneratedValue(schemaName, tableName, columnName, cx);
     }
 
+    @Override
+    public void addSupportedHints(Set<Hints.Key> hints) {
+        delegate.addSupportedHints(hints);
+    }
+
+    @Override
+    public Filter[] splitFilter(Filter filter, SimpleFeatureType schema) {
+        return delegate.splitFilter(filter, schema);
+    }
+
+    @Override
+    public void handleSelectHints(StringBuffer sql, SimpleFeatureType featureType, Query query) {
+        delegate.handleSelectHints(sql, featureType, query);
+    }
+
     @Override
     public boolean isLimitOffsetSupported() {
         return delegate.isLimitOffsetSupported();
@@ -166,7 +197,10 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
 
     @Override
     public FilterToSQL createFilterToSQL() {
-        return new PhoenixFilterToSQL();
+        PhoenixFilterToSQL filterToSQL = new PhoenixFilterToSQL();
+        filterToSQL.setMaxGeoHashRanges(delegate.getGeoHashMaxRanges());
+        filterToSQL.setMaxGeoHashPrecision(delegate.getGeoHashMaxPrecision());
+        return filterToSQL;
     }
 
     @Override
@@ -180,7 +214,7 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
     }
 
     /**
-     * 利用WKB将几何对象存储为数据库中的VARBINARY
+     * 将几何对象存储为数据库中的VARBINARY，编码方式由目标表的元数据决定
      * @param value
      * @param dimension
      * @param srid
@@ -189,11 +223,7 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
      */
     @Override
     public void encodeGeometryValue(Geometry value, int dimension, int srid, StringBuffer sql) throws IOException {
-        if (value != null && !value.isEmpty()) {
-            sql.append("'").append(new WKTWriter().write(value)).append("'");
-        } else {
-            sql.append("NULL");
-        }
+        delegate.encodeGeometryValue(value, dimension, sql);
     }
 
     /**
@@ -209,25 +239,7 @@ public class PhoenixDialectBasic extends BasicSQLDialect {
      */
     @Override
     public Geometry decodeGeometryValue(GeometryDescriptor descriptor, ResultSet rs, String column, GeometryFactory factory, Connection cx) throws IOException, SQLException {
-        byte[] bytes = rs.getBytes(column);
-        if (bytes == null)
-            return null;
-        try {
-            return new WKBReader(factory).read(bytes);
-        } catch (ParseException e) {
-            throw (IOException) new IOException("Error decoding wkb").initCause(e);
-        }
-    }
-
-    /**
-     * 编码一般值的时候调用
-     * @param value
-     * @param type
-     * @param sql
-     */
-    @Override
-    public void encodeValue(Object value, Class type, StringBuffer sql) {
-        super.encodeValue(value, type, sql);
+        return delegate.decodeGeometryValue(descriptor, rs, column, factory, cx);
     }
 
     @Override
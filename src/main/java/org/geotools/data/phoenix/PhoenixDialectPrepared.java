@@ -3,22 +3,28 @@ package org.geotools.data.phoenix;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import org.geotools.data.Query;
 import org.geotools.factory.Hints;
+import org.geotools.jdbc.Index;
 import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PreparedFilterToSQL;
 import org.geotools.jdbc.PreparedStatementSQLDialect;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.Filter;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * 文件描述：PhoenixDialectPrepared
+ * 文件描述：PhoenixDialectPrepared，以预编译语句访问Phoenix，过滤条件和UPSERT中的取值（包括几何对象）都作为参数绑定
  * 创建作者：陈苗
  * 创建时间：2016/11/7 11:39
  */
@@ -27,8 +33,21 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
     PhoenixDialect delegate;
 
     protected PhoenixDialectPrepared(JDBCDataStore dataStore) {
+        this(dataStore, new PhoenixDialect(dataStore));
+    }
+
+    /**
+     * @param dataStore
+     * @param delegate 沿用已配置好的Phoenix方言
+     */
+    protected PhoenixDialectPrepared(JDBCDataStore dataStore, PhoenixDialect delegate) {
         super(dataStore);
-        this.delegate = new PhoenixDialect(dataStore);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void initializeConnection(Connection cx) throws SQLException {
+        delegate.initializeConnection(cx);
     }
 
     @Override
@@ -51,6 +70,26 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
         return delegate.getGeometrySRID(schemaName, tableName, columnName, cx);
     }
 
+    @Override
+    public int getGeometryDimension(String schemaName, String tableName, String columnName, Connection cx) throws SQLException {
+        return delegate.getGeometryDimension(schemaName, tableName, columnName, cx);
+    }
+
+    @Override
+    public void encodeTableName(String raw, StringBuffer sql) {
+        delegate.encodeTableName(raw, sql);
+    }
+
+    @Override
+    public void encodePrimaryKey(String column, StringBuffer sql) {
+        delegate.encodePrimaryKey(column, sql);
+    }
+
+    @Override
+    public Class<?> getMapping(ResultSet columnMetaData, Connection cx) throws SQLException {
+        return delegate.getMapping(columnMetaData, cx);
+    }
+
     @Override
     public void encodeColumnName(String prefix, String raw, StringBuffer sql) {
         delegate.encodeColumnName(prefix, raw, sql);
@@ -91,6 +130,11 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
         delegate.registerSqlTypeToSqlTypeNameOverrides(overrides);
     }
 
+    @Override
+    public void preCreateTable(String schemaName, SimpleFeatureType featureType, Connection cx) throws SQLException {
+        delegate.preCreateTable(schemaName, featureType, cx);
+    }
+
     @Override
     public void encodePostCreateTable(String tableName, StringBuffer sql) {
         delegate.encodePostCreateTable(tableName, sql);
@@ -106,6 +150,36 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
         delegate.postCreateTable(schemaName, featureType, cx);
     }
 
+    @Override
+    public void postCreateFeatureType(SimpleFeatureType featureType, DatabaseMetaData metadata, String schemaName, Connection cx) throws SQLException {
+        delegate.postCreateFeatureType(featureType, metadata, schemaName, cx);
+    }
+
+    @Override
+    public void preDropTable(String schemaName, SimpleFeatureType featureType, Connection cx) throws SQLException {
+        delegate.preDropTable(schemaName, featureType, cx);
+    }
+
+    @Override
+    public void postDropTable(String schemaName, SimpleFeatureType featureType, Connection cx) throws SQLException {
+        delegate.postDropTable(schemaName, featureType, cx);
+    }
+
+    @Override
+    public String getSequenceForColumn(String schemaName, String tableName, String columnName, Connection cx) throws SQLException {
+        return delegate.getSequenceForColumn(schemaName, tableName, columnName, cx);
+    }
+
+    @Override
+    public Object getNextSequenceValue(String schemaName, String sequenceName, Connection cx) throws SQLException {
+        return delegate.getNextSequenceValue(schemaName, sequenceName, cx);
+    }
+
+    @Override
+    public String encodeNextSequenceValue(String schemaName, String sequenceName) {
+        return delegate.encodeNextSequenceValue(schemaName, sequenceName);
+    }
+
     @Override
     public boolean lookupGeneratedValuesPostInsert() {
         return delegate.lookupGeneratedValuesPostInsert();
@@ -121,9 +195,20 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
         return delegate.getLastAutoGeneratedValue(schemaName, tableName, columnName, cx);
     }
 
+    /**
+     * 绑定几何参数，UPSERT语句按目标表的编码绑定，过滤条件中的几何字面量绑定为WKB
+     * 参数所属的空间列在生成语句时登记，见{@link #prepareGeometryValue}
+     * @param g
+     * @param dimension
+     * @param srid
+     * @param binding
+     * @param ps
+     * @param column
+     * @throws SQLException
+     */
     @Override
     public void setGeometryValue(Geometry g, int dimension, int srid, Class binding, PreparedStatement ps, int column) throws SQLException {
-        /*加入代码*/
+        delegate.setUpsertGeometryValue(g, dimension, ps, column);
     }
 
     @Override
@@ -141,10 +226,46 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
         return delegate.decodeGeometryValue(descriptor, rs, column, factory, cx);
     }
 
+    /**
+     * 几何对象直接作为参数绑定，二进制或文本取值在Phoenix中无需转换函数
+     * @param gClass
+     * @param dimension
+     * @param srid
+     * @param binding
+     * @param sql
+     */
     @Override
     public void prepareGeometryValue(Class<? extends Geometry> gClass, int dimension, int srid, Class binding, StringBuffer sql) {
-        /*加入代码*/
-        super.prepareGeometryValue(gClass, dimension, srid, binding, sql);
+        sql.append("?");
+        delegate.prepareUpsertGeometry(sql);
+    }
+
+    @Override
+    public PreparedFilterToSQL createPreparedFilterToSQL() {
+        PhoenixFilterToSQLPrepared filterToSQL = new PhoenixFilterToSQLPrepared(this);
+        filterToSQL.setMaxGeoHashRanges(delegate.getGeoHashMaxRanges());
+        filterToSQL.setMaxGeoHashPrecision(delegate.getGeoHashMaxPrecision());
+        return filterToSQL;
+    }
+
+    @Override
+    protected boolean supportsSchemaForIndex() {
+        return delegate.supportsSchemaForIndex();
+    }
+
+    @Override
+    public void addSupportedHints(Set<Hints.Key> hints) {
+        delegate.addSupportedHints(hints);
+    }
+
+    @Override
+    public Filter[] splitFilter(Filter filter, SimpleFeatureType schema) {
+        return delegate.splitFilter(filter, schema);
+    }
+
+    @Override
+    public void handleSelectHints(StringBuffer sql, SimpleFeatureType featureType, Query query) {
+        delegate.handleSelectHints(sql, featureType, query);
     }
 
     @Override
@@ -157,6 +278,16 @@ public class PhoenixDialectPrepared extends PreparedStatementSQLDialect {
         delegate.applyLimitOffset(sql, limit, offset);
     }
 
+    @Override
+    public boolean isAutoCommitQuery() {
+        return delegate.isAutoCommitQuery();
+    }
+
+    @Override
+    public void createIndex(Connection cx, SimpleFeatureType schema, String databaseSchema, Index index) throws SQLException {
+        delegate.createIndex(cx, schema, databaseSchema, index);
+    }
+
     @Override
     public void dropIndex(Connection cx, SimpleFeatureType schema, String databaseSchema, String indexName) throws SQLException {
         delegate.dropIndex(cx, schema, databaseSchema, indexName);
@@ -2,15 +2,20 @@ package org.geotools.data.phoenix;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.LinearRing;
-import org.apache.phoenix.schema.IllegalDataException;
 import org.geotools.data.jdbc.FilterToSQL;
 import org.geotools.filter.FilterCapabilities;
+import org.opengis.filter.Id;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNotEqualTo;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.expression.Literal;
 import org.opengis.filter.expression.PropertyName;
-import org.opengis.filter.spatial.*;
+import org.opengis.filter.spatial.BinarySpatialOperator;
 
 import java.io.IOException;
+import java.util.Date;
 
 /**
  * 文件描述：Phoenix specific filter encoder.
@@ -19,26 +24,46 @@ import java.io.IOException;
  */
 public class PhoenixFilterToSQL extends FilterToSQL {
     /**
-     * 添加Phoenix所支持的空间函数
+     * 空间函数、GeoHash键范围和主键行值比较的编码逻辑，与PhoenixFilterToSQLPrepared共用
+     */
+    final PhoenixFilterToSQLHelper helper = new PhoenixFilterToSQLHelper(this);
+
+    public void setMaxGeoHashRanges(int maxGeoHashRanges) {
+        helper.maxGeoHashRanges = maxGeoHashRanges;
+    }
+
+    public int getMaxGeoHashRanges() {
+        return helper.maxGeoHashRanges;
+    }
+
+    public void setMaxGeoHashPrecision(int maxGeoHashPrecision) {
+        helper.maxGeoHashPrecision = maxGeoHashPrecision;
+    }
+
+    public int getMaxGeoHashPrecision() {
+        return helper.maxGeoHashPrecision;
+    }
+
+    /**
+     * 将当前的输出、主键和要素类型同步到共用的编码逻辑
+     * @return
+     */
+    private PhoenixFilterToSQLHelper helper() {
+        helper.out = out;
+        helper.primaryKey = primaryKey;
+        helper.featureType = featureType;
+        return helper;
+    }
+
+    /**
+     * 添加Phoenix所支持的属性过滤条件与空间函数
      *
      * @return
      */
     @Override
     protected FilterCapabilities createFilterCapabilities() {
         /*添加函数*/
-        FilterCapabilities caps = super.createFilterCapabilities();
-        caps.addType(BBOX.class);
-        caps.addType(Contains.class);
-        caps.addType(Disjoint.class);
-        caps.addType(Crosses.class);
-        caps.addType(Equals.class);
-        caps.addType(Intersects.class);
-        caps.addType(Overlaps.class);
-        caps.addType(Touches.class);
-        caps.addType(Within.class);
-        caps.addType(DWithin.class);
-        caps.addType(Beyond.class);
-        return caps;
+        return PhoenixFilterToSQLHelper.addSpatialCapabilities(PhoenixFilterToSQLHelper.addAttributeCapabilities(super.createFilterCapabilities()));
     }
 
     @Override
@@ -49,82 +74,69 @@ public class PhoenixFilterToSQL extends FilterToSQL {
         out.write("'" + g.toText() + "'");
     }
 
+    /**
+     * 要素ID条件编码为主键上的IN条件
+     * @param filter
+     * @param extraData
+     * @return
+     */
     @Override
-    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, PropertyName property, Literal geometry, boolean swapped, Object extraData) {
-        return visitBinarySpatialOperator(filter, (Expression) property, (Expression) geometry, swapped, extraData);
+    public Object visit(Id filter, Object extraData) {
+        return helper().encodeId(filter, extraData);
     }
 
     @Override
-    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, Expression e1, Expression e2, Object extraData) {
-        return visitBinarySpatialOperator(filter, e1, e2, false, extraData);
+    public Object visit(PropertyIsEqualTo filter, Object extraData) {
+        if (!helper().encodeInFunction(filter, extraData))
+            return super.visit(filter, extraData);
+        return extraData;
     }
 
-    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, Expression e1,
-                                                Expression e2, boolean swapped, Object extraData) {
-        try {
-            if (!(filter instanceof Disjoint)) {
-                out.write("ST_MBRINTERSECTS(");
-                e1.accept(this, extraData);
-                out.write(",");
-                e2.accept(this, extraData);
-                out.write(") = 1");
-
-                if (!(filter instanceof BBOX))
-                    out.write(" AND ");
-            }
-            if (filter instanceof BBOX)
-                return extraData;
-            if (filter instanceof DistanceBufferOperator) {
-                out.write("ST_DISTANCE(");
-                e1.accept(this, extraData);
-                out.write(", ");
-                e2.accept(this, extraData);
-                if (filter instanceof DWithin) {
-                    out.write("'<', '");
-                } else if (filter instanceof Beyond) {
-                    out.write("'>', '");
-                } else {
-                    throw new IllegalDataException("Unknown distance compare operator");
-                }
-                out.write(Double.toString(((DistanceBufferOperator) filter).getDistance()));
-                out.write("') = 1");
-            } else {
-                if (filter instanceof Contains) {
-                    out.write("ST_CONTAINS(");
-                } else if (filter instanceof Crosses) {
-                    out.write("ST_CROSSES(");
-                } else if (filter instanceof Disjoint) {
-                    out.write("ST_DISJOINT(");
-                } else if (filter instanceof Equals) {
-                    out.write("ST_EQUALS(");
-                } else if (filter instanceof Intersects) {
-                    out.write("ST_INTERSECTS(");
-                } else if (filter instanceof Overlaps) {
-                    out.write("ST_OVERLAPS(");
-                } else if (filter instanceof Touches) {
-                    out.write("ST_TOUCHES(");
-                } else if (filter instanceof Within) {
-                    out.write("ST_WITHIN(");
-                } else {
-                    throw new RuntimeException("unknown operator: " + filter);
-                }
-
-                if (swapped) {
-                    e2.accept(this, extraData);
-                    out.write(", ");
-                    e1.accept(this, extraData);
-                } else {
-                    e1.accept(this, extraData);
-                    out.write(", ");
-                    e2.accept(this, extraData);
-                }
-
-                out.write(") = 1");
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    @Override
+    public Object visit(PropertyIsNotEqualTo filter, Object extraData) {
+        if (!helper().encodeInFunction(filter, extraData))
+            return super.visit(filter, extraData);
         return extraData;
     }
 
+    @Override
+    public Object visit(PropertyIsLike filter, Object extraData) {
+        return helper().encodeLike(filter, extraData);
+    }
+
+    /**
+     * 时间字面量编码为TO_DATE，其余按默认方式编码
+     * @param literal
+     * @throws IOException
+     */
+    @Override
+    protected void writeLiteral(Object literal) throws IOException {
+        if (literal instanceof Date)
+            out.write(PhoenixFilterToSQLHelper.encodeDate((Date) literal));
+        else
+            super.writeLiteral(literal);
+    }
+
+    /**
+     * 按主键顺序的字典序比较编码为行值构造器(c1, c2) > (v1, v2)，其余的OR条件按默认方式编码
+     * @param filter
+     * @param extraData
+     * @return
+     */
+    @Override
+    public Object visit(Or filter, Object extraData) {
+        if (!helper().encodeKeyset(filter, extraData))
+            return super.visit(filter, extraData);
+        return extraData;
+    }
+
+    @Override
+    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, PropertyName property, Literal geometry, boolean swapped, Object extraData) {
+        return helper().visitBinarySpatialOperator(filter, property, geometry, swapped, extraData);
+    }
+
+    @Override
+    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, Expression e1, Expression e2, Object extraData) {
+        return helper().visitBinarySpatialOperator(filter, e1, e2, false, extraData);
+    }
 }
@@ -0,0 +1,784 @@
+package org.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import org.apache.phoenix.schema.IllegalDataException;
+import org.geotools.data.jdbc.FilterToSQL;
+import org.geotools.data.phoenix.util.GeoHashCover;
+import org.geotools.data.phoenix.util.GeoHashRange;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.filter.FilterCapabilities;
+import org.geotools.filter.function.InFunction;
+import org.geotools.filter.visitor.DefaultFilterVisitor;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.ExcludeFilter;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.identity.Identifier;
+import org.opengis.filter.spatial.*;
+import org.opengis.filter.temporal.After;
+import org.opengis.filter.temporal.Before;
+import org.opengis.filter.temporal.During;
+import org.opengis.filter.temporal.TEquals;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * 文件描述：PhoenixFilterToSQL与PhoenixFilterToSQLPrepared共用的编码逻辑，包括空间函数、GeoHash键范围、主键的行值比较、要素ID、in函数和LIKE
+ * 字面量通过所属编码器的访问方法写出，因此在预编译语句中字面量作为参数绑定；
+ * 编码器在每次调用前将当前的输出、主键和要素类型同步到这里
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+class PhoenixFilterToSQLHelper {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    /**
+     * 时间字面量的格式
+     */
+    private final static String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+    /**
+     * 长度单位对应的米数，键为小写的单位名称
+     */
+    private final static Map<String, Double> METRES_PER_UNIT = new HashMap<>();
+    /**
+     * 角度单位的名称，与地理坐标系的坐标单位一致
+     */
+    private final static Set<String> DEGREE_UNITS = new HashSet<>(Arrays.asList("degree", "degrees", "deg", "\u00b0"));
+    /**
+     * 1度纬度对应的最短子午线弧长（赤道处，米）
+     */
+    private final static double MIN_METRES_PER_DEGREE = 110574;
+    /**
+     * 1度经纬度对应的最长弧长（两极处的子午线弧长，米）
+     */
+    private final static double MAX_METRES_PER_DEGREE = 111694;
+    /**
+     * 赤道上1度经度的弧长（米），纬度φ处的纬线上为其cosφ倍
+     */
+    private final static double EQUATOR_METRES_PER_DEGREE = 111319.49;
+
+    static {
+        for (String unit : new String[]{"m", "meter", "meters", "metre", "metres"})
+            METRES_PER_UNIT.put(unit, 1d);
+        for (String unit : new String[]{"km", "kilometer", "kilometers", "kilometre", "kilometres"})
+            METRES_PER_UNIT.put(unit, 1000d);
+        for (String unit : new String[]{"ft", "foot", "feet"})
+            METRES_PER_UNIT.put(unit, 0.3048);
+        for (String unit : new String[]{"mi", "mile", "miles", "statute miles"})
+            METRES_PER_UNIT.put(unit, 1609.344);
+        for (String unit : new String[]{"nmi", "nautical mile", "nautical miles"})
+            METRES_PER_UNIT.put(unit, 1852d);
+    }
+
+    /**
+     * 所属的编码器
+     */
+    final FilterToSQL delegate;
+
+    Writer out;
+    PrimaryKey primaryKey;
+    SimpleFeatureType featureType;
+
+    /**
+     * 空间过滤条件下推为_GEOHASH键范围时的区间个数上限
+     */
+    int maxGeoHashRanges = GeoHashCover.DEFAULT_MAX_RANGES;
+
+    /**
+     * 几何字面量的GeoHash覆盖细分到的字符长度
+     */
+    int maxGeoHashPrecision = GeoHashCover.DEFAULT_MAX_PRECISION;
+
+    PhoenixFilterToSQLHelper(FilterToSQL delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 添加Phoenix所支持的空间函数
+     * @param caps
+     * @return
+     */
+    static FilterCapabilities addSpatialCapabilities(FilterCapabilities caps) {
+        caps.addType(BBOX.class);
+        caps.addType(Contains.class);
+        caps.addType(Disjoint.class);
+        caps.addType(Crosses.class);
+        caps.addType(Equals.class);
+        caps.addType(Intersects.class);
+        caps.addType(Overlaps.class);
+        caps.addType(Touches.class);
+        caps.addType(Within.class);
+        caps.addType(DWithin.class);
+        caps.addType(Beyond.class);
+        return caps;
+    }
+
+    /**
+     * 显式声明下推到Phoenix的属性过滤条件：比较、逻辑运算、空值判断、BETWEEN、LIKE、in函数、要素ID，
+     * 以及DATE/TIMESTAMP列上的时间关系，避免这些条件在客户端取回全部行之后再判断
+     * @param caps
+     * @return
+     */
+    static FilterCapabilities addAttributeCapabilities(FilterCapabilities caps) {
+        caps.addAll(FilterCapabilities.LOGICAL_OPENGIS);
+        caps.addAll(FilterCapabilities.SIMPLE_COMPARISONS_OPENGIS);
+        caps.addType(PropertyIsNull.class);
+        caps.addType(PropertyIsBetween.class);
+        caps.addType(PropertyIsLike.class);
+        caps.addType(Id.class);
+        caps.addType(IncludeFilter.class);
+        caps.addType(ExcludeFilter.class);
+        caps.addType(InFunction.class);
+        caps.addType(After.class);
+        caps.addType(Before.class);
+        caps.addType(During.class);
+        caps.addType(TEquals.class);
+        return caps;
+    }
+
+    /**
+     * 将in(x, v1, v2, ...) = true编码为x IN (v1, v2, ...)，与false比较或不等比较时编码为NOT IN；
+     * 在主键列上Phoenix可以将IN转换为点查询
+     * @param filter
+     * @param extraData
+     * @return 不是in函数的比较时不写出任何内容并返回false
+     */
+    boolean encodeInFunction(BinaryComparisonOperator filter, Object extraData) {
+        Expression e1 = filter.getExpression1();
+        Expression e2 = filter.getExpression2();
+        if (e2 instanceof Function && e1 instanceof Literal) {
+            Expression tmp = e1;
+            e1 = e2;
+            e2 = tmp;
+        }
+        if (!(e1 instanceof Function) || !(e2 instanceof Literal) || !isInFunction((Function) e1))
+            return false;
+        Boolean value = e2.evaluate(null, Boolean.class);
+        List<Expression> parameters = ((Function) e1).getParameters();
+        if (value == null || parameters.size() < 2)
+            return false;
+        boolean negated = value != (filter instanceof PropertyIsEqualTo);
+        Expression property = parameters.get(0);
+        Class<?> binding = null;
+        if (property instanceof PropertyName && featureType != null) {
+            AttributeDescriptor descriptor = (AttributeDescriptor) property.evaluate(featureType);
+            if (descriptor != null)
+                binding = descriptor.getType().getBinding();
+        }
+        try {
+            out.write("(");
+            property.accept(delegate, binding);
+            out.write(negated ? " NOT IN (" : " IN (");
+            for (int i = 1; i < parameters.size(); i++) {
+                if (i > 1)
+                    out.write(", ");
+                parameters.get(i).accept(delegate, binding);
+            }
+            out.write("))");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否为in函数，包括不定参数的in和in2~in10
+     * @param function
+     * @return
+     */
+    private static boolean isInFunction(Function function) {
+        return function instanceof InFunction || (function.getName() != null && function.getName().toLowerCase().matches("in\\d*"));
+    }
+
+    /**
+     * 编码LIKE条件，OGC的通配符转换为Phoenix的%和_，模式中原有的%、_和反斜杠以反斜杠转义；
+     * 不区分大小写时两侧都转换为大写，非字符串的属性先用TO_CHAR转换为字符串
+     * @param filter
+     * @param extraData
+     * @return
+     */
+    Object encodeLike(PropertyIsLike filter, Object extraData) {
+        Expression expression = filter.getExpression();
+        Class<?> binding = null;
+        if (expression instanceof PropertyName && featureType != null) {
+            AttributeDescriptor descriptor = (AttributeDescriptor) expression.evaluate(featureType);
+            if (descriptor != null)
+                binding = descriptor.getType().getBinding();
+        }
+        boolean text = binding == null || String.class.equals(binding);
+        String pattern = toLikePattern(filter.getLiteral(), filter.getWildCard(), filter.getSingleChar(), filter.getEscape());
+        try {
+            if (!filter.isMatchingCase())
+                out.write("UPPER(");
+            if (!text)
+                out.write("TO_CHAR(");
+            expression.accept(delegate, extraData);
+            if (!text)
+                out.write(")");
+            if (!filter.isMatchingCase()) {
+                out.write(")");
+                pattern = pattern.toUpperCase();
+            }
+            out.write(" LIKE '");
+            out.write(pattern.replace("'", "''"));
+            out.write("'");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return extraData;
+    }
+
+    /**
+     * 将OGC的LIKE模式转换为Phoenix的LIKE模式
+     * @param pattern OGC模式
+     * @param wildCard 多字符通配符
+     * @param singleChar 单字符通配符
+     * @param escape 转义字符
+     * @return
+     */
+    static String toLikePattern(String pattern, String wildCard, String singleChar, String escape) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 8);
+        int i = 0;
+        while (i < pattern.length()) {
+            if (escape != null && !escape.isEmpty() && pattern.startsWith(escape, i) && i + escape.length() < pattern.length()) {
+                i += escape.length();
+                appendLiteral(sb, pattern.charAt(i++));
+            } else if (wildCard != null && !wildCard.isEmpty() && pattern.startsWith(wildCard, i)) {
+                sb.append('%');
+                i += wildCard.length();
+            } else if (singleChar != null && !singleChar.isEmpty() && pattern.startsWith(singleChar, i)) {
+                sb.append('_');
+                i += singleChar.length();
+            } else {
+                appendLiteral(sb, pattern.charAt(i++));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendLiteral(StringBuilder sb, char c) {
+        if (c == '%' || c == '_' || c == '\\')
+            sb.append('\\');
+        sb.append(c);
+    }
+
+    /**
+     * 将要素ID条件编码为主键上的IN条件：单列主键为pk IN (v1, v2, ...)，
+     * 多列主键（如ID与空间列的_GEOHASH）为行值构造器(c1, c2) IN ((a1, a2), (b1, b2), ...)，
+     * Phoenix将其转换为逐个行键的点查询；取值按主键列的类型写出，无法解析为本表主键的ID不可能匹配，直接忽略
+     * @param filter
+     * @param extraData
+     * @return
+     */
+    Object encodeId(Id filter, Object extraData) {
+        if (primaryKey == null)
+            throw new RuntimeException("Must set a primary key before trying to encode FIDFilters");
+        List<PrimaryKeyColumn> columns = primaryKey.getColumns();
+        List<List<Object>> keys = new ArrayList<>();
+        for (Identifier id : filter.getIdentifiers()) {
+            List<Object> key;
+            try {
+                key = JDBCDataStore.decodeFID(primaryKey, String.valueOf(id.getID()), true);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                /*主键取值个数不符*/
+                continue;
+            }
+            if (isKey(key, columns))
+                keys.add(key);
+        }
+        try {
+            if (keys.isEmpty()) {
+                out.write("1 = 0");
+                return extraData;
+            }
+            boolean composite = columns.size() > 1;
+            out.write("(");
+            if (composite)
+                out.write("(");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0)
+                    out.write(", ");
+                out.write(delegate.escapeName(columns.get(i).getName()));
+            }
+            if (composite)
+                out.write(")");
+            out.write(" IN (");
+            for (int k = 0; k < keys.size(); k++) {
+                if (k > 0)
+                    out.write(", ");
+                if (composite)
+                    out.write("(");
+                List<Object> key = keys.get(k);
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0)
+                        out.write(", ");
+                    FF.literal(key.get(i)).accept(delegate, columns.get(i).getType());
+                }
+                if (composite)
+                    out.write(")");
+            }
+            out.write("))");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return extraData;
+    }
+
+    /**
+     * 判断从要素ID解析出的取值是否为主键取值：个数与主键列相同，且都能转换为对应列的类型
+     * @param key
+     * @param columns
+     * @return
+     */
+    private static boolean isKey(List<Object> key, List<PrimaryKeyColumn> columns) {
+        if (key.size() != columns.size())
+            return false;
+        for (int i = 0; i < columns.size(); i++) {
+            if (key.get(i) == null || !columns.get(i).getType().isInstance(key.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 将时间编码为Phoenix的DATE字面量，Phoenix不会将字符串隐式转换为DATE/TIMESTAMP，
+     * 且TO_DATE默认按GMT解析，因此按GMT格式化到毫秒
+     * @param date
+     * @return
+     */
+    static String encodeDate(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return "TO_DATE('" + format.format(date) + "', '" + DATE_PATTERN + "')";
+    }
+
+    /**
+     * 按主键顺序的字典序比较（如KeysetPager生成的c1 > v1 OR (c1 = v1 AND c2 > v2)）编码为行值构造器(c1, c2) > (v1, v2)，
+     * Phoenix可以将其直接转换为扫描的起始行键
+     * @param filter
+     * @param extraData
+     * @return 不是主键上的字典序比较时不写出任何内容并返回false，由调用方按默认方式编码
+     */
+    boolean encodeKeyset(Or filter, Object extraData) {
+        List<PropertyName> columns = new ArrayList<>();
+        List<Literal> values = new ArrayList<>();
+        if (!matchKeyset(filter, columns, values))
+            return false;
+        try {
+            out.write("(");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0)
+                    out.write(", ");
+                columns.get(i).accept(delegate, extraData);
+            }
+            out.write(") > (");
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0)
+                    out.write(", ");
+                AttributeDescriptor descriptor = (AttributeDescriptor) columns.get(i).evaluate(featureType);
+                values.get(i).accept(delegate, descriptor != null ? descriptor.getType().getBinding() : null);
+            }
+            out.write(")");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return true;
+    }
+
+    /**
+     * 判断OR条件是否为主键列上的字典序比较：第i个分支由前i - 1个主键列的相等比较和第i个主键列的大于比较组成
+     * @param filter
+     * @param columns 接收按主键顺序排列的列
+     * @param values 接收对应的取值
+     * @return
+     */
+    private boolean matchKeyset(Or filter, List<PropertyName> columns, List<Literal> values) {
+        int count = filter.getChildren().size();
+        if (primaryKey == null || featureType == null || count < 2 || count > primaryKey.getColumns().size())
+            return false;
+        PropertyName[] keyColumns = new PropertyName[count];
+        Literal[] keyValues = new Literal[count];
+        boolean[] seen = new boolean[count];
+        for (Filter child : filter.getChildren()) {
+            List<Filter> terms = child instanceof And ? ((And) child).getChildren() : Collections.singletonList(child);
+            int position = terms.size() - 1;
+            if (position >= count || seen[position])
+                return false;
+            seen[position] = true;
+            boolean[] used = new boolean[position + 1];
+            for (Filter term : terms) {
+                if (!(term instanceof BinaryComparisonOperator))
+                    return false;
+                BinaryComparisonOperator comparison = (BinaryComparisonOperator) term;
+                if (!(comparison.getExpression1() instanceof PropertyName) || !(comparison.getExpression2() instanceof Literal))
+                    return false;
+                PropertyName column = (PropertyName) comparison.getExpression1();
+                int index = keyIndex(column);
+                boolean greater = term instanceof PropertyIsGreaterThan;
+                if (index < 0 || index > position || used[index] || (greater != (index == position)) || (!greater && !(term instanceof PropertyIsEqualTo)))
+                    return false;
+                used[index] = true;
+                Literal value = (Literal) comparison.getExpression2();
+                if (keyValues[index] != null && !Objects.equals(keyValues[index].getValue(), value.getValue()))
+                    return false;
+                keyColumns[index] = column;
+                keyValues[index] = value;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            columns.add(keyColumns[i]);
+            values.add(keyValues[i]);
+        }
+        return true;
+    }
+
+    /**
+     * 获取属性在主键中的位置
+     * @param property
+     * @return 不是主键列时返回-1
+     */
+    private int keyIndex(PropertyName property) {
+        List<PrimaryKeyColumn> keyColumns = primaryKey.getColumns();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (keyColumns.get(i).getName().equalsIgnoreCase(property.getPropertyName()))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 编码空间过滤条件，精确的空间关系只生成一个空间函数，由函数在同一次求值中完成外包矩形过滤与精确判断；
+     * 当一侧为几何字面量时，将字面量作为空间函数的第一个参数，
+     * 并在需要时换用逆关系的函数（如Within换为ST_CONTAINS），使函数能够对字面量构建预处理几何对象
+     * @param filter
+     * @param e1
+     * @param e2
+     * @param swapped 过滤条件中e2是否原本位于e1之前
+     * @param extraData
+     * @return
+     */
+    Object visitBinarySpatialOperator(BinarySpatialOperator filter, Expression e1,
+                                      Expression e2, boolean swapped, Object extraData) {
+        Expression first = swapped ? e2 : e1;
+        Expression second = swapped ? e1 : e2;
+        boolean converse = false;
+        if (second instanceof Literal && !(first instanceof Literal)) {
+            Expression literal = second;
+            second = first;
+            first = literal;
+            converse = true;
+        }
+        try {
+            /*精确判断与距离判断的空间函数内部已先比较外包矩形，只有BBOX需要单独的外包矩形过滤*/
+            if (filter instanceof BBOX) {
+                /*点与矩形的外包矩形相交即点位于矩形内（含边界）*/
+                String closing = encodeGeoHashPrefilter(first, second, 0, GeoHashCover.Interior.COVERS);
+                out.write("ST_MBRINTERSECTS(");
+                first.accept(delegate, extraData);
+                out.write(",");
+                second.accept(delegate, extraData);
+                out.write(") = 1");
+                out.write(closing);
+                return extraData;
+            }
+            if (filter instanceof DistanceBufferOperator) {
+                if (!(filter instanceof DWithin) && !(filter instanceof Beyond))
+                    throw new IllegalDataException("Unknown distance compare operator");
+                DistanceBufferOperator operator = (DistanceBufferOperator) filter;
+                Double distance = toCrsDistance(operator, featureType);
+                if (distance == null) {
+                    /*无法精确换算的距离按能覆盖精确结果的度数编码，精确判断由PhoenixDialect.splitFilter留在客户端*/
+                    distance = toDegreeBound(operator, featureType, first instanceof Literal ? first.evaluate(null, Geometry.class) : null);
+                    if (Double.isNaN(distance)) {
+                        out.write("1 = 1");
+                        return extraData;
+                    }
+                }
+                /*Beyond的结果位于查询范围之外，无法用键范围缩小*/
+                String closing = "";
+                if (filter instanceof DWithin) {
+                    closing = encodeGeoHashPrefilter(first, second, distance, GeoHashCover.Interior.NONE);
+                    out.write("ST_DWITHIN(");
+                } else {
+                    out.write("ST_BEYOND(");
+                }
+                first.accept(delegate, extraData);
+                out.write(", ");
+                second.accept(delegate, extraData);
+                out.write(", CAST(");
+                out.write(Double.toString(distance));
+                out.write(" AS DOUBLE)) = 1");
+                out.write(closing);
+            } else {
+                /*除Disjoint外，满足各精确空间关系的点都与几何字面量相交，因此都可以用其覆盖的键范围粗过滤；
+                  对于相交和字面量包含行的判断，完全位于字面量内部的网格中的点无需空间函数即满足条件*/
+                GeoHashCover.Interior interior = GeoHashCover.Interior.NONE;
+                if (filter instanceof Intersects)
+                    interior = GeoHashCover.Interior.COVERS;
+                else if ((filter instanceof Contains && !converse) || (filter instanceof Within && converse))
+                    interior = GeoHashCover.Interior.CONTAINS_PROPERLY;
+                String closing = filter instanceof Disjoint ? "" : encodeGeoHashPrefilter(first, second, 0, interior);
+                if (filter instanceof Contains) {
+                    out.write(converse ? "ST_WITHIN(" : "ST_CONTAINS(");
+                } else if (filter instanceof Crosses) {
+                    out.write("ST_CROSSES(");
+                } else if (filter instanceof Disjoint) {
+                    out.write("ST_DISJOINT(");
+                } else if (filter instanceof Equals) {
+                    out.write("ST_EQUALS(");
+                } else if (filter instanceof Intersects) {
+                    out.write("ST_INTERSECTS(");
+                } else if (filter instanceof Overlaps) {
+                    out.write("ST_OVERLAPS(");
+                } else if (filter instanceof Touches) {
+                    out.write("ST_TOUCHES(");
+                } else if (filter instanceof Within) {
+                    out.write(converse ? "ST_CONTAINS(" : "ST_WITHIN(");
+                } else {
+                    throw new RuntimeException("unknown operator: " + filter);
+                }
+
+                first.accept(delegate, extraData);
+                out.write(", ");
+                second.accept(delegate, extraData);
+
+                out.write(") = 1");
+                out.write(closing);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return extraData;
+    }
+
+    /**
+     * 将距离条件的距离换算为空间列坐标系单位下的距离，ST_DWITHIN与ST_BEYOND按坐标系单位在平面上计算
+     * @param filter 距离条件
+     * @param featureType 要素类型，用于获取空间列的坐标系
+     * @return 未指定单位或坐标系时为原距离；地理坐标系中的长度单位以及无法识别的单位返回null
+     */
+    static Double toCrsDistance(DistanceBufferOperator filter, SimpleFeatureType featureType) {
+        String units = filter.getDistanceUnits();
+        CoordinateReferenceSystem crs = getCRS(filter, featureType);
+        if (units == null || units.trim().isEmpty() || crs == null)
+            return filter.getDistance();
+        String unit = normalizeUnit(units);
+        if (crs instanceof GeographicCRS)
+            return DEGREE_UNITS.contains(unit) ? filter.getDistance() : null;
+        Double metres = METRES_PER_UNIT.get(unit);
+        Double crsMetres = METRES_PER_UNIT.get(normalizeUnit(String.valueOf(crs.getCoordinateSystem().getAxis(0).getUnit())));
+        if (metres == null || crsMetres == null)
+            return null;
+        return filter.getDistance() * metres / crsMetres;
+    }
+
+    /**
+     * 地理坐标系中以长度单位给出的距离，换算为能覆盖精确结果的度数：
+     * DWithin取上界，纬度差不超过距离除以最短的1度子午线弧长，经度差不超过距离除以范围内最高纬度处1度纬线的弧长；
+     * Beyond取下界，即距离除以最长的1度弧长
+     * @param filter 距离条件
+     * @param featureType 要素类型
+     * @param literal 几何字面量，DWithin据此确定纬度范围
+     * @return 不是地理坐标系、单位无法识别或上界不存在（范围到达两极）时返回NaN
+     */
+    static double toDegreeBound(DistanceBufferOperator filter, SimpleFeatureType featureType, Geometry literal) {
+        Double metres = filter.getDistanceUnits() != null ? METRES_PER_UNIT.get(normalizeUnit(filter.getDistanceUnits())) : null;
+        if (metres == null || !(getCRS(filter, featureType) instanceof GeographicCRS))
+            return Double.NaN;
+        double distance = filter.getDistance() * metres;
+        if (!(filter instanceof DWithin))
+            return distance / MAX_METRES_PER_DEGREE;
+        if (literal == null || literal.isEmpty())
+            return Double.NaN;
+        Envelope envelope = literal.getEnvelopeInternal();
+        double latitude = distance / MIN_METRES_PER_DEGREE;
+        double maxLatitude = Math.max(Math.abs(envelope.getMinY()), Math.abs(envelope.getMaxY())) + latitude;
+        if (maxLatitude >= 90)
+            return Double.NaN;
+        double longitude = distance / (EQUATOR_METRES_PER_DEGREE * Math.cos(Math.toRadians(maxLatitude)));
+        return Math.hypot(latitude, longitude);
+    }
+
+    /**
+     * 过滤条件中是否含有无法精确编码的距离条件，这类条件编码为结果的超集，须在客户端再次判断
+     * @param filter
+     * @param featureType
+     * @return
+     */
+    static boolean hasApproximateDistance(Filter filter, final SimpleFeatureType featureType) {
+        final boolean[] approximate = {false};
+        filter.accept(new DefaultFilterVisitor() {
+            @Override
+            public Object visit(DWithin filter, Object data) {
+                approximate[0] |= toCrsDistance(filter, featureType) == null;
+                return data;
+            }
+
+            @Override
+            public Object visit(Beyond filter, Object data) {
+                approximate[0] |= toCrsDistance(filter, featureType) == null;
+                return data;
+            }
+        }, null);
+        return approximate[0];
+    }
+
+    /**
+     * 获取距离条件中空间属性的坐标系
+     * @param filter
+     * @param featureType
+     * @return 不存在时返回null
+     */
+    private static CoordinateReferenceSystem getCRS(DistanceBufferOperator filter, SimpleFeatureType featureType) {
+        if (featureType == null)
+            return null;
+        for (Expression expression : new Expression[]{filter.getExpression1(), filter.getExpression2()}) {
+            if (!(expression instanceof PropertyName))
+                continue;
+            Object descriptor = expression.evaluate(featureType);
+            if (descriptor instanceof GeometryDescriptor)
+                return ((GeometryDescriptor) descriptor).getCoordinateReferenceSystem();
+        }
+        return null;
+    }
+
+    /**
+     * 取单位名称的最后一段并转为小写，兼容kilometers与http://www.opengis.net/def/uom/OGC/1.0/metre等写法
+     * @param units
+     * @return
+     */
+    private static String normalizeUnit(String units) {
+        String unit = units.trim().toLowerCase(Locale.ENGLISH);
+        int index = Math.max(unit.lastIndexOf('/'), Math.max(unit.lastIndexOf('#'), unit.lastIndexOf(':')));
+        return unit.substring(index + 1);
+    }
+
+    /**
+     * 点表的主键中有_GEOHASH列时，先写出覆盖查询范围的键范围条件，使空间函数只作用于范围内的行
+     * 距离查询按扩展后的外包矩形覆盖，其余按几何字面量逐层细分的网格覆盖
+     * 写出的内容形如"(边界键范围 AND "；有内部网格时形如"((内部键范围 AND 空间列 IS NOT NULL) OR (边界键范围 AND "，
+     * 内部网格中的行只需比较键即可通过，由调用方在空间函数之后写出返回的右括号
+     * 键范围是由字面量计算出的常量，即使在预编译语句中也直接写入SQL，Phoenix才能在编译时据此确定扫描范围
+     * @param literal 几何字面量
+     * @param property 空间属性
+     * @param distance 查询范围向外扩展的距离
+     * @param interior 内部网格的判定方式，与空间函数的语义一致
+     * @return 需要在空间函数之后补上的右括号，未写出键范围条件时为空串
+     * @throws IOException
+     */
+    String encodeGeoHashPrefilter(Expression literal, Expression property, double distance, GeoHashCover.Interior interior) throws IOException {
+        String geoHashColumn = getGeoHashColumn(property);
+        if (geoHashColumn == null || !(literal instanceof Literal))
+            return "";
+        Geometry g = literal.evaluate(null, Geometry.class);
+        List<GeoHashRange> ranges;
+        if (distance > 0) {
+            Envelope envelope = g != null ? new Envelope(g.getEnvelopeInternal()) : new Envelope();
+            envelope.expandBy(distance);
+            ranges = GeoHashCover.cover(envelope, maxGeoHashRanges);
+        } else {
+            ranges = GeoHashCover.cover(g, interior, maxGeoHashPrecision, maxGeoHashRanges);
+        }
+        List<GeoHashRange> inner = new ArrayList<>();
+        List<GeoHashRange> boundary = new ArrayList<>();
+        for (GeoHashRange range : ranges) {
+            (range.isInterior() ? inner : boundary).add(range);
+        }
+        if (inner.isEmpty()) {
+            out.write("(");
+            encodeGeoHashRanges(geoHashColumn, boundary);
+            out.write(" AND ");
+            return ")";
+        }
+        /*空间列为空的行没有有效的GeoHash，不能仅凭键通过*/
+        out.write("((");
+        encodeGeoHashRanges(geoHashColumn, inner);
+        out.write(" AND ");
+        property.accept(delegate, null);
+        out.write(" IS NOT NULL) OR (");
+        encodeGeoHashRanges(geoHashColumn, boundary);
+        out.write(" AND ");
+        return "))";
+    }
+
+    /**
+     * 获取空间属性对应的GeoHash列，只有当该列在主键中时才能用于键范围过滤
+     * @param expression 空间属性
+     * @return 不存在时返回null
+     */
+    String getGeoHashColumn(Expression expression) {
+        if (!(expression instanceof PropertyName) || primaryKey == null || featureType == null)
+            return null;
+        AttributeDescriptor descriptor = (AttributeDescriptor) expression.evaluate(featureType);
+        if (descriptor == null)
+            return null;
+        String column = descriptor.getLocalName() + PhoenixDialect.TYPE_TO_SUFFIX_MAP.get(Point.class);
+        for (PrimaryKeyColumn pkColumn : primaryKey.getColumns()) {
+            if (pkColumn.getName().equalsIgnoreCase(column))
+                return pkColumn.getName();
+        }
+        return null;
+    }
+
+    /**
+     * 将GeoHash区间编码为键范围条件，形如(col BETWEEN a AND b OR col BETWEEN c AND d)，
+     * Phoenix将同一主键列上的多个范围合并为跳跃扫描；区间为空时没有行满足条件
+     * @param column GeoHash列
+     * @param ranges 区间
+     * @throws IOException
+     */
+    void encodeGeoHashRanges(String column, List<GeoHashRange> ranges) throws IOException {
+        if (ranges.isEmpty()) {
+            out.write("1 = 0");
+            return;
+        }
+        out.write("(");
+        for (int i = 0; i < ranges.size(); i++) {
+            if (i > 0)
+                out.write(" OR ");
+            out.write(delegate.escapeName(column));
+            out.write(" BETWEEN ");
+            out.write(Long.toString(ranges.get(i).getMin()));
+            out.write(" AND ");
+            out.write(Long.toString(ranges.get(i).getMax()));
+        }
+        out.write(")");
+    }
+}
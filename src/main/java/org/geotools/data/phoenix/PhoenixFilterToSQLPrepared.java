@@ -0,0 +1,113 @@
+package org.geotools.data.phoenix;
+
+import org.geotools.filter.FilterCapabilities;
+import org.geotools.jdbc.PreparedFilterToSQL;
+import org.opengis.filter.Id;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+
+/**
+ * 文件描述：预编译语句使用的过滤条件编码器，字面量（包括几何字面量）写为?并作为参数绑定，
+ * 不同取值的查询生成相同的SQL，Phoenix客户端可以复用语句的解析结果；其余编码与PhoenixFilterToSQL一致
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class PhoenixFilterToSQLPrepared extends PreparedFilterToSQL {
+    /**
+     * 空间函数、GeoHash键范围和主键行值比较的编码逻辑，与PhoenixFilterToSQL共用
+     */
+    final PhoenixFilterToSQLHelper helper = new PhoenixFilterToSQLHelper(this);
+
+    public PhoenixFilterToSQLPrepared(PhoenixDialectPrepared dialect) {
+        super(dialect);
+    }
+
+    public void setMaxGeoHashRanges(int maxGeoHashRanges) {
+        helper.maxGeoHashRanges = maxGeoHashRanges;
+    }
+
+    public int getMaxGeoHashRanges() {
+        return helper.maxGeoHashRanges;
+    }
+
+    public void setMaxGeoHashPrecision(int maxGeoHashPrecision) {
+        helper.maxGeoHashPrecision = maxGeoHashPrecision;
+    }
+
+    public int getMaxGeoHashPrecision() {
+        return helper.maxGeoHashPrecision;
+    }
+
+    /**
+     * 将当前的输出、主键和要素类型同步到共用的编码逻辑
+     * @return
+     */
+    private PhoenixFilterToSQLHelper helper() {
+        helper.out = out;
+        helper.primaryKey = primaryKey;
+        helper.featureType = featureType;
+        return helper;
+    }
+
+    /**
+     * 添加Phoenix所支持的属性过滤条件与空间函数
+     * @return
+     */
+    @Override
+    protected FilterCapabilities createFilterCapabilities() {
+        return PhoenixFilterToSQLHelper.addSpatialCapabilities(PhoenixFilterToSQLHelper.addAttributeCapabilities(super.createFilterCapabilities()));
+    }
+
+    /**
+     * 要素ID条件编码为主键上的IN条件
+     * @param filter
+     * @param extraData
+     * @return
+     */
+    @Override
+    public Object visit(Id filter, Object extraData) {
+        return helper().encodeId(filter, extraData);
+    }
+
+    @Override
+    public Object visit(PropertyIsEqualTo filter, Object extraData) {
+        if (!helper().encodeInFunction(filter, extraData))
+            return super.visit(filter, extraData);
+        return extraData;
+    }
+
+    @Override
+    public Object visit(PropertyIsNotEqualTo filter, Object extraData) {
+        if (!helper().encodeInFunction(filter, extraData))
+            return super.visit(filter, extraData);
+        return extraData;
+    }
+
+    @Override
+    public Object visit(PropertyIsLike filter, Object extraData) {
+        return helper().encodeLike(filter, extraData);
+    }
+
+    @Override
+    public Object visit(Or filter, Object extraData) {
+        if (!helper().encodeKeyset(filter, extraData))
+            return super.visit(filter, extraData);
+        return extraData;
+    }
+
+    @Override
+    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, PropertyName property, Literal geometry, boolean swapped, Object extraData) {
+        return helper().visitBinarySpatialOperator(filter, property, geometry, swapped, extraData);
+    }
+
+    @Override
+    protected Object visitBinarySpatialOperator(BinarySpatialOperator filter, Expression e1, Expression e2, Object extraData) {
+        return helper().visitBinarySpatialOperator(filter, e1, e2, false, extraData);
+    }
+}
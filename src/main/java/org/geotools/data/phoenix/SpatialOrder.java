@@ -0,0 +1,57 @@
+package org.geotools.data.phoenix;
+
+import org.geotools.data.Query;
+import org.geotools.factory.CommonFactoryFinder;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+/**
+ * 文件描述：按GeoHash的Z序输出要素的查询方式，空间上相邻的要素在结果中也基本相邻，
+ * 渲染瓦片或逐块处理时缓存的命中率更高。排序条件直接指定为点空间列的_GEOHASH列，生成ORDER BY _GEOHASH并使用_GEOHASH列上的索引，
+ * Phoenix按索引的键顺序返回结果，排序不在客户端进行；_GEOHASH为有符号的BIGINT，东半球的键为负数，
+ * 因此东半球排在西半球之前，各半球内部为Z序
+ * 创建作者：Administrator
+ * 创建时间：2026/10/17
+ */
+public class SpatialOrder {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    /**
+     * 生成按默认点空间列的Z序输出的查询
+     * @param query 原查询，不会被修改
+     * @param featureType 数据源中的要素类型，由用户数据中的{@link PhoenixDialect#GEOHASH_COLUMN}获取_GEOHASH列
+     * @return 首先按_GEOHASH列排序的查询，原有的排序条件依次排在其后
+     */
+    public static Query zOrder(Query query, SimpleFeatureType featureType) {
+        GeometryDescriptor gd = featureType.getGeometryDescriptor();
+        if (gd == null)
+            throw new IllegalArgumentException("Feature type has no geometry: " + featureType.getTypeName());
+        Object geoHashColumn = featureType.getUserData().get(PhoenixDialect.GEOHASH_COLUMN);
+        if (geoHashColumn == null)
+            throw new IllegalArgumentException("Geometry " + gd.getLocalName() + " of " + featureType.getTypeName() + " has no _GEOHASH column");
+        Query result = new Query(query);
+        SortBy[] sortBy = query.getSortBy() != null ? query.getSortBy() : new SortBy[0];
+        SortBy[] ordered = new SortBy[sortBy.length + 1];
+        ordered[0] = FF.sort(geoHashColumn.toString(), SortOrder.ASCENDING);
+        System.arraycopy(sortBy, 0, ordered, 1, sortBy.length);
+        result.setSortBy(ordered);
+        return result;
+    }
+
+    /**
+     * 判断查询结果是否按GeoHash的Z序输出：第一个排序条件为默认空间列的_GEOHASH列
+     * @param featureType 数据源中的要素类型，由用户数据中的{@link PhoenixDialect#GEOHASH_COLUMN}获取_GEOHASH列
+     * @param query
+     * @return
+     */
+    public static boolean isZOrdered(SimpleFeatureType featureType, Query query) {
+        Object geoHashColumn = featureType.getUserData().get(PhoenixDialect.GEOHASH_COLUMN);
+        SortBy[] sortBy = query.getSortBy();
+        if (geoHashColumn == null || sortBy == null || sortBy.length == 0 || sortBy[0] == null || sortBy[0].getPropertyName() == null)
+            return false;
+        return geoHashColumn.toString().equalsIgnoreCase(sortBy[0].getPropertyName().getPropertyName());
+    }
+}
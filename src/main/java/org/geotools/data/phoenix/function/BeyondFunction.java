@@ -0,0 +1,37 @@
+package org.geotools.data.phoenix.function;
+
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.parse.FunctionParseNode;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PVarbinary;
+import org.apache.phoenix.schema.types.PVarchar;
+
+import java.util.List;
+
+/**
+ * ST_BEYOND函数，两个几何对象间的距离大于阈值时返回1
+ * Created by Administrator on 2026/10/17.
+ */
+@FunctionParseNode.BuiltInFunction(name = BeyondFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class}), @FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class}), @FunctionParseNode.Argument(allowedTypes = {PDouble.class})})
+public class BeyondFunction extends DistancePredicateFunction {
+
+    protected final static String NAME = "ST_BEYOND";
+
+    public BeyondFunction() {
+
+    }
+
+    public BeyondFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected boolean relate(boolean within) {
+        return !within;
+    }
+}
@@ -0,0 +1,60 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.parse.FunctionParseNode;
+import org.apache.phoenix.schema.types.PVarbinary;
+import org.apache.phoenix.schema.types.PVarchar;
+
+import java.util.List;
+
+/**
+ * ST_COVERS函数
+ * Created by Administrator on 2026/10/17.
+ */
+@FunctionParseNode.BuiltInFunction(name = CoversFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class}), @FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class})})
+public class CoversFunction extends SpatialPredicateFunction {
+
+    protected final static String NAME = "ST_COVERS";
+
+    public CoversFunction() {
+
+    }
+
+    public CoversFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * A覆盖B时A的外包矩形必然覆盖B的外包矩形
+     */
+    @Override
+    protected Boolean relate(Envelope envOne, Envelope envTwo) {
+        return envOne.covers(envTwo) ? null : Boolean.FALSE;
+    }
+
+    @Override
+    protected boolean relate(Geometry geoOne, Geometry geoTwo) {
+        return geoOne.covers(geoTwo);
+    }
+
+    @Override
+    protected boolean relate(PreparedGeometry geoOne, Geometry geoTwo) {
+        return geoOne.covers(geoTwo);
+    }
+
+    /**
+     * A覆盖B等价于B被A覆盖
+     */
+    @Override
+    protected boolean relate(Geometry geoOne, PreparedGeometry geoTwo) {
+        return geoTwo.coveredBy(geoOne);
+    }
+}
@@ -0,0 +1,132 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.schema.IllegalDataException;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PInteger;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 距离关系判断函数的抽象基类，参数依次为两个几何对象和DOUBLE类型的距离阈值，满足关系时返回1，否则返回0
+ * 判断分为三步：外包矩形间的距离大于阈值时两者必然不在阈值内；两者均为点时外包矩形间的距离即为精确距离；
+ * 否则解码几何对象并使用isWithinDistance判断，一旦找到阈值内的点对即停止计算，而非求出完整的最短距离
+ * Created by Administrator on 2026/10/17.
+ */
+public abstract class DistancePredicateFunction extends GeometryFunction {
+    /**
+     * 逐行参数外包矩形的复用对象
+     */
+    private final Envelope envelopeOne = new Envelope();
+    private final Envelope envelopeTwo = new Envelope();
+
+    /**
+     * 常量阈值，只解析一次
+     */
+    private boolean distanceResolved;
+    private double constantDistance;
+
+    public DistancePredicateFunction() {
+
+    }
+
+    public DistancePredicateFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public void readFields(DataInput input) throws IOException {
+        super.readFields(input);
+        distanceResolved = false;
+    }
+
+    @Override
+    public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
+        double distance;
+        if (distanceResolved) {
+            distance = constantDistance;
+        } else {
+            Expression param = children.get(2);
+            if (!param.evaluate(tuple, ptr) || ptr.getLength() == 0)
+                return false;
+            distance = decodeDistance(param, ptr);
+            if (isConstantArgument(2)) {
+                constantDistance = distance;
+                distanceResolved = true;
+            }
+        }
+
+        Envelope envOne = getEnvelope(0, tuple, ptr, envelopeOne);
+        if (envOne == null)
+            return false;
+        Envelope envTwo = getEnvelope(1, tuple, ptr, envelopeTwo);
+        if (envTwo == null)
+            return false;
+        if (envOne.isNull() || envTwo.isNull()) {/*空几何对象与任何对象之间都没有距离*/
+            ptr.set(FALSE_BYTES);
+            return true;
+        }
+        boolean within;
+        if (envOne.distance(envTwo) > distance) {
+            within = false;
+        } else if (isPoint(envOne) && isPoint(envTwo)) {
+            within = true;
+        } else {
+            Geometry geoOne = getGeometry(0, tuple, ptr);
+            if (geoOne == null)
+                return false;
+            Geometry geoTwo = getGeometry(1, tuple, ptr);
+            if (geoTwo == null)
+                return false;
+            within = geoOne.isWithinDistance(geoTwo, distance);
+        }
+        ptr.set(relate(within) ? TRUE_BYTES : FALSE_BYTES);
+        return true;
+    }
+
+    private static boolean isPoint(Envelope envelope) {
+        return envelope.getWidth() == 0 && envelope.getHeight() == 0;
+    }
+
+    /**
+     * 解析距离阈值，DOUBLE类型直接解码，不分配对象
+     * @param param
+     * @param ptr
+     * @return
+     */
+    private static double decodeDistance(Expression param, ImmutableBytesWritable ptr) {
+        PDataType type = param.getDataType();
+        double distance;
+        if (type == PDouble.INSTANCE) {
+            distance = type.getCodec().decodeDouble(ptr, param.getSortOrder());
+        } else {
+            Object value = type.toObject(ptr, param.getSortOrder());
+            if (!(value instanceof Number))
+                throw new IllegalDataException("parse double parameter exception");
+            distance = ((Number) value).doubleValue();
+        }
+        if (distance < 0 || Double.isNaN(distance))
+            throw new IllegalDataException("distance must not be negative");
+        return distance;
+    }
+
+    /**
+     * 根据两者是否在距离阈值内（距离小于或等于阈值）得出函数结果
+     * @param within
+     * @return
+     */
+    protected abstract boolean relate(boolean within);
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public PDataType getDataType() {
+        return PInteger.INSTANCE;
+    }
+}
@@ -0,0 +1,37 @@
+package org.geotools.data.phoenix.function;
+
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.parse.FunctionParseNode;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PVarbinary;
+import org.apache.phoenix.schema.types.PVarchar;
+
+import java.util.List;
+
+/**
+ * ST_DWITHIN函数，两个几何对象间的距离小于或等于阈值时返回1
+ * Created by Administrator on 2026/10/17.
+ */
+@FunctionParseNode.BuiltInFunction(name = DwithinFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class}), @FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class}), @FunctionParseNode.Argument(allowedTypes = {PDouble.class})})
+public class DwithinFunction extends DistancePredicateFunction {
+
+    protected final static String NAME = "ST_DWITHIN";
+
+    public DwithinFunction() {
+
+    }
+
+    public DwithinFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected boolean relate(boolean within) {
+        return within;
+    }
+}
@@ -0,0 +1,57 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.util.ByteUtil;
+
+import java.util.List;
+
+/**
+ * 获取几何对象外包矩形某一边界坐标的函数的抽象基类，外包矩形直接从存储值中扫描，不构建几何对象
+ * 与Phoenix内置的MIN和MAX聚合函数组合即可在各Region上并行计算整张表的范围，几何对象为空时返回NULL
+ * Created by Administrator on 2026/10/17.
+ */
+public abstract class EnvelopeOrdinateFunction extends GeometryFunction {
+    /**
+     * 逐行参数外包矩形的复用对象
+     */
+    private final Envelope envelope = new Envelope();
+
+    public EnvelopeOrdinateFunction() {
+
+    }
+
+    public EnvelopeOrdinateFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
+        Envelope env = getEnvelope(0, tuple, ptr, envelope);
+        if (env == null)
+            return false;
+        if (env.isNull()) {
+            ptr.set(ByteUtil.EMPTY_BYTE_ARRAY);
+            return true;
+        }
+        ptr.set(PDouble.INSTANCE.toBytes(getOrdinate(env)));
+        return true;
+    }
+
+    /**
+     * 从外包矩形中取出该函数对应的边界坐标
+     * @param envelope 非空的外包矩形
+     * @return
+     */
+    protected abstract double getOrdinate(Envelope envelope);
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public PDataType getDataType() {
+        return PDouble.INSTANCE;
+    }
+}
@@ -0,0 +1,87 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.parse.FunctionParseNode;
+import org.apache.phoenix.schema.IllegalDataException;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.*;
+import org.apache.phoenix.util.ByteUtil;
+import org.geotools.data.phoenix.util.GeoHashConverter;
+
+import java.util.List;
+
+/**
+ * ST_GEOHASH_CELL函数，返回几何对象所在的指定长度GeoHash网格的编码（BIGINT），用于按网格分组聚合
+ * 第一个参数可以是空间列（取外包矩形的中心点，点数据即为其自身），也可以是已有的BIGINT类型的GEOHASH列，
+ * 后者无需解码几何对象；第二个参数为GeoHash字符长度，取值为[1, 12]
+ * Created by Administrator on 2026/10/17.
+ */
+@FunctionParseNode.BuiltInFunction(name = GeohashCellFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class, PLong.class}), @FunctionParseNode.Argument(allowedTypes = {PInteger.class})})
+public class GeohashCellFunction extends GeometryFunction {
+
+    protected final static String NAME = "ST_GEOHASH_CELL";
+
+    /**
+     * 逐行参数外包矩形的复用对象
+     */
+    private final Envelope envelope = new Envelope();
+
+    public GeohashCellFunction() {
+
+    }
+
+    public GeohashCellFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
+        Expression precisionArg = children.get(1);
+        if (!precisionArg.evaluate(tuple, ptr) || ptr.getLength() == 0)
+            return false;
+        int precision = precisionArg.getDataType().getCodec().decodeInt(ptr, precisionArg.getSortOrder());
+        if (precision < 1 || precision > GeoHashConverter.MAX_HASH_LENGTH)
+            throw new IllegalDataException("GeoHash precision must be in [1, " + GeoHashConverter.MAX_HASH_LENGTH + "]");
+
+        Expression arg = children.get(0);
+        long geoHash;
+        if (isGeometryType(arg.getDataType())) {
+            Envelope env = getEnvelope(0, tuple, ptr, envelope);
+            if (env == null)
+                return false;
+            if (env.isNull()) {
+                ptr.set(ByteUtil.EMPTY_BYTE_ARRAY);
+                return true;
+            }
+            geoHash = GeoHashConverter.longAndLatiToGeohash((env.getMinX() + env.getMaxX()) / 2, (env.getMinY() + env.getMaxY()) / 2);
+        } else {
+            if (!arg.evaluate(tuple, ptr) || ptr.getLength() == 0)
+                return false;
+            geoHash = arg.getDataType().getCodec().decodeLong(ptr, arg.getSortOrder());
+        }
+        ptr.set(PLong.INSTANCE.toBytes(GeoHashConverter.truncate(geoHash, precision)));
+        return true;
+    }
+
+    /**
+     * 判断参数是否为存储几何对象的类型
+     * @param type
+     * @return
+     */
+    private static boolean isGeometryType(PDataType type) {
+        return type == PVarbinary.INSTANCE || type == PBinary.INSTANCE || type == PVarchar.INSTANCE || type == PChar.INSTANCE;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public PDataType getDataType() {
+        return PLong.INSTANCE;
+    }
+}
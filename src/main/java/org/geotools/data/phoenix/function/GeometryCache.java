@@ -0,0 +1,312 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Geometry;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+/**
+ * RegionServer端解码后几何对象的LRU缓存，由同一JVM中所有空间函数共享
+ * 缓存以行键、列族、列名和单元格时间戳为键，更新后的单元格时间戳不同，因此对可变表同样正确；
+ * 命中时还会比对存储值本身，避免不同表中行键和时间戳恰好相同的单元格相互干扰
+ * 容量按估算的字节数而非条目数限制，可通过系统属性phoenix.geometry.cache.maxBytes设置，为0时关闭缓存
+ * 为降低多个处理线程之间的锁竞争，缓存被划分为若干段，每段独立加锁并独立淘汰
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeometryCache implements GeometryCacheMBean {
+    private final static Logger LOGGER = Logger.getLogger(GeometryCache.class.getName());
+
+    /**
+     * 设置缓存容量（字节）的系统属性
+     */
+    public final static String MAX_BYTES_PROPERTY = "phoenix.geometry.cache.maxBytes";
+    /**
+     * 默认缓存容量，64MB
+     */
+    public final static long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    /**
+     * 注册到JMX中的名称
+     */
+    public final static String OBJECT_NAME = "org.geotools.data.phoenix:type=GeometryCache";
+
+    private final static int SEGMENTS = 16;
+
+    private static volatile GeometryCache instance;
+
+    private final long maxBytes;
+    private final Segment[] segments;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * 获取本JVM共享的缓存实例，第一次调用时创建并注册到JMX
+     * @return
+     */
+    public static GeometryCache getInstance() {
+        GeometryCache cache = instance;
+        if (cache == null) {
+            synchronized (GeometryCache.class) {
+                cache = instance;
+                if (cache == null) {
+                    cache = new GeometryCache(Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+                    register(cache);
+                    instance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static void register(GeometryCache cache) {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+                ManagementFactory.getPlatformMBeanServer().registerMBean(cache, name);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not register geometry cache MBean", e);
+        }
+    }
+
+    /**
+     * @param maxBytes 缓存容量（字节），为0时不缓存任何对象
+     */
+    public GeometryCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(this.maxBytes / SEGMENTS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * 查找缓存的几何对象
+     * @param key 查找用的键，可以引用调用方的缓冲区
+     * @param value 存储值
+     * @param offset 存储值起始位置
+     * @param length 存储值长度
+     * @return 未命中时返回null
+     */
+    public Geometry get(Key key, byte[] value, int offset, int length) {
+        Entry entry = segmentFor(key).get(key);
+        if (entry != null && Bytes.equals(entry.value, 0, entry.value.length, value, offset, length)) {
+            hitCount.incrementAndGet();
+            return entry.geometry;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 缓存解码后的几何对象，超出容量时淘汰最久未使用的对象
+     * @param key 键，会被复制
+     * @param value 存储值
+     * @param offset 存储值起始位置
+     * @param length 存储值长度
+     * @param geometry 解码后的几何对象
+     */
+    public void put(Key key, byte[] value, int offset, int length, Geometry geometry) {
+        if (!isEnabled())
+            return;
+        Key copy = key.copy();
+        Entry entry = new Entry(Bytes.copy(value, offset, length), geometry, copy.estimateSize() + length + estimateSize(geometry));
+        segmentFor(copy).put(copy, entry);
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[(key.hashCode() & 0x7FFFFFFF) % SEGMENTS];
+    }
+
+    /**
+     * 估算几何对象占用的堆内存，每个坐标对象约40字节，每个几何对象及其坐标序列约100字节
+     * @param geometry
+     * @return
+     */
+    static long estimateSize(Geometry geometry) {
+        return 100L * (geometry.getNumGeometries() + 1) + 40L * geometry.getNumPoints();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getSize() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long getByteSize() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.byteSize();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "GeometryCache[size=" + getSize() + ", bytes=" + getByteSize() + "/" + maxBytes
+                + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    /**
+     * 缓存中的一段，按访问顺序排列以实现LRU淘汰
+     */
+    private class Segment {
+        private final long maxBytes;
+        private final LinkedHashMap<Key, Entry> map = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Entry get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            if (entry.size > maxBytes)
+                return;
+            Entry old = map.put(key, entry);
+            bytes += entry.size - (old != null ? old.size : 0);
+            Iterator<Map.Entry<Key, Entry>> iterator = map.entrySet().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                bytes -= iterator.next().getValue().size;
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long byteSize() {
+            return bytes;
+        }
+
+        synchronized void clear() {
+            map.clear();
+            bytes = 0;
+        }
+    }
+
+    private static class Entry {
+        final byte[] value;
+        final Geometry geometry;
+        final long size;
+
+        Entry(byte[] value, Geometry geometry, long size) {
+            this.value = value;
+            this.geometry = geometry;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 缓存的键，由行键、列族、列名和单元格时间戳组成
+     * 查找时可直接引用调用方的行键缓冲区并重复使用同一个对象，放入缓存时才复制
+     */
+    public static class Key {
+        private byte[] row;
+        private int rowOffset;
+        private int rowLength;
+        private byte[] family;
+        private byte[] qualifier;
+        private long timestamp;
+        private int hash;
+
+        /**
+         * 设置键的各部分
+         * @return this
+         */
+        public Key set(byte[] row, int rowOffset, int rowLength, byte[] family, byte[] qualifier, long timestamp) {
+            this.row = row;
+            this.rowOffset = rowOffset;
+            this.rowLength = rowLength;
+            this.family = family;
+            this.qualifier = qualifier;
+            this.timestamp = timestamp;
+            int h = Bytes.hashCode(row, rowOffset, rowLength);
+            h = 31 * h + Bytes.hashCode(qualifier);
+            this.hash = 31 * h + (int) (timestamp ^ (timestamp >>> 32));
+            return this;
+        }
+
+        Key copy() {
+            return new Key().set(Bytes.copy(row, rowOffset, rowLength), 0, rowLength, family, qualifier, timestamp);
+        }
+
+        long estimateSize() {
+            return 64L + rowLength + family.length + qualifier.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return hash == other.hash && timestamp == other.timestamp
+                    && Bytes.equals(row, rowOffset, rowLength, other.row, other.rowOffset, other.rowLength)
+                    && Bytes.equals(family, other.family) && Bytes.equals(qualifier, other.qualifier);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.geotools.data.phoenix.function;
+
+/**
+ * 几何对象缓存通过JMX暴露的统计信息
+ * Created by Administrator on 2026/10/17.
+ */
+public interface GeometryCacheMBean {
+    /**
+     * 命中次数
+     * @return
+     */
+    long getHitCount();
+
+    /**
+     * 未命中次数
+     * @return
+     */
+    long getMissCount();
+
+    /**
+     * 因容量不足被淘汰的对象数
+     * @return
+     */
+    long getEvictionCount();
+
+    /**
+     * 命中率
+     * @return
+     */
+    double getHitRatio();
+
+    /**
+     * 缓存的对象数
+     * @return
+     */
+    long getSize();
+
+    /**
+     * 估算的已占用字节数
+     * @return
+     */
+    long getByteSize();
+
+    /**
+     * 缓存容量（字节）
+     * @return
+     */
+    long getMaxBytes();
+
+    /**
+     * 清空缓存和统计信息
+     */
+    void clear();
+}
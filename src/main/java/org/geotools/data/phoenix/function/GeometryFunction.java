@@ -0,0 +1,255 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.expression.Determinism;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.function.ScalarFunction;
+import org.apache.phoenix.schema.IllegalDataException;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PChar;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.geotools.data.phoenix.util.EnvelopeScanner;
+import org.geotools.data.phoenix.util.GeometryCodec;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 空间函数的抽象基类，负责将参数解析为几何对象
+ * 空间参数可以是VARBINARY（WKB或TWKB编码的空间列）或VARCHAR（WKT编码的字面量或早期的空间列）
+ * 对于常量参数（如PhoenixFilterToSQL生成的几何字面量），每个函数实例只解析一次，之后各行直接复用；
+ * 对于表中的空间列，解码结果放入RegionServer端共享的{@link GeometryCache}，重复扫描同一行时不再解码
+ * Created by Administrator on 2026/10/17.
+ */
+public abstract class GeometryFunction extends ScalarFunction {
+    /**
+     * 函数结果为1和0时的编码，所有行共享，避免每行分配新的字节数组
+     */
+    protected final static byte[] TRUE_BYTES = PInteger.INSTANCE.toBytes(1);
+    protected final static byte[] FALSE_BYTES = PInteger.INSTANCE.toBytes(0);
+
+    /**
+     * 各参数是否为常量表达式
+     */
+    private boolean[] constants;
+    /**
+     * 常量参数解析后的几何对象，下标与参数位置对应
+     */
+    private Geometry[] constantGeometries;
+    /**
+     * 常量参数对应的预处理几何对象（带有线段索引），在整个扫描过程中只构建一次
+     */
+    private PreparedGeometry[] preparedGeometries;
+    /**
+     * 常量参数的外包矩形
+     */
+    private Envelope[] constantEnvelopes;
+
+    private final EnvelopeScanner scanner = new EnvelopeScanner();
+
+    /**
+     * 共享的几何对象缓存，只在RegionServer端逐行求值时才获取
+     */
+    private GeometryCache cache;
+    private final GeometryCache.Key cacheKey = new GeometryCache.Key();
+    private final ImmutableBytesWritable rowKey = new ImmutableBytesWritable();
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    private final WKTReader reader = new WKTReader(factory);
+
+    public GeometryFunction() {
+
+    }
+
+    public GeometryFunction(List<Expression> children) {
+        super(children);
+        init();
+    }
+
+    /**
+     * 函数在RegionServer端通过反序列化构造，此时需要重新初始化常量缓存
+     * @param input
+     * @throws IOException
+     */
+    @Override
+    public void readFields(DataInput input) throws IOException {
+        super.readFields(input);
+        init();
+    }
+
+    private void init() {
+        constants = new boolean[children.size()];
+        constantGeometries = new Geometry[children.size()];
+        preparedGeometries = new PreparedGeometry[children.size()];
+        constantEnvelopes = new Envelope[children.size()];
+        for (int i = 0; i < children.size(); i++) {
+            constants[i] = isConstant(children.get(i));
+        }
+    }
+
+    /**
+     * 判断表达式的值是否与行无关
+     * @param expression
+     * @return
+     */
+    protected static boolean isConstant(Expression expression) {
+        return expression.isStateless() && expression.getDeterminism() == Determinism.ALWAYS;
+    }
+
+    /**
+     * 判断指定位置的参数是否为常量
+     * @param index 参数位置
+     * @return
+     */
+    protected boolean isConstantArgument(int index) {
+        return constants[index];
+    }
+
+    /**
+     * 获取指定位置参数的几何对象，常量参数仅在第一次调用时解析
+     * @param index 参数位置
+     * @param tuple 当前行
+     * @param ptr
+     * @return 几何对象，参数无法求值或为空时返回null
+     */
+    protected Geometry getGeometry(int index, Tuple tuple, ImmutableBytesWritable ptr) {
+        Geometry geometry = constantGeometries[index];
+        if (geometry != null)
+            return geometry;
+        Expression param = children.get(index);
+        if (!param.evaluate(tuple, ptr) || ptr.getLength() == 0)
+            return null;
+        if (constants[index]) {
+            geometry = decodeGeometry(param, ptr);
+            constantGeometries[index] = geometry;
+            return geometry;
+        }
+        if (tuple != null && param instanceof KeyValueColumnExpression)
+            return getCachedGeometry((KeyValueColumnExpression) param, tuple, ptr);
+        return decodeGeometry(param, ptr);
+    }
+
+    /**
+     * 通过共享缓存获取空间列的几何对象，未命中时解码并放入缓存
+     * @param column 空间列
+     * @param tuple 当前行
+     * @param ptr 指向空间列取值的指针
+     * @return
+     */
+    private Geometry getCachedGeometry(KeyValueColumnExpression column, Tuple tuple, ImmutableBytesWritable ptr) {
+        if (cache == null)
+            cache = GeometryCache.getInstance();
+        Cell cell = cache.isEnabled() ? tuple.getValue(column.getColumnFamily(), column.getColumnName()) : null;
+        if (cell == null)
+            return decodeGeometry(column, ptr);
+        tuple.getKey(rowKey);
+        cacheKey.set(rowKey.get(), rowKey.getOffset(), rowKey.getLength(),
+                column.getColumnFamily(), column.getColumnName(), cell.getTimestamp());
+        Geometry geometry = cache.get(cacheKey, ptr.get(), ptr.getOffset(), ptr.getLength());
+        if (geometry == null) {
+            geometry = decodeGeometry(column, ptr);
+            cache.put(cacheKey, ptr.get(), ptr.getOffset(), ptr.getLength(), geometry);
+        }
+        return geometry;
+    }
+
+    /**
+     * 获取常量参数的预处理几何对象，用于加速与逐行变化的几何对象之间的空间关系判断
+     * @param index 参数位置，必须为常量参数
+     * @param tuple 当前行
+     * @param ptr
+     * @return 预处理几何对象，参数无法求值或为空时返回null
+     */
+    protected PreparedGeometry getPreparedGeometry(int index, Tuple tuple, ImmutableBytesWritable ptr) {
+        PreparedGeometry prepared = preparedGeometries[index];
+        if (prepared == null) {
+            Geometry geometry = getGeometry(index, tuple, ptr);
+            if (geometry == null)
+                return null;
+            prepared = PreparedGeometryFactory.prepare(geometry);
+            if (constants[index])
+                preparedGeometries[index] = prepared;
+        }
+        return prepared;
+    }
+
+    /**
+     * 获取指定位置参数的外包矩形，逐行变化的参数直接从存储值中扫描，不构建几何对象
+     * @param index 参数位置
+     * @param tuple 当前行
+     * @param ptr
+     * @param envelope 用于接收逐行参数外包矩形的对象，由调用方复用
+     * @return 外包矩形，常量参数返回缓存的外包矩形，几何对象为空时返回空矩形，参数无法求值时返回null
+     */
+    protected Envelope getEnvelope(int index, Tuple tuple, ImmutableBytesWritable ptr, Envelope envelope) {
+        Envelope constant = constantEnvelopes[index];
+        if (constant != null)
+            return constant;
+        if (constants[index]) {
+            Geometry geometry = getGeometry(index, tuple, ptr);
+            if (geometry == null)
+                return null;
+            constantEnvelopes[index] = geometry.getEnvelopeInternal();
+            return constantEnvelopes[index];
+        }
+        Expression param = children.get(index);
+        if (!param.evaluate(tuple, ptr) || ptr.getLength() == 0)
+            return null;
+        scanEnvelope(param, ptr, envelope);
+        return envelope;
+    }
+
+    /**
+     * 扫描参数当前取值的外包矩形
+     * @param param 参数表达式
+     * @param ptr 指向参数取值的指针
+     * @param envelope 用于接收结果的外包矩形
+     * @return 几何对象为空时返回false
+     */
+    protected boolean scanEnvelope(Expression param, ImmutableBytesWritable ptr, Envelope envelope) {
+        byte[] bytes = ptr.get();
+        int offset = ptr.getOffset();
+        if (param.getSortOrder() == SortOrder.DESC) {/*降序存储的字节经过取反，先还原为原始编码*/
+            bytes = SortOrder.invert(bytes, offset, ptr.getLength());
+            offset = 0;
+        }
+        try {
+            return scanner.scan(bytes, offset, ptr.getLength(), envelope);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalDataException("parse geometry exception");
+        }
+    }
+
+    /**
+     * 将参数当前的取值解析为几何对象
+     * @param param 参数表达式
+     * @param ptr 指向参数取值的指针
+     * @return
+     */
+    protected Geometry decodeGeometry(Expression param, ImmutableBytesWritable ptr) {
+        PDataType type = param.getDataType();
+        try {
+            if (type == PVarchar.INSTANCE || type == PChar.INSTANCE)
+                return reader.read((String) type.toObject(ptr, param.getSortOrder()));
+            if (param.getSortOrder() == SortOrder.DESC)/*降序存储的字节经过取反，先还原为原始编码*/
+                return GeometryCodec.decode(SortOrder.invert(ptr.get(), ptr.getOffset(), ptr.getLength()), 0, ptr.getLength(), factory);
+            return GeometryCodec.decode(ptr.get(), ptr.getOffset(), ptr.getLength(), factory);
+        } catch (ParseException e) {
+            throw new IllegalDataException("parse geometry exception");
+        }
+    }
+}
@@ -1,29 +1,32 @@
 package org.geotools.data.phoenix.function;
 
-import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.io.ParseException;
-import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.geom.Envelope;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.phoenix.expression.Expression;
-import org.apache.phoenix.expression.function.ScalarFunction;
 import org.apache.phoenix.parse.FunctionParseNode;
-import org.apache.phoenix.schema.IllegalDataException;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarbinary;
 import org.apache.phoenix.schema.types.PVarchar;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * ST_MBRINTERSECTS函数
+ * 只比较外包矩形：逐行的参数直接从存储值中扫描外包矩形，常量参数的外包矩形只计算一次，整个过程不构建几何对象
  * Created by Administrator on 2016/12/28.
  */
-@FunctionParseNode.BuiltInFunction(name = MbrintersectsFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarchar.class, PVarchar.class})})
-public class MbrintersectsFunction extends ScalarFunction {
+@FunctionParseNode.BuiltInFunction(name = MbrintersectsFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class}), @FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class})})
+public class MbrintersectsFunction extends GeometryFunction {
     public static final String NAME = "ST_MBRINTERSECTS";
 
+    /**
+     * 逐行参数外包矩形的复用对象
+     */
+    private final Envelope envelopeOne = new Envelope();
+    private final Envelope envelopeTwo = new Envelope();
+
     public MbrintersectsFunction() {}
 
     public MbrintersectsFunction(List<Expression> children) {
@@ -37,31 +40,13 @@ public class MbrintersectsFunction extends ScalarFunction {
 
     @Override
     public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
-        List<String> params = new ArrayList<>();
-        for (int i = 0; i < 2; i++) {
-            Expression param = children.get(i);
-            if (!param.evaluate(tuple, ptr))
-                return false;
-            params.add((String) PVarchar.INSTANCE.toObject(ptr, param.getDataType()));
-        }
-
-        Geometry geoOne, geoTwo;
-        try {
-            geoOne = new WKTReader().read(params.get(0));
-            geoTwo = new WKTReader().read(params.get(1));
-        } catch (ParseException e) {
-            throw new IllegalDataException("parse geometry-wkt exception");
-        }
-
-        if (geoOne != null && geoTwo != null) {
-            if (geoOne.getEnvelope() != null && geoTwo.getEnvelope() != null) {
-                getDataType().getCodec().encodeInt(geoOne.getEnvelope().intersects(geoTwo.getEnvelope()) ? 1 : 0, ptr);
-            } else {
-                throw new NullPointerException("geometry's envelope is null");
-            }
-        } else {
-            throw new IllegalDataException("parse geometry-wkt exception");
-        }
+        Envelope one = getEnvelope(0, tuple, ptr, envelopeOne);
+        if (one == null)
+            return false;
+        Envelope two = getEnvelope(1, tuple, ptr, envelopeTwo);
+        if (two == null)
+            return false;
+        ptr.set(one.intersects(two) ? TRUE_BYTES : FALSE_BYTES);
         return true;
     }
 
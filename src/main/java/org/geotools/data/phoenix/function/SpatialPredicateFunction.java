@@ -0,0 +1,121 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PInteger;
+
+import java.util.List;
+
+/**
+ * 两个几何对象之间空间关系判断函数的抽象基类，满足关系时返回1，否则返回0
+ * 判断分为两步：先比较直接从存储值中扫描得到的外包矩形，能够确定结果时不再解码几何对象；否则每个参数只解码一次并进行精确判断
+ * 当其中一个参数为常量时，对该参数构建预处理几何对象，逐行判断时不再重复构建其边图
+ * Created by Administrator on 2026/10/17.
+ */
+public abstract class SpatialPredicateFunction extends GeometryFunction {
+
+    /**
+     * 逐行参数外包矩形的复用对象
+     */
+    private final Envelope envelopeOne = new Envelope();
+    private final Envelope envelopeTwo = new Envelope();
+
+    public SpatialPredicateFunction() {
+
+    }
+
+    public SpatialPredicateFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
+        Envelope envOne = getEnvelope(0, tuple, ptr, envelopeOne);
+        if (envOne == null)
+            return false;
+        Envelope envTwo = getEnvelope(1, tuple, ptr, envelopeTwo);
+        if (envTwo == null)
+            return false;
+        Boolean result = relate(envOne, envTwo);
+        if (result != null) {
+            ptr.set(result ? TRUE_BYTES : FALSE_BYTES);
+            return true;
+        }
+        if (isConstantArgument(0) && !isConstantArgument(1)) {
+            PreparedGeometry geoOne = getPreparedGeometry(0, tuple, ptr);
+            if (geoOne == null)
+                return false;
+            Geometry geoTwo = getGeometry(1, tuple, ptr);
+            if (geoTwo == null)
+                return false;
+            result = relate(geoOne, geoTwo);
+        } else if (isConstantArgument(1) && !isConstantArgument(0)) {
+            Geometry geoOne = getGeometry(0, tuple, ptr);
+            if (geoOne == null)
+                return false;
+            PreparedGeometry geoTwo = getPreparedGeometry(1, tuple, ptr);
+            if (geoTwo == null)
+                return false;
+            result = relate(geoOne, geoTwo);
+        } else {
+            Geometry geoOne = getGeometry(0, tuple, ptr);
+            if (geoOne == null)
+                return false;
+            Geometry geoTwo = getGeometry(1, tuple, ptr);
+            if (geoTwo == null)
+                return false;
+            result = relate(geoOne, geoTwo);
+        }
+        ptr.set(result ? TRUE_BYTES : FALSE_BYTES);
+        return true;
+    }
+
+    /**
+     * 根据两个参数的外包矩形预先判断空间关系，默认外包矩形不相交时两者不满足关系
+     * @param envOne 第一个参数的外包矩形
+     * @param envTwo 第二个参数的外包矩形
+     * @return 能够确定结果时返回结果，否则返回null，此时进行精确判断
+     */
+    protected Boolean relate(Envelope envOne, Envelope envTwo) {
+        return envOne.intersects(envTwo) ? null : Boolean.FALSE;
+    }
+
+    /**
+     * 判断两个几何对象是否满足该函数对应的空间关系
+     * @param geoOne 第一个参数
+     * @param geoTwo 第二个参数
+     * @return
+     */
+    protected abstract boolean relate(Geometry geoOne, Geometry geoTwo);
+
+    /**
+     * 第一个参数为常量时的空间关系判断，子类可利用预处理几何对象加速，默认退化为普通判断
+     * @param geoOne 第一个参数的预处理几何对象
+     * @param geoTwo 第二个参数
+     * @return
+     */
+    protected boolean relate(PreparedGeometry geoOne, Geometry geoTwo) {
+        return relate(geoOne.getGeometry(), geoTwo);
+    }
+
+    /**
+     * 第二个参数为常量时的空间关系判断，子类可利用预处理几何对象加速，默认退化为普通判断
+     * @param geoOne 第一个参数
+     * @param geoTwo 第二个参数的预处理几何对象
+     * @return
+     */
+    protected boolean relate(Geometry geoOne, PreparedGeometry geoTwo) {
+        return relate(geoOne, geoTwo.getGeometry());
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public PDataType getDataType() {
+        return PInteger.INSTANCE;
+    }
+}
@@ -0,0 +1,37 @@
+package org.geotools.data.phoenix.function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.parse.FunctionParseNode;
+import org.apache.phoenix.schema.types.PVarbinary;
+import org.apache.phoenix.schema.types.PVarchar;
+
+import java.util.List;
+
+/**
+ * ST_YMAX函数，返回几何对象外包矩形的最大Y坐标
+ * Created by Administrator on 2026/10/17.
+ */
+@FunctionParseNode.BuiltInFunction(name = YmaxFunction.NAME, args = {@FunctionParseNode.Argument(allowedTypes = {PVarbinary.class, PVarchar.class})})
+public class YmaxFunction extends EnvelopeOrdinateFunction {
+
+    protected final static String NAME = "ST_YMAX";
+
+    public YmaxFunction() {
+
+    }
+
+    public YmaxFunction(List<Expression> children) {
+        super(children);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected double getOrdinate(Envelope envelope) {
+        return envelope.getMaxY();
+    }
+}
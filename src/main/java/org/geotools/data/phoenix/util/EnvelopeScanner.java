@@ -0,0 +1,351 @@
+package org.geotools.data.phoenix.util;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.geotools.data.phoenix.util.TWKBWriter.*;
+
+/**
+ * 直接从存储值的字节中扫描坐标并计算外包矩形，不构建几何对象
+ * 支持WKB（含EWKB与ISO的Z/M标志）、TWKB（带外包矩形时只读取头部）以及WKT文本，扫描过程中不分配对象，
+ * 因此适合在RegionServer端对每一行做外包矩形的预过滤
+ * 由于扫描过程中保存游标状态，该类的实例不是线程安全的
+ * Created by Administrator on 2026/10/17.
+ */
+public class EnvelopeScanner {
+    /**
+     * 可以精确表示的10的幂次，用于快速且正确舍入地解析十进制数
+     */
+    private final static double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+    private boolean bigEndian;
+    private double minX, minY, maxX, maxY;
+    private long lastX, lastY;
+
+    /**
+     * 扫描存储值的外包矩形
+     * @param bytes 字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     * @param envelope 用于接收结果的外包矩形，会被重新初始化
+     * @return 几何对象为空时返回false，此时envelope为空矩形
+     * @throws IllegalArgumentException 存储值不完整或无法识别
+     */
+    public boolean scan(byte[] bytes, int offset, int length, Envelope envelope) {
+        buf = bytes;
+        pos = offset;
+        end = offset + length;
+        minX = minY = Double.POSITIVE_INFINITY;
+        maxX = maxY = Double.NEGATIVE_INFINITY;
+        try {
+            switch (GeometryCodec.detect(bytes, offset, length)) {
+                case WKB:
+                    scanWKB();
+                    break;
+                case TWKB:
+                    scanTWKB();
+                    break;
+                default:
+                    scanWKT();
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Unexpected end of geometry data");
+        } finally {
+            buf = null;
+        }
+        if (minX > maxX) {
+            envelope.setToNull();
+            return false;
+        }
+        envelope.init(minX, maxX, minY, maxY);
+        return true;
+    }
+
+    private void expand(double x, double y) {
+        /*空点在WKB中以NaN表示*/
+        if (Double.isNaN(x) || Double.isNaN(y))
+            return;
+        if (x < minX) minX = x;
+        if (x > maxX) maxX = x;
+        if (y < minY) minY = y;
+        if (y > maxY) maxY = y;
+    }
+
+    private int readByte() {
+        if (pos >= end)
+            throw new ArrayIndexOutOfBoundsException(pos);
+        return buf[pos++] & 0xFF;
+    }
+
+    private void skip(int count) {
+        if (pos + count > end)
+            throw new ArrayIndexOutOfBoundsException(pos + count);
+        pos += count;
+    }
+
+    /*------------------------------ WKB ------------------------------*/
+
+    private void scanWKB() {
+        bigEndian = readByte() == 0;
+        int typeInt = readInt();
+        int type = typeInt & 0xFFFF;
+        boolean hasZ = (typeInt & 0x80000000) != 0;
+        boolean hasM = (typeInt & 0x40000000) != 0;
+        if ((typeInt & 0x20000000) != 0)/*EWKB的SRID*/
+            skip(4);
+        if (type >= 1000) {/*ISO WKB的维度编码*/
+            int dimension = type / 1000;
+            type %= 1000;
+            hasZ = dimension == 1 || dimension == 3;
+            hasM = dimension == 2 || dimension == 3;
+        }
+        int extra = ((hasZ ? 1 : 0) + (hasM ? 1 : 0)) * 8;
+        switch (type) {
+            case POINT:
+                scanWKBCoordinates(1, extra);
+                break;
+            case LINESTRING:
+                scanWKBCoordinates(readInt(), extra);
+                break;
+            case POLYGON:
+                for (int rings = readInt(); rings > 0; rings--) {
+                    scanWKBCoordinates(readInt(), extra);
+                }
+                break;
+            case MULTIPOINT:
+            case MULTILINESTRING:
+            case MULTIPOLYGON:
+            case GEOMETRYCOLLECTION:
+                for (int parts = readInt(); parts > 0; parts--) {
+                    scanWKB();
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown WKB geometry type: " + type);
+        }
+    }
+
+    private void scanWKBCoordinates(int count, int extra) {
+        for (int i = 0; i < count; i++) {
+            double x = Double.longBitsToDouble(readLong());
+            double y = Double.longBitsToDouble(readLong());
+            expand(x, y);
+            skip(extra);
+        }
+    }
+
+    private int readInt() {
+        int b0 = readByte(), b1 = readByte(), b2 = readByte(), b3 = readByte();
+        if (bigEndian)
+            return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+        return (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+    }
+
+    private long readLong() {
+        long high = readInt() & 0xFFFFFFFFL;
+        long low = readInt() & 0xFFFFFFFFL;
+        return bigEndian ? (high << 32) | low : (low << 32) | high;
+    }
+
+    /*------------------------------ TWKB ------------------------------*/
+
+    private void scanTWKB() {
+        int header = readByte();
+        int type = header & 0x0F;
+        double scale = Math.pow(10, TWKBReader.unzigzag((header >> 4) & 0x0F));
+        int metadata = readByte();
+        int extra = 0;
+        if ((metadata & FLAG_EXTENDED_DIMS) != 0) {
+            int dims = readByte();
+            extra = (dims & 0x01) + ((dims & 0x02) >> 1);
+        }
+        if ((metadata & FLAG_SIZE) != 0)
+            readVarLong();
+        if ((metadata & FLAG_BBOX) != 0) {
+            /*头部已有外包矩形，无需读取坐标*/
+            long x = TWKBReader.unzigzag(readVarLong());
+            long dx = TWKBReader.unzigzag(readVarLong());
+            long y = TWKBReader.unzigzag(readVarLong());
+            long dy = TWKBReader.unzigzag(readVarLong());
+            expand(x / scale, y / scale);
+            expand((x + dx) / scale, (y + dy) / scale);
+            return;
+        }
+        if ((metadata & FLAG_EMPTY) != 0)
+            return;
+
+        lastX = 0;
+        lastY = 0;
+        boolean hasIdList = (metadata & FLAG_ID_LIST) != 0;
+        switch (type) {
+            case POINT:
+                scanTWKBCoordinates(1, extra, scale);
+                break;
+            case LINESTRING:
+                scanTWKBCoordinates((int) readVarLong(), extra, scale);
+                break;
+            case POLYGON:
+                scanTWKBPolygon(extra, scale);
+                break;
+            case MULTIPOINT:
+            case MULTILINESTRING:
+            case MULTIPOLYGON: {
+                int parts = readTWKBCount(hasIdList);
+                for (int i = 0; i < parts; i++) {
+                    if (type == MULTIPOINT)
+                        scanTWKBCoordinates(1, extra, scale);
+                    else if (type == MULTILINESTRING)
+                        scanTWKBCoordinates((int) readVarLong(), extra, scale);
+                    else
+                        scanTWKBPolygon(extra, scale);
+                }
+                break;
+            }
+            case GEOMETRYCOLLECTION: {
+                int parts = readTWKBCount(hasIdList);
+                for (int i = 0; i < parts; i++) {
+                    scanTWKB();
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown TWKB geometry type: " + type);
+        }
+    }
+
+    private void scanTWKBPolygon(int extra, double scale) {
+        for (int rings = (int) readVarLong(); rings > 0; rings--) {
+            scanTWKBCoordinates((int) readVarLong(), extra, scale);
+        }
+    }
+
+    private int readTWKBCount(boolean hasIdList) {
+        int count = (int) readVarLong();
+        if (hasIdList) {
+            for (int i = 0; i < count; i++) {
+                readVarLong();
+            }
+        }
+        return count;
+    }
+
+    private void scanTWKBCoordinates(int count, int extra, double scale) {
+        for (int i = 0; i < count; i++) {
+            lastX += TWKBReader.unzigzag(readVarLong());
+            lastY += TWKBReader.unzigzag(readVarLong());
+            expand(lastX / scale, lastY / scale);
+            for (int j = 0; j < extra; j++) {
+                readVarLong();
+            }
+        }
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /*------------------------------ WKT ------------------------------*/
+
+    /**
+     * 每个坐标的前两个数值为X和Y，遇到逗号或括号时开始新的坐标，其余关键字直接跳过
+     */
+    private void scanWKT() {
+        int ordinate = 0;
+        double x = 0;
+        while (pos < end) {
+            int c = buf[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.') {
+                double value = readNumber();
+                if (ordinate == 0)
+                    x = value;
+                else if (ordinate == 1)
+                    expand(x, value);
+                ordinate++;
+                continue;
+            }
+            if (c == ',' || c == '(' || c == ')')
+                ordinate = 0;
+            pos++;
+        }
+    }
+
+    /**
+     * 解析十进制数，有效数字不超过18位且指数较小时直接计算（结果与Double.parseDouble一致），否则回退到Double.parseDouble
+     * @return
+     */
+    private double readNumber() {
+        int start = pos;
+        boolean negative = false;
+        if (buf[pos] == '-' || buf[pos] == '+') {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean exact = true;
+        for (; pos < end; pos++) {
+            int c = buf[pos];
+            if (c >= '0' && c <= '9') {
+                if (mantissa == 0 && c == '0') {
+                    if (fraction)
+                        exponent--;
+                    continue;
+                }
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (fraction)
+                        exponent--;
+                } else {
+                    exact = false;
+                    if (!fraction)
+                        exponent++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+                negativeExponent = buf[pos] == '-';
+                pos++;
+            }
+            int value = 0;
+            for (; pos < end && buf[pos] >= '0' && buf[pos] <= '9'; pos++) {
+                if (value < 10000)
+                    value = value * 10 + (buf[pos] - '0');
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (exact && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            double value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in WKT");
+        }
+    }
+}
@@ -97,6 +97,47 @@ public class GeoHashConverter {
         return new double[]{resultLon, resultLat};
     }
 
+    /**
+     * 函数功能：将long类型的GeoHash截断为指定长度，得到其所在网格的编码
+     *
+     * @param geoHash   long类型的GeoHash值
+     * @param precision GeoHash字符长度，取值为[1, MAX_HASH_LENGTH]
+     * @return 网格编码，即只保留高5 * precision位的GeoHash值
+     */
+    public static long truncate(long geoHash, int precision) {
+        checkPrecision(precision);
+        return geoHash & (0x8000000000000000L >> (5 * precision - 1));
+    }
+
+    /**
+     * 函数功能：获取网格编码对应的经纬度范围
+     *
+     * @param cell      网格编码
+     * @param precision GeoHash字符长度，取值为[1, MAX_HASH_LENGTH]
+     * @return 依次为最小经度、最小纬度、最大经度、最大纬度
+     */
+    public static double[] cellBounds(long cell, int precision) {
+        checkPrecision(precision);
+        boolean isEven = true;
+        double[] lat = {-90.0, 90.0};
+        double[] lon = {-180.0, 180.0};
+        long bit = 0x8000000000000000L;
+        for (int i = 0; i < 5 * precision; i++) {
+            if (isEven)
+                refineInterval(lon, (cell & bit) != 0);
+            else
+                refineInterval(lat, (cell & bit) != 0);
+            isEven = !isEven;
+            bit >>>= 1;
+        }
+        return new double[]{lon[0], lat[0], lon[1], lat[1]};
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < 1 || precision > MAX_HASH_LENGTH)
+            throw new IllegalArgumentException("GeoHash precision must be in [1, " + MAX_HASH_LENGTH + "]: " + precision);
+    }
+
     /**
      * Refines interval by a factor or 2 in either the 0 or 1 ordinate.
      *
@@ -0,0 +1,404 @@
+package org.geotools.data.phoenix.util;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 计算覆盖查询范围的GeoHash键范围，用于将空间过滤条件下推为_GEOHASH列上的范围条件
+ * 网格按位划分（每一位交替细分经度和纬度），选择在网格数预算内最精细的一层，
+ * 将相邻网格合并为连续区间后，若区间数仍超出预算，则依次合并代价最小的相邻区间
+ * 对任意几何对象，还可以从外包矩形的网格出发逐层细分，丢弃与几何对象不相交的网格，
+ * 使斜向的带状多边形等只覆盖其实际经过的网格，而不是整个外包矩形
+ * 覆盖结果可能包含查询范围以外的行，因此下推的范围条件只是粗过滤，仍需空间函数做精确判断；
+ * 但完全位于查询范围内部的网格可以标记为内部区间，其中的点无需空间函数即满足条件
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeoHashCover {
+    /**
+     * GeoHash的有效位数
+     */
+    public final static int MAX_BITS = 5 * GeoHashConverter.MAX_HASH_LENGTH;
+    /**
+     * 默认的键范围个数上限
+     */
+    public final static int DEFAULT_MAX_RANGES = 32;
+
+    /**
+     * 默认细分到的GeoHash字符长度
+     */
+    public final static int DEFAULT_MAX_PRECISION = GeoHashConverter.MAX_HASH_LENGTH;
+
+    /**
+     * 合并前允许的网格数为区间数上限的倍数
+     */
+    private final static int CELLS_PER_RANGE = 4;
+    /**
+     * 预分裂点对齐到的GeoHash位数，即6个字符的前缀
+     */
+    private final static int SPLIT_BITS = 30;
+
+    /**
+     * 网格被判定为内部网格的方式
+     */
+    public enum Interior {
+        /**
+         * 不区分内部网格
+         */
+        NONE,
+        /**
+         * 网格（含边界）被查询范围覆盖，用于相交判断
+         */
+        COVERS,
+        /**
+         * 网格（含边界）位于查询范围的内部，不接触其边界，用于包含判断
+         */
+        CONTAINS_PROPERLY
+    }
+
+    private GeoHashCover() {
+
+    }
+
+    /**
+     * 计算覆盖外包矩形的GeoHash键范围
+     * 经纬度超出取值范围的坐标在计算GeoHash时被归入边缘的网格，因此矩形先被裁剪到经纬度范围内
+     * @param envelope 查询范围
+     * @param maxRanges 区间个数上限
+     * @return 按升序排列且互不相交的区间，矩形为空时返回空列表
+     */
+    public static List<GeoHashRange> cover(Envelope envelope, int maxRanges) {
+        return cover(envelope, Interior.NONE, maxRanges);
+    }
+
+    /**
+     * 计算覆盖外包矩形的GeoHash键范围，并按指定方式标记内部区间
+     * @param envelope 查询范围
+     * @param interior 内部网格的判定方式
+     * @param maxRanges 区间个数上限
+     * @return 按升序排列且互不相交的区间，矩形为空时返回空列表
+     */
+    public static List<GeoHashRange> cover(Envelope envelope, Interior interior, int maxRanges) {
+        if (maxRanges < 1)
+            throw new IllegalArgumentException("maxRanges must be positive: " + maxRanges);
+        if (envelope == null || envelope.isNull())
+            return Collections.emptyList();
+        int bits = coverBits(envelope, (long) maxRanges * CELLS_PER_RANGE, MAX_BITS);
+        List<GeoHashRange> ranges = new ArrayList<>();
+        for (long cell : envelopeCells(envelope, bits)) {
+            Envelope cellEnvelope = cellEnvelope(cell, bits);
+            boolean inside = interior == Interior.COVERS ? envelope.covers(cellEnvelope)
+                    : cellEnvelope.getMinX() > envelope.getMinX() && cellEnvelope.getMaxX() < envelope.getMaxX()
+                    && cellEnvelope.getMinY() > envelope.getMinY() && cellEnvelope.getMaxY() < envelope.getMaxY();
+            ranges.add(GeoHashRange.ofCell(cell, bits, interior != Interior.NONE && inside && !onWorldBorder(cell, bits)));
+        }
+        return merge(ranges, maxRanges);
+    }
+
+    /**
+     * 计算将预期范围内的GeoHash键均分为若干个Region的分裂点，用于预分裂以_GEOHASH列开头的表
+     * 先覆盖预期范围，再在覆盖区间的键上按键的个数等分，区间之间的空隙不计入；
+     * 分裂点向下对齐到GeoHash前缀的网格边界，同一网格内的点不会被分到两个Region
+     * @param envelope 预期的数据范围
+     * @param regions Region个数
+     * @return 严格升序的分裂点，个数不超过regions - 1，矩形为空或Region个数小于2时返回空数组
+     */
+    public static long[] splitPoints(Envelope envelope, int regions) {
+        if (regions < 2 || envelope == null || envelope.isNull())
+            return new long[0];
+        List<GeoHashRange> ranges = cover(envelope, regions * CELLS_PER_RANGE);
+        double total = 0;
+        for (GeoHashRange range : ranges) {
+            total += span(range);
+        }
+        long mask = -1L << (64 - SPLIT_BITS);
+        long[] points = new long[regions - 1];
+        int count = 0, i = 0;
+        double before = 0;/*当前区间之前的键个数*/
+        for (int k = 1; k < regions; k++) {
+            double target = total * k / regions;
+            while (i + 1 < ranges.size() && before + span(ranges.get(i)) <= target) {
+                before += span(ranges.get(i++));
+            }
+            long point = (long) ((double) ranges.get(i).getMin() + (target - before)) & mask;
+            if (count == 0 || point > points[count - 1])
+                points[count++] = point;
+        }
+        return Arrays.copyOf(points, count);
+    }
+
+    private static double span(GeoHashRange range) {
+        return (double) range.getMax() - (double) range.getMin() + 1;
+    }
+
+    /**
+     * 计算覆盖几何对象的GeoHash键范围：从外包矩形的网格出发逐层细分与几何对象边界相交的网格，
+     * 被几何对象完全覆盖的网格不再细分，与几何对象不相交的网格被丢弃，直到网格数超出预算或达到指定的精度
+     * 点、矩形以及超出经纬度范围的几何对象直接按外包矩形覆盖
+     * @param geometry 查询几何对象
+     * @param maxPrecision 细分到的GeoHash字符长度，取值为[1, 12]
+     * @param maxRanges 区间个数上限
+     * @return 按升序排列且互不相交的区间，几何对象为空时返回空列表
+     */
+    public static List<GeoHashRange> cover(Geometry geometry, int maxPrecision, int maxRanges) {
+        return cover(geometry, Interior.NONE, maxPrecision, maxRanges);
+    }
+
+    /**
+     * 计算覆盖几何对象的GeoHash键范围，并按指定方式标记内部区间
+     * @param geometry 查询几何对象
+     * @param interior 内部网格的判定方式
+     * @param maxPrecision 细分到的GeoHash字符长度，取值为[1, 12]
+     * @param maxRanges 区间个数上限
+     * @return 按升序排列且互不相交的区间，几何对象为空时返回空列表
+     */
+    public static List<GeoHashRange> cover(Geometry geometry, Interior interior, int maxPrecision, int maxRanges) {
+        if (maxRanges < 1)
+            throw new IllegalArgumentException("maxRanges must be positive: " + maxRanges);
+        if (maxPrecision < 1 || maxPrecision > GeoHashConverter.MAX_HASH_LENGTH)
+            throw new IllegalArgumentException("GeoHash precision must be in [1, " + GeoHashConverter.MAX_HASH_LENGTH + "]: " + maxPrecision);
+        if (geometry == null || geometry.isEmpty())
+            return Collections.emptyList();
+        Envelope envelope = geometry.getEnvelopeInternal();
+        if (geometry.getDimension() == 0 || geometry.isRectangle() || envelope.getMinX() < -180 || envelope.getMaxX() > 180
+                || envelope.getMinY() < -90 || envelope.getMaxY() > 90)
+            return cover(envelope, geometry.isRectangle() ? interior : Interior.NONE, maxRanges);
+
+        long maxCells = (long) maxRanges * CELLS_PER_RANGE;
+        int maxBits = 5 * maxPrecision;
+        int bits = coverBits(envelope, maxRanges, maxBits);
+        PreparedGeometry prepared = PreparedGeometryFactory.prepare(geometry);
+        List<GeoHashRange> inner = new ArrayList<>();
+        List<Long> boundary = new ArrayList<>();
+        classify(prepared, interior, envelopeCells(envelope, bits), bits, inner, boundary);
+
+        /*逐位细分边界网格，细分后网格数超出预算时保留上一层的结果*/
+        while (bits < maxBits && !boundary.isEmpty()) {
+            List<Long> children = new ArrayList<>(boundary.size() * 2);
+            for (long cell : boundary) {
+                children.add(cell);
+                children.add(cell | (1L << (63 - bits)));
+            }
+            List<GeoHashRange> nextInner = new ArrayList<>(inner);
+            List<Long> nextBoundary = new ArrayList<>();
+            classify(prepared, interior, children, bits + 1, nextInner, nextBoundary);
+            if (nextInner.size() + nextBoundary.size() > maxCells)
+                break;
+            inner = nextInner;
+            boundary = nextBoundary;
+            bits++;
+        }
+
+        List<GeoHashRange> ranges = new ArrayList<>(inner);
+        for (long cell : boundary) {
+            ranges.add(GeoHashRange.ofCell(cell, bits));
+        }
+        return merge(ranges, maxRanges);
+    }
+
+    /**
+     * 将网格分为无需再细分的内部网格和与几何对象边界相交的边界网格，丢弃不相交的网格
+     * 按CONTAINS_PROPERLY判定时，接触几何对象边界的网格仍作为边界网格继续细分
+     * @param prepared 预处理后的查询几何对象
+     * @param interior 内部网格的判定方式，为NONE时被覆盖的网格不再细分但不标记为内部区间
+     * @param cells 网格编码
+     * @param bits 网格编码的有效位数
+     * @param inner 接收内部网格的区间
+     * @param boundary 接收边界网格的编码
+     */
+    private static void classify(PreparedGeometry prepared, Interior interior, List<Long> cells, int bits, List<GeoHashRange> inner, List<Long> boundary) {
+        for (long cell : cells) {
+            Geometry polygon = prepared.getGeometry().getFactory().toGeometry(cellEnvelope(cell, bits));
+            boolean inside = interior == Interior.CONTAINS_PROPERLY ? prepared.containsProperly(polygon) : prepared.covers(polygon);
+            if (inside)
+                inner.add(GeoHashRange.ofCell(cell, bits, interior != Interior.NONE && !onWorldBorder(cell, bits)));
+            else if (prepared.intersects(polygon))
+                boundary.add(cell);
+        }
+    }
+
+    /**
+     * 判断网格是否位于经纬度范围的边缘，超出经纬度范围的坐标在计算GeoHash时被归入边缘的网格，
+     * 因此边缘网格中的点不一定位于网格范围内，不能作为内部网格
+     * @param cell
+     * @param bits
+     * @return
+     */
+    private static boolean onWorldBorder(long cell, int bits) {
+        int x = lonIndex(cell, bits), y = latIndex(cell, bits);
+        return x == 0 || y == 0 || x == (1 << ((bits + 1) / 2)) - 1 || y == (1 << (bits / 2)) - 1;
+    }
+
+    /**
+     * 取覆盖外包矩形的网格数不超过预算的最大位数，网格数随位数单调增加
+     * @param envelope
+     * @param maxCells 网格数预算
+     * @param maxBits 位数上限
+     * @return
+     */
+    private static int coverBits(Envelope envelope, long maxCells, int maxBits) {
+        long low = lowCorner(envelope), high = highCorner(envelope);
+        int bits = 1;
+        while (bits < maxBits && cellCount(low, high, bits + 1) <= maxCells) {
+            bits++;
+        }
+        return bits;
+    }
+
+    /**
+     * 列出指定位数下覆盖外包矩形的网格
+     * @param envelope
+     * @param bits
+     * @return
+     */
+    private static List<Long> envelopeCells(Envelope envelope, int bits) {
+        long low = lowCorner(envelope), high = highCorner(envelope);
+        int x0 = lonIndex(low, bits), x1 = lonIndex(high, bits);
+        int y0 = latIndex(low, bits), y1 = latIndex(high, bits);
+        List<Long> cells = new ArrayList<>();
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                cells.add(cell(x, y, bits));
+            }
+        }
+        return cells;
+    }
+
+    private static long lowCorner(Envelope envelope) {
+        return GeoHashConverter.longAndLatiToGeohash(clamp(envelope.getMinX(), 180), clamp(envelope.getMinY(), 90));
+    }
+
+    private static long highCorner(Envelope envelope) {
+        return GeoHashConverter.longAndLatiToGeohash(clamp(envelope.getMaxX(), 180), clamp(envelope.getMaxY(), 90));
+    }
+
+    /**
+     * 获取网格的经纬度范围
+     * @param cell 网格编码
+     * @param bits 网格编码的有效位数
+     * @return
+     */
+    static Envelope cellEnvelope(long cell, int bits) {
+        double width = 360.0 / (1L << ((bits + 1) / 2));
+        double height = 180.0 / (1L << (bits / 2));
+        double minX = -180 + lonIndex(cell, bits) * width;
+        double minY = -90 + latIndex(cell, bits) * height;
+        return new Envelope(minX, minX + width, minY, minY + height);
+    }
+
+    /**
+     * 排序并合并区间：先合并重叠或相邻的同类区间，再合并代价最小的相邻区间直到不超过上限
+     * 合并后的区间只有在两个内部区间直接相邻时仍为内部区间，否则其中包含了不在查询范围内部的键，成为边界区间
+     * @param ranges 区间列表，会被排序
+     * @param maxRanges 区间个数上限
+     * @return
+     */
+    public static List<GeoHashRange> merge(List<GeoHashRange> ranges, int maxRanges) {
+        Collections.sort(ranges);
+        List<GeoHashRange> merged = new ArrayList<>(ranges.size());
+        for (GeoHashRange range : ranges) {
+            int last = merged.size() - 1;
+            if (last >= 0 && adjacent(merged.get(last), range) && merged.get(last).isInterior() == range.isInterior())
+                merged.set(last, new GeoHashRange(merged.get(last).getMin(), Math.max(merged.get(last).getMax(), range.getMax()), range.isInterior()));
+            else
+                merged.add(range);
+        }
+        while (merged.size() > maxRanges) {
+            int closest = 0;
+            double cost = Double.MAX_VALUE;
+            for (int i = 0; i + 1 < merged.size(); i++) {
+                double current = mergeCost(merged.get(i), merged.get(i + 1));
+                if (current < cost) {
+                    cost = current;
+                    closest = i;
+                }
+            }
+            GeoHashRange previous = merged.get(closest), next = merged.get(closest + 1);
+            boolean interior = previous.isInterior() && next.isInterior() && adjacent(previous, next);
+            merged.set(closest, new GeoHashRange(previous.getMin(), Math.max(previous.getMax(), next.getMax()), interior));
+            merged.remove(closest + 1);
+        }
+        return merged;
+    }
+
+    /**
+     * 合并两个区间的代价：间隔中的键需要被额外扫描，被降为边界区间的内部区间中的键需要额外执行空间函数
+     * @param previous
+     * @param next
+     * @return
+     */
+    private static double mergeCost(GeoHashRange previous, GeoHashRange next) {
+        double cost = (double) next.getMin() - (double) previous.getMax() - 1;
+        if (previous.isInterior() != next.isInterior() || (previous.isInterior() && cost > 0)) {
+            if (previous.isInterior())
+                cost += (double) previous.getMax() - (double) previous.getMin() + 1;
+            if (next.isInterior())
+                cost += (double) next.getMax() - (double) next.getMin() + 1;
+        }
+        return cost;
+    }
+
+    private static boolean adjacent(GeoHashRange previous, GeoHashRange next) {
+        return previous.getMax() == Long.MAX_VALUE || previous.getMax() + 1 >= next.getMin();
+    }
+
+    private static double clamp(double value, double limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+
+    private static long cellCount(long low, long high, int bits) {
+        return (long) (lonIndex(high, bits) - lonIndex(low, bits) + 1) * (latIndex(high, bits) - latIndex(low, bits) + 1);
+    }
+
+    /**
+     * 获取GeoHash在指定位数的网格中的经度方向序号，GeoHash的偶数位（从最高位起）为经度位
+     * @param hash
+     * @param bits
+     * @return
+     */
+    static int lonIndex(long hash, int bits) {
+        return deinterleave(hash, 0, bits);
+    }
+
+    /**
+     * 获取GeoHash在指定位数的网格中的纬度方向序号，GeoHash的奇数位（从最高位起）为纬度位
+     * @param hash
+     * @param bits
+     * @return
+     */
+    static int latIndex(long hash, int bits) {
+        return deinterleave(hash, 1, bits);
+    }
+
+    private static int deinterleave(long hash, int start, int bits) {
+        int index = 0;
+        for (int i = start; i < bits; i += 2) {
+            index = (index << 1) | (int) ((hash >>> (63 - i)) & 1);
+        }
+        return index;
+    }
+
+    /**
+     * 由经度和纬度方向的序号构造指定位数的网格编码
+     * @param x 经度方向序号
+     * @param y 纬度方向序号
+     * @param bits 网格编码的有效位数
+     * @return
+     */
+    static long cell(int x, int y, int bits) {
+        int lonBits = (bits + 1) / 2;
+        int latBits = bits / 2;
+        long cell = 0;
+        for (int i = 0; i < bits; i++) {
+            long bit = (i & 1) == 0 ? (x >>> (lonBits - 1 - i / 2)) & 1 : (y >>> (latBits - 1 - i / 2)) & 1;
+            cell |= bit << (63 - i);
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,81 @@
+package org.geotools.data.phoenix.util;
+
+/**
+ * long类型GeoHash的闭区间，对应_GEOHASH列上的一个键范围
+ * 区间按有符号数比较，与Phoenix中BIGINT的排序一致；一个网格内的GeoHash高位相同，因此总是构成一个连续区间
+ * 内部区间中的点都满足空间条件，无需再用空间函数判断；其余为边界区间，只是候选
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeoHashRange implements Comparable<GeoHashRange> {
+    private final long min;
+    private final long max;
+    private final boolean interior;
+
+    public GeoHashRange(long min, long max) {
+        this(min, max, false);
+    }
+
+    public GeoHashRange(long min, long max, boolean interior) {
+        if (min > max)
+            throw new IllegalArgumentException("Invalid GeoHash range: " + min + " > " + max);
+        this.min = min;
+        this.max = max;
+        this.interior = interior;
+    }
+
+    /**
+     * 构造网格所包含的GeoHash区间
+     * @param cell 网格编码
+     * @param bits 网格编码的有效位数，取值为[1, 60]
+     * @return
+     */
+    public static GeoHashRange ofCell(long cell, int bits) {
+        return ofCell(cell, bits, false);
+    }
+
+    /**
+     * 构造网格所包含的GeoHash区间
+     * @param cell 网格编码
+     * @param bits 网格编码的有效位数，取值为[1, 60]
+     * @param interior 网格是否位于查询范围内部
+     * @return
+     */
+    public static GeoHashRange ofCell(long cell, int bits, boolean interior) {
+        return new GeoHashRange(cell, cell | (-1L >>> bits), interior);
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public boolean isInterior() {
+        return interior;
+    }
+
+    @Override
+    public int compareTo(GeoHashRange other) {
+        return min != other.min ? Long.compare(min, other.min) : Long.compare(max, other.max);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof GeoHashRange))
+            return false;
+        GeoHashRange other = (GeoHashRange) obj;
+        return min == other.min && max == other.max && interior == other.interior;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(min) + Long.hashCode(max);
+    }
+
+    @Override
+    public String toString() {
+        return (interior ? "interior" : "") + "[" + min + ", " + max + "]";
+    }
+}
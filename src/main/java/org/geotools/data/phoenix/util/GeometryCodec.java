@@ -0,0 +1,113 @@
+package org.geotools.data.phoenix.util;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 空间列存储值的编解码工具类
+ * 读取时根据首字节自动识别编码：WKB的首字节为字节序标志0或1；TWKB的首字节低4位为1~7的几何类型且第二个字节为小于0x20的元数据；
+ * 其余情况按WKT文本处理。因此三种编码的数据可以共存于同一列中
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeometryCodec {
+
+    /**
+     * 私有化构造函数，形成工具类
+     */
+    private GeometryCodec() {
+
+    }
+
+    /**
+     * 识别存储值的编码
+     * @param bytes 字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     * @return
+     */
+    public static GeometryEncoding detect(byte[] bytes, int offset, int length) {
+        if (length == 0)
+            return GeometryEncoding.WKT;
+        int first = bytes[offset] & 0xFF;
+        if (first == 0 || first == 1)
+            return GeometryEncoding.WKB;
+        int type = first & 0x0F;
+        if (type >= 1 && type <= 7 && length > 1 && (bytes[offset + 1] & 0xFF) < 0x20)
+            return GeometryEncoding.TWKB;
+        return GeometryEncoding.WKT;
+    }
+
+    /**
+     * 将存储值解码为几何对象
+     * @param bytes 字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     * @param factory 几何工厂
+     * @return
+     * @throws ParseException
+     */
+    public static Geometry decode(byte[] bytes, int offset, int length, GeometryFactory factory) throws ParseException {
+        switch (detect(bytes, offset, length)) {
+            case WKB:
+                try {
+                    return new WKBReader(factory).read(new ByteArrayRangeInStream(bytes, offset, length));
+                } catch (IOException e) {
+                    throw new ParseException("Unexpected end of WKB data");
+                }
+            case TWKB:
+                return new TWKBReader(factory).read(bytes, offset, length);
+            default:
+                return new WKTReader(factory).read(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    public static Geometry decode(byte[] bytes, GeometryFactory factory) throws ParseException {
+        return decode(bytes, 0, bytes.length, factory);
+    }
+
+    /**
+     * 将几何对象编码为二进制存储值
+     * @param geometry 几何对象
+     * @param encoding 编码，WKT时返回UTF-8文本
+     * @param dimension 坐标维度，仅WKB有效
+     * @param precision TWKB保留的小数位数
+     * @return
+     */
+    public static byte[] encode(Geometry geometry, GeometryEncoding encoding, int dimension, int precision) {
+        switch (encoding) {
+            case WKB:
+                return new WKBWriter(dimension == 3 ? 3 : 2).write(geometry);
+            case TWKB:
+                return new TWKBWriter(precision).write(geometry);
+            default:
+                return new WKTWriter(dimension == 3 ? 3 : 2).write(geometry).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 以字节数组的某一段作为WKB的输入流
+     */
+    private static class ByteArrayRangeInStream implements InStream {
+        private final byte[] bytes;
+        private int pos;
+        private final int end;
+
+        ByteArrayRangeInStream(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.pos = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public void read(byte[] buf) throws IOException {
+            if (pos + buf.length > end)
+                throw new IOException("Unexpected end of data");
+            System.arraycopy(bytes, pos, buf, 0, buf.length);
+            pos += buf.length;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.geotools.data.phoenix.util;
+
+/**
+ * 空间列在Phoenix中的存储编码
+ * Created by Administrator on 2026/10/17.
+ */
+public enum GeometryEncoding {
+    /**
+     * WKT文本，仅用于兼容早期以VARCHAR(255)存储的表
+     */
+    WKT("VARCHAR"),
+    /**
+     * 标准WKB二进制
+     */
+    WKB("VARBINARY"),
+    /**
+     * 紧凑的TWKB二进制，坐标按精度取整后进行差分和变长编码
+     */
+    TWKB("VARBINARY");
+
+    /**
+     * TWKB默认保留的小数位数，经纬度下约为1厘米
+     */
+    public static final int DEFAULT_TWKB_PRECISION = 7;
+
+    private final String sqlTypeName;
+
+    GeometryEncoding(String sqlTypeName) {
+        this.sqlTypeName = sqlTypeName;
+    }
+
+    /**
+     * 获取该编码对应的Phoenix列类型
+     * @return
+     */
+    public String getSqlTypeName() {
+        return sqlTypeName;
+    }
+
+    /**
+     * 是否为二进制编码
+     * @return
+     */
+    public boolean isBinary() {
+        return this != WKT;
+    }
+
+    /**
+     * 根据名称获取编码，名称为空时返回null
+     * @param name 编码名称，不区分大小写
+     * @return
+     */
+    public static GeometryEncoding lookUp(String name) {
+        if (name == null || "".equals(name.trim()))
+            return null;
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,195 @@
+package org.geotools.data.phoenix.util;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.ParseException;
+
+import static org.geotools.data.phoenix.util.TWKBWriter.*;
+
+/**
+ * 读取TWKB格式的二维几何编码，支持直接从字节数组的某一段中读取，避免复制
+ * 由于读取过程中保存游标和差分状态，该类的实例不是线程安全的
+ * Created by Administrator on 2026/10/17.
+ */
+public class TWKBReader {
+    private final GeometryFactory factory;
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+    private double scale;
+    private long lastX, lastY;
+
+    public TWKBReader() {
+        this(new GeometryFactory());
+    }
+
+    public TWKBReader(GeometryFactory factory) {
+        this.factory = factory;
+    }
+
+    public Geometry read(byte[] bytes) throws ParseException {
+        return read(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 从字节数组的指定区间读取几何对象
+     * @param bytes 字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     * @return
+     * @throws ParseException
+     */
+    public Geometry read(byte[] bytes, int offset, int length) throws ParseException {
+        buf = bytes;
+        pos = offset;
+        end = offset + length;
+        try {
+            return readGeometry();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new ParseException("Unexpected end of TWKB data");
+        } finally {
+            buf = null;
+        }
+    }
+
+    private Geometry readGeometry() throws ParseException {
+        int header = readByte();
+        int type = header & 0x0F;
+        int precision = unzigzag((header >> 4) & 0x0F);
+        int metadata = readByte();
+        if ((metadata & FLAG_EXTENDED_DIMS) != 0)
+            throw new ParseException("TWKB with Z/M dimensions is not supported");
+        if ((metadata & FLAG_SIZE) != 0)
+            readVarLong();
+        if ((metadata & FLAG_BBOX) != 0) {
+            for (int i = 0; i < 4; i++) {
+                readVarLong();
+            }
+        }
+        boolean hasIdList = (metadata & FLAG_ID_LIST) != 0;
+        if ((metadata & FLAG_EMPTY) != 0)
+            return createEmpty(type);
+
+        scale = Math.pow(10, precision);
+        lastX = 0;
+        lastY = 0;
+        switch (type) {
+            case POINT:
+                return factory.createPoint(readCoordinates(1));
+            case LINESTRING:
+                return factory.createLineString(readCoordinates((int) readVarLong()));
+            case POLYGON:
+                return readPolygon();
+            case MULTIPOINT: {
+                Point[] points = new Point[readCount(hasIdList)];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = factory.createPoint(readCoordinates(1));
+                }
+                return factory.createMultiPoint(points);
+            }
+            case MULTILINESTRING: {
+                LineString[] lines = new LineString[readCount(hasIdList)];
+                for (int i = 0; i < lines.length; i++) {
+                    lines[i] = factory.createLineString(readCoordinates((int) readVarLong()));
+                }
+                return factory.createMultiLineString(lines);
+            }
+            case MULTIPOLYGON: {
+                Polygon[] polygons = new Polygon[readCount(hasIdList)];
+                for (int i = 0; i < polygons.length; i++) {
+                    polygons[i] = readPolygon();
+                }
+                return factory.createMultiPolygon(polygons);
+            }
+            case GEOMETRYCOLLECTION: {
+                Geometry[] geometries = new Geometry[readCount(hasIdList)];
+                for (int i = 0; i < geometries.length; i++) {
+                    geometries[i] = readGeometry();
+                }
+                return factory.createGeometryCollection(geometries);
+            }
+            default:
+                throw new ParseException("Unknown TWKB geometry type: " + type);
+        }
+    }
+
+    private Geometry createEmpty(int type) throws ParseException {
+        switch (type) {
+            case POINT:
+                return factory.createPoint((CoordinateSequence) null);
+            case LINESTRING:
+                return factory.createLineString((CoordinateSequence) null);
+            case POLYGON:
+                return factory.createPolygon((LinearRing) null, null);
+            case MULTIPOINT:
+                return factory.createMultiPoint((Point[]) null);
+            case MULTILINESTRING:
+                return factory.createMultiLineString(null);
+            case MULTIPOLYGON:
+                return factory.createMultiPolygon(null);
+            case GEOMETRYCOLLECTION:
+                return factory.createGeometryCollection(null);
+            default:
+                throw new ParseException("Unknown TWKB geometry type: " + type);
+        }
+    }
+
+    private Polygon readPolygon() {
+        int numRings = (int) readVarLong();
+        if (numRings == 0)
+            return factory.createPolygon((LinearRing) null, null);
+        LinearRing shell = factory.createLinearRing(readCoordinates((int) readVarLong()));
+        LinearRing[] holes = new LinearRing[numRings - 1];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = factory.createLinearRing(readCoordinates((int) readVarLong()));
+        }
+        return factory.createPolygon(shell, holes);
+    }
+
+    private int readCount(boolean hasIdList) {
+        int count = (int) readVarLong();
+        if (hasIdList) {
+            for (int i = 0; i < count; i++) {
+                readVarLong();
+            }
+        }
+        return count;
+    }
+
+    private CoordinateSequence readCoordinates(int count) {
+        CoordinateSequence sequence = factory.getCoordinateSequenceFactory().create(count, 2);
+        for (int i = 0; i < count; i++) {
+            lastX += unzigzag(readVarLong());
+            lastY += unzigzag(readVarLong());
+            sequence.setOrdinate(i, CoordinateSequence.X, lastX / scale);
+            sequence.setOrdinate(i, CoordinateSequence.Y, lastY / scale);
+        }
+        return sequence;
+    }
+
+    private int readByte() {
+        if (pos >= end)
+            throw new ArrayIndexOutOfBoundsException(pos);
+        return buf[pos++] & 0xFF;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
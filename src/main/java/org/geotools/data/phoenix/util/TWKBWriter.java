@@ -0,0 +1,186 @@
+package org.geotools.data.phoenix.util;
+
+import com.vividsolutions.jts.geom.*;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 将几何对象写为TWKB（Tiny Well-known Binary）格式的二维几何编码
+ * 非点几何对象默认在头部写入外包矩形，使读取方无需解码坐标即可获得外包矩形
+ * 由于写入过程中保存差分状态，该类的实例不是线程安全的
+ * Created by Administrator on 2026/10/17.
+ */
+public class TWKBWriter {
+    /**
+     * TWKB中的几何类型编号
+     */
+    static final int POINT = 1;
+    static final int LINESTRING = 2;
+    static final int POLYGON = 3;
+    static final int MULTIPOINT = 4;
+    static final int MULTILINESTRING = 5;
+    static final int MULTIPOLYGON = 6;
+    static final int GEOMETRYCOLLECTION = 7;
+
+    /**
+     * 元数据字节中的标志位
+     */
+    static final int FLAG_BBOX = 0x01;
+    static final int FLAG_SIZE = 0x02;
+    static final int FLAG_ID_LIST = 0x04;
+    static final int FLAG_EXTENDED_DIMS = 0x08;
+    static final int FLAG_EMPTY = 0x10;
+
+    private final int precision;
+    private final double scale;
+    private final boolean includeBBox;
+
+    private ByteArrayOutputStream out;
+    private long lastX, lastY;
+
+    public TWKBWriter() {
+        this(GeometryEncoding.DEFAULT_TWKB_PRECISION);
+    }
+
+    public TWKBWriter(int precision) {
+        this(precision, true);
+    }
+
+    /**
+     * @param precision 坐标保留的小数位数，取值为[-7, 7]且不为0，以便与首字节为0或1的WKB区分
+     * @param includeBBox 是否为非点几何对象写入外包矩形
+     */
+    public TWKBWriter(int precision, boolean includeBBox) {
+        if (precision == 0 || precision < -7 || precision > 7)
+            throw new IllegalArgumentException("TWKB precision must be in [-7, 7] and not 0: " + precision);
+        this.precision = precision;
+        this.scale = Math.pow(10, precision);
+        this.includeBBox = includeBBox;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * 将几何对象写为TWKB字节数组
+     * @param geometry
+     * @return
+     */
+    public byte[] write(Geometry geometry) {
+        out = new ByteArrayOutputStream();
+        try {
+            writeGeometry(geometry);
+            return out.toByteArray();
+        } finally {
+            out = null;
+        }
+    }
+
+    private void writeGeometry(Geometry geometry) {
+        out.write(getType(geometry) | (zigzag(precision) << 4));
+        if (geometry.isEmpty()) {
+            out.write(FLAG_EMPTY);
+            return;
+        }
+        boolean bbox = includeBBox && !(geometry instanceof Point);
+        out.write(bbox ? FLAG_BBOX : 0);
+        if (bbox) {
+            Envelope envelope = geometry.getEnvelopeInternal();
+            long minX = round(envelope.getMinX()), minY = round(envelope.getMinY());
+            writeVarLong(zigzag(minX));
+            writeVarLong(zigzag(round(envelope.getMaxX()) - minX));
+            writeVarLong(zigzag(minY));
+            writeVarLong(zigzag(round(envelope.getMaxY()) - minY));
+        }
+        lastX = 0;
+        lastY = 0;
+        if (geometry instanceof Point) {
+            writeCoordinate(((Point) geometry).getCoordinateSequence(), 0);
+        } else if (geometry instanceof LineString) {
+            writeCoordinates(((LineString) geometry).getCoordinateSequence());
+        } else if (geometry instanceof Polygon) {
+            writePolygon((Polygon) geometry);
+        } else if (geometry instanceof MultiPoint || geometry instanceof MultiLineString || geometry instanceof MultiPolygon) {
+            writeVarLong(geometry.getNumGeometries());
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                Geometry part = geometry.getGeometryN(i);
+                if (part instanceof Point)
+                    writeCoordinate(((Point) part).getCoordinateSequence(), 0);
+                else if (part instanceof LineString)
+                    writeCoordinates(((LineString) part).getCoordinateSequence());
+                else
+                    writePolygon((Polygon) part);
+            }
+        } else {
+            writeVarLong(geometry.getNumGeometries());
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                writeGeometry(geometry.getGeometryN(i));
+            }
+        }
+    }
+
+    private void writePolygon(Polygon polygon) {
+        if (polygon.isEmpty()) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(1 + polygon.getNumInteriorRing());
+        writeCoordinates(polygon.getExteriorRing().getCoordinateSequence());
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            writeCoordinates(polygon.getInteriorRingN(i).getCoordinateSequence());
+        }
+    }
+
+    private void writeCoordinates(CoordinateSequence sequence) {
+        writeVarLong(sequence.size());
+        for (int i = 0; i < sequence.size(); i++) {
+            writeCoordinate(sequence, i);
+        }
+    }
+
+    private void writeCoordinate(CoordinateSequence sequence, int index) {
+        long x = round(sequence.getX(index));
+        long y = round(sequence.getY(index));
+        writeVarLong(zigzag(x - lastX));
+        writeVarLong(zigzag(y - lastY));
+        lastX = x;
+        lastY = y;
+    }
+
+    private long round(double value) {
+        return Math.round(value * scale);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int getType(Geometry geometry) {
+        if (geometry instanceof Point)
+            return POINT;
+        if (geometry instanceof LineString)
+            return LINESTRING;
+        if (geometry instanceof Polygon)
+            return POLYGON;
+        if (geometry instanceof MultiPoint)
+            return MULTIPOINT;
+        if (geometry instanceof MultiLineString)
+            return MULTILINESTRING;
+        if (geometry instanceof MultiPolygon)
+            return MULTIPOLYGON;
+        return GEOMETRYCOLLECTION;
+    }
+}
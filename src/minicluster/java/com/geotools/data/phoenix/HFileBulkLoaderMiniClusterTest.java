@@ -0,0 +1,100 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.geotools.data.Query;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.phoenix.HFileBulkLoader;
+import org.geotools.data.phoenix.PhoenixDataStoreFactory;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在HBase mini-cluster上生成HFile并加载的测试类，加载后通过Phoenix读回全部要素
+ * 运行方式：mvn -Pminicluster test -Dtest=HFileBulkLoaderMiniClusterTest
+ * Created by Administrator on 2026/10/17.
+ */
+public class HFileBulkLoaderMiniClusterTest {
+    private final static String TYPE_NAME = "GEOTOOLS_BULK";
+
+    private static HBaseTestingUtility utility;
+    private static JDBCDataStore dataStore;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        utility = new HBaseTestingUtility();
+        utility.startMiniCluster();
+        Map<String, Object> params = new HashMap<>();
+        params.put(PhoenixDataStoreFactory.DBTYPE.key, "phoenix");
+        params.put(PhoenixDataStoreFactory.HOST.key, "localhost");
+        params.put(PhoenixDataStoreFactory.PORT.key, utility.getZkCluster().getClientPort());
+        params.put(PhoenixDataStoreFactory.DATABASE.key, "hbase");
+        dataStore = (JDBCDataStore) new PhoenixDataStoreFactory().createDataStore(params);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if (dataStore != null)
+            dataStore.dispose();
+        if (utility != null)
+            utility.shutdownMiniCluster();
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        SimpleFeatureTypeBuilder typeBuilder = new SimpleFeatureTypeBuilder();
+        typeBuilder.setName(TYPE_NAME);
+        typeBuilder.setCRS(DefaultGeographicCRS.WGS84);
+        typeBuilder.add("NAME", String.class);
+        typeBuilder.nillable(false).add("GEOM", Point.class, 4326);
+        dataStore.createSchema(typeBuilder.buildFeatureType());
+        SimpleFeatureType featureType = dataStore.getSchema(TYPE_NAME);
+
+        int count = 100;
+        GeometryFactory factory = new GeometryFactory();
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
+        ListFeatureCollection features = new ListFeatureCollection(featureType);
+        for (int i = 0; i < count; i++) {
+            builder.set("NAME", "n" + i);
+            builder.set("GEOM", factory.createPoint(new Coordinate(108 + i * 0.01, 34 + i * 0.01)));
+            features.add(builder.buildFeature(null));
+        }
+
+        HFileBulkLoader loader = new HFileBulkLoader(dataStore, utility.getConfiguration(),
+                utility.getDataTestDirOnTestFS("hfiles"));
+        loader.setRowsPerDrain(30);
+        assertEquals(count, loader.load(TYPE_NAME, features));
+
+        assertEquals(count, dataStore.getFeatureSource(TYPE_NAME).getCount(Query.ALL));
+        Set<String> names = new HashSet<>();
+        SimpleFeatureIterator iterator = dataStore.getFeatureSource(TYPE_NAME).getFeatures().features();
+        try {
+            while (iterator.hasNext()) {
+                SimpleFeature feature = iterator.next();
+                assertTrue(feature.getDefaultGeometry() instanceof Point);
+                names.add((String) feature.getAttribute("NAME"));
+            }
+        } finally {
+            iterator.close();
+        }
+        assertEquals(count, names.size());
+    }
+}
@@ -0,0 +1,239 @@
+package com.geotools.data.phoenix;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.memory.MemoryDataStore;
+import org.geotools.data.phoenix.FeatureIdReader;
+import org.geotools.data.phoenix.PhoenixFilterToSQL;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.NonIncrementingPrimaryKeyColumn;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.Id;
+import org.opengis.filter.identity.FeatureId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 按要素ID查询的测试类，ID编码为主键上的点查询，ID较多时分块并行读取
+ * Created by Administrator on 2026/10/17.
+ */
+public class FeatureIdReaderTest {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+    private static SimpleFeatureType featureType;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        featureType = DataUtilities.createType("GEOTOOLS_CM", "FID:Integer,GEOM_GEOHASH:Long,NAME:String");
+    }
+
+    @Test
+    public void testEncodeSingleKey() throws Exception {
+        assertEquals("(FID IN (1, 2))", encode(ids("GEOTOOLS_CM.1", "GEOTOOLS_CM.2"), "FID").trim());
+        /*不带类型名前缀的ID*/
+        assertEquals("(FID IN (3))", encode(ids("3"), "FID").trim());
+    }
+
+    @Test
+    public void testEncodeCompositeKey() throws Exception {
+        assertEquals("((FID, GEOM_GEOHASH) IN ((1, 4050001234), (2, 4050001235)))",
+                encode(ids("GEOTOOLS_CM.1.4050001234", "GEOTOOLS_CM.2.4050001235"), "FID", "GEOM_GEOHASH").trim());
+    }
+
+    /**
+     * 无法解析为本表主键的ID不可能匹配，直接忽略
+     * @throws Exception
+     */
+    @Test
+    public void testEncodeUndecodable() throws Exception {
+        assertEquals("((FID, GEOM_GEOHASH) IN ((2, 4050001235)))",
+                encode(ids("GEOTOOLS_CM.1", "GEOTOOLS_CM.x.4050001234", "GEOTOOLS_CM.1.2.3", "GEOTOOLS_CM.2.4050001235"), "FID", "GEOM_GEOHASH").trim());
+        assertEquals("1 = 0", encode(ids("GEOTOOLS_CM.1", "GEOTOOLS_CM.x.4050001234"), "FID", "GEOM_GEOHASH").trim());
+    }
+
+    @Test
+    public void testReadChunks() throws Exception {
+        List<String> fids = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            fids.add("GEOTOOLS_CM." + i);
+        }
+        FeatureIdReader reader = new FeatureIdReader(createDataStore(10, null, new AtomicInteger(), new AtomicInteger()),
+                new Query("GEOTOOLS_CM", ids(fids.toArray(new String[fids.size()]))), 3, 2);
+        Set<String> read = new HashSet<>();
+        try {
+            while (reader.hasNext()) {
+                assertTrue(read.add(reader.next().getID()));
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(new HashSet<>(fids), read);
+    }
+
+    /**
+     * 要素个数上限对全部分块的结果有效
+     * @throws Exception
+     */
+    @Test
+    public void testMaxFeatures() throws Exception {
+        Query query = new Query("GEOTOOLS_CM", ids("GEOTOOLS_CM.1", "GEOTOOLS_CM.2", "GEOTOOLS_CM.3", "GEOTOOLS_CM.4", "GEOTOOLS_CM.5", "GEOTOOLS_CM.6"));
+        query.setMaxFeatures(4);
+        FeatureIdReader reader = new FeatureIdReader(createDataStore(10, null, new AtomicInteger(), new AtomicInteger()), query, 2, 3);
+        int count = 0;
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(4, count);
+    }
+
+    /**
+     * 任一分块读取失败时，读取器抛出异常
+     * @throws Exception
+     */
+    @Test
+    public void testChunkFailure() throws Exception {
+        FeatureIdReader reader = new FeatureIdReader(createDataStore(10, "GEOTOOLS_CM.5", new AtomicInteger(), new AtomicInteger()),
+                new Query("GEOTOOLS_CM", ids("GEOTOOLS_CM.1", "GEOTOOLS_CM.2", "GEOTOOLS_CM.5", "GEOTOOLS_CM.6")), 2, 2);
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            fail();
+        } catch (IOException e) {
+            assertEquals("Chunk failed", e.getCause().getMessage());
+        }
+        /*失败后读取器已关闭*/
+        assertFalse(reader.hasNext());
+    }
+
+    /**
+     * 队列已满、分块线程等待时关闭读取器，正在读取的分块释放读取器，尚未开始的分块不再执行
+     * @throws Exception
+     */
+    @Test
+    public void testCloseWhileBlocked() throws Exception {
+        int count = 100;
+        String[] fids = new String[count];
+        for (int i = 0; i < count; i++) {
+            fids[i] = "GEOTOOLS_CM." + (i + 1);
+        }
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        FeatureIdReader reader = new FeatureIdReader(createDataStore(count, null, opened, closed), new Query("GEOTOOLS_CM", ids(fids)), 5, 2);
+        assertTrue(reader.hasNext());
+        reader.next();
+        /*等待分块线程填满队列*/
+        Thread.sleep(200);
+        reader.close();
+        assertFalse(reader.hasNext());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (closed.get() < opened.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(opened.get(), closed.get());
+        Thread.sleep(200);
+        assertEquals(opened.get(), closed.get());
+        assertTrue(opened.get() < count / 5);
+    }
+
+    private static Id ids(String... fids) {
+        Set<FeatureId> ids = new LinkedHashSet<>();
+        for (String fid : fids) {
+            ids.add(FF.featureId(fid));
+        }
+        return FF.id(ids);
+    }
+
+    private static String encode(Id filter, String... keyColumns) throws Exception {
+        List<PrimaryKeyColumn> columns = new ArrayList<>();
+        for (String column : keyColumns) {
+            columns.add(new NonIncrementingPrimaryKeyColumn(column, featureType.getDescriptor(column).getType().getBinding()));
+        }
+        PhoenixFilterToSQL encoder = new PhoenixFilterToSQL();
+        encoder.setFeatureType(featureType);
+        encoder.setPrimaryKey(new PrimaryKey("GEOTOOLS_CM", columns));
+        encoder.setInline(true);
+        return encoder.encodeToString(filter);
+    }
+
+    /**
+     * 从内存数据源中读取要素的数据源
+     * @param count 要素个数
+     * @param failingId 查询包含该ID时读取失败，为null时不失败
+     * @param opened 打开的读取器个数
+     * @param closed 关闭的读取器个数
+     * @return
+     */
+    private static JDBCDataStore createDataStore(int count, final String failingId, final AtomicInteger opened, final AtomicInteger closed) {
+        final MemoryDataStore memory = new MemoryDataStore();
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
+        for (int i = 1; i <= count; i++) {
+            builder.set("FID", i);
+            builder.set("GEOM_GEOHASH", 4050001234L + i);
+            builder.set("NAME", "n" + i);
+            memory.addFeature(builder.buildFeature("GEOTOOLS_CM." + i));
+        }
+        return new JDBCDataStore() {
+            @Override
+            public ContentFeatureSource getFeatureSource(String typeName) throws IOException {
+                return memory.getFeatureSource(typeName);
+            }
+
+            @Override
+            public FeatureReader<SimpleFeatureType, SimpleFeature> getFeatureReader(Query query, Transaction tx) throws IOException {
+                if (failingId != null && ((Id) query.getFilter()).getIDs().contains(failingId))
+                    throw new IOException("Chunk failed");
+                final FeatureReader<SimpleFeatureType, SimpleFeature> reader = memory.getFeatureReader(query, tx);
+                opened.incrementAndGet();
+                return new FeatureReader<SimpleFeatureType, SimpleFeature>() {
+                    @Override
+                    public SimpleFeatureType getFeatureType() {
+                        return reader.getFeatureType();
+                    }
+
+                    @Override
+                    public SimpleFeature next() throws IOException {
+                        return reader.next();
+                    }
+
+                    @Override
+                    public boolean hasNext() throws IOException {
+                        return reader.hasNext();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        closed.incrementAndGet();
+                        reader.close();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import org.geotools.data.phoenix.util.GeoHashConverter;
+import org.geotools.data.phoenix.util.GeoHashCover;
+import org.geotools.data.phoenix.util.GeoHashRange;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * GeoHash键范围覆盖的单元测试类
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeoHashCoverTest {
+
+    private static boolean contains(List<GeoHashRange> ranges, long hash) {
+        for (GeoHashRange range : ranges) {
+            if (range.getMin() <= hash && hash <= range.getMax())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 检查区间按升序排列且互不相交，并且范围内的点全部被覆盖
+     * @param envelope
+     * @param maxRanges
+     * @return
+     */
+    private static List<GeoHashRange> checkCover(Envelope envelope, int maxRanges) {
+        List<GeoHashRange> ranges = GeoHashCover.cover(envelope, maxRanges);
+        assertTrue(ranges.size() >= 1 && ranges.size() <= maxRanges);
+        for (int i = 0; i + 1 < ranges.size(); i++) {
+            assertTrue(ranges.get(i).getMax() < ranges.get(i + 1).getMin());
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            double x = envelope.getMinX() + random.nextDouble() * envelope.getWidth();
+            double y = envelope.getMinY() + random.nextDouble() * envelope.getHeight();
+            assertTrue(contains(ranges, GeoHashConverter.longAndLatiToGeohash(x, y)));
+        }
+        assertTrue(contains(ranges, GeoHashConverter.longAndLatiToGeohash(envelope.getMaxX(), envelope.getMaxY())));
+        return ranges;
+    }
+
+    @Test
+    public void testCoverEnvelope() {
+        Envelope envelope = new Envelope(108.9, 109.1, 34.2, 34.3);
+        List<GeoHashRange> ranges = checkCover(envelope, 8);
+        /*远离查询范围的点不在覆盖中*/
+        assertFalse(contains(ranges, GeoHashConverter.longAndLatiToGeohash(116.4, 39.9)));
+        assertFalse(contains(ranges, GeoHashConverter.longAndLatiToGeohash(109.5, 34.25)));
+        checkCover(envelope, 1);
+    }
+
+    @Test
+    public void testCoverAcrossHemispheres() {
+        /*跨越本初子午线和赤道时，东半球的GeoHash为负数，西半球为正数*/
+        checkCover(new Envelope(-0.5, 0.5, -0.5, 0.5), 16);
+        checkCover(new Envelope(-180, 180, -90, 90), 4);
+        /*超出经纬度范围的坐标归入边缘的网格*/
+        List<GeoHashRange> ranges = checkCover(new Envelope(179, 200, 80, 95), 4);
+        assertTrue(contains(ranges, GeoHashConverter.longAndLatiToGeohash(250, 100)));
+    }
+
+    @Test
+    public void testCoverGeometry() throws ParseException {
+        /*斜向的带状多边形，外包矩形中大部分是空白*/
+        Geometry corridor = new WKTReader().read("POLYGON ((100 20, 101 20, 111 30, 110 30, 100 20))");
+        List<GeoHashRange> ranges = GeoHashCover.cover(corridor, GeoHashCover.DEFAULT_MAX_PRECISION, 32);
+        assertTrue(ranges.size() >= 1 && ranges.size() <= 32);
+        List<GeoHashRange> envelopeRanges = GeoHashCover.cover(corridor.getEnvelopeInternal(), 32);
+
+        GeometryFactory factory = new GeometryFactory();
+        Envelope envelope = corridor.getEnvelopeInternal();
+        Random random = new Random(11);
+        int inside = 0, accepted = 0, envelopeAccepted = 0;
+        for (int i = 0; i < 5000; i++) {
+            double x = envelope.getMinX() + random.nextDouble() * envelope.getWidth();
+            double y = envelope.getMinY() + random.nextDouble() * envelope.getHeight();
+            long hash = GeoHashConverter.longAndLatiToGeohash(x, y);
+            if (corridor.intersects(factory.createPoint(new Coordinate(x, y)))) {
+                inside++;
+                assertTrue(contains(ranges, hash));
+            }
+            if (contains(ranges, hash))
+                accepted++;
+            if (contains(envelopeRanges, hash))
+                envelopeAccepted++;
+        }
+        /*多边形只占外包矩形的约十分之一，细分后的覆盖应明显小于外包矩形的覆盖*/
+        assertTrue(inside > 0);
+        assertTrue(accepted < envelopeAccepted / 2);
+        assertTrue(accepted < inside * 4);
+    }
+
+    @Test
+    public void testInteriorRanges() throws ParseException {
+        Geometry polygon = new WKTReader().read("POLYGON ((100 20, 110 22, 108 30, 101 28, 100 20))");
+        GeometryFactory factory = new GeometryFactory();
+        for (GeoHashCover.Interior interior : new GeoHashCover.Interior[]{GeoHashCover.Interior.COVERS, GeoHashCover.Interior.CONTAINS_PROPERLY}) {
+            List<GeoHashRange> ranges = GeoHashCover.cover(polygon, interior, GeoHashCover.DEFAULT_MAX_PRECISION, 32);
+            int interiorHits = 0;
+            Random random = new Random(3);
+            for (int i = 0; i < 5000; i++) {
+                double x = 99 + random.nextDouble() * 12;
+                double y = 19 + random.nextDouble() * 12;
+                long hash = GeoHashConverter.longAndLatiToGeohash(x, y);
+                boolean matches = interior == GeoHashCover.Interior.COVERS
+                        ? polygon.intersects(factory.createPoint(new Coordinate(x, y)))
+                        : polygon.contains(factory.createPoint(new Coordinate(x, y)));
+                for (GeoHashRange range : ranges) {
+                    if (range.getMin() <= hash && hash <= range.getMax()) {
+                        /*内部区间中的点必须满足空间条件*/
+                        if (range.isInterior()) {
+                            assertTrue(matches);
+                            interiorHits++;
+                        }
+                        matches = false;
+                    }
+                }
+                /*满足空间条件的点必须被某个区间覆盖*/
+                assertFalse(matches);
+            }
+            /*多边形的大部分面积应由内部区间覆盖*/
+            assertTrue(interiorHits > 1000);
+        }
+        /*合并不相邻的内部区间后包含了外部的键，成为边界区间*/
+        List<GeoHashRange> merged = GeoHashCover.merge(new ArrayList<>(Arrays.asList(
+                new GeoHashRange(0, 9, true), new GeoHashRange(10, 19, true), new GeoHashRange(30, 39, true))), 1);
+        assertEquals(1, merged.size());
+        assertFalse(merged.get(0).isInterior());
+        assertTrue(GeoHashCover.merge(new ArrayList<>(Arrays.asList(
+                new GeoHashRange(0, 9, true), new GeoHashRange(10, 19, true))), 1).get(0).isInterior());
+    }
+
+    @Test
+    public void testPointEnvelope() {
+        List<GeoHashRange> ranges = GeoHashCover.cover(new Envelope(116.4, 116.4, 39.9, 39.9), 32);
+        assertTrue(contains(ranges, GeoHashConverter.longAndLatiToGeohash(116.4, 39.9)));
+        assertTrue(GeoHashCover.cover(new Envelope(), 32).isEmpty());
+    }
+
+    @Test
+    public void testSplitPoints() {
+        /*全球范围的键均匀分布在整个BIGINT取值范围上*/
+        long[] world = GeoHashCover.splitPoints(new Envelope(-180, 180, -90, 90), 4);
+        assertTrue(Arrays.equals(new long[]{-(1L << 62), 0, 1L << 62}, world));
+
+        Envelope china = new Envelope(73, 135, 18, 54);
+        long[] points = GeoHashCover.splitPoints(china, 16);
+        assertTrue(points.length > 1 && points.length <= 15);
+        for (int i = 1; i < points.length; i++) {
+            assertTrue(points[i - 1] < points[i]);
+        }
+        /*范围内随机的点落在每一个Region中*/
+        int[] counts = new int[points.length + 1];
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            long hash = GeoHashConverter.longAndLatiToGeohash(73 + random.nextDouble() * 62, 18 + random.nextDouble() * 36);
+            int region = 0;
+            while (region < points.length && hash >= points[region]) {
+                region++;
+            }
+            counts[region]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 0);
+        }
+
+        assertEquals(0, GeoHashCover.splitPoints(china, 1).length);
+        assertEquals(0, GeoHashCover.splitPoints(new Envelope(), 16).length);
+    }
+}
@@ -0,0 +1,179 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.memory.MemoryDataStore;
+import org.geotools.data.phoenix.GeoHashCell;
+import org.geotools.data.phoenix.GeoHashDensity;
+import org.geotools.data.phoenix.PhoenixDialectBasic;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.text.ecql.ECQL;
+import org.geotools.jdbc.JDBCDataStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按GeoHash网格统计的测试类，能完整下推的条件在Phoenix中分组聚合，不能精确判断的条件在客户端统计
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeoHashDensityTest {
+    private SimpleFeatureType featureType;
+    private MemoryDataStore memory;
+    private JDBCDataStore dataStore;
+    private PhoenixDialectBasic dialect;
+    private Connection cx;
+    /**
+     * 执行过的查询语句，不含geometry_columns元数据表的查询
+     */
+    private List<String> queries;
+
+    @Before
+    public void setUp() throws Exception {
+        featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,AREA:Double,GEOM:Point:srid=4326");
+        memory = new MemoryDataStore();
+        GeometryFactory factory = new GeometryFactory();
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
+        memory.addFeature(builder.buildFeature("GEOTOOLS_CM.1", new Object[]{"a", 1.5, factory.createPoint(new Coordinate(108.9, 34.2))}));
+        memory.addFeature(builder.buildFeature("GEOTOOLS_CM.2", new Object[]{"b", 2.5, factory.createPoint(new Coordinate(108.9001, 34.2))}));
+        queries = new ArrayList<>();
+        cx = createConnection(queries);
+        dataStore = new JDBCDataStore() {
+            @Override
+            public SimpleFeatureType getSchema(String typeName) throws IOException {
+                return featureType;
+            }
+
+            @Override
+            public ContentFeatureSource getFeatureSource(String typeName) throws IOException {
+                return memory.getFeatureSource(typeName);
+            }
+        };
+        dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+        dataStore.setDataSource(proxy(DataSource.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return "getConnection".equals(method.getName()) ? cx : null;
+            }
+        }));
+    }
+
+    /**
+     * 点空间列带有_GEOHASH列时按该列分组，并排除空几何对象的行
+     * @throws Exception
+     */
+    @Test
+    public void testGeoHashColumn() throws Exception {
+        GeoHashDensity density = new GeoHashDensity(dataStore);
+        density.getCells("GEOTOOLS_CM", ECQL.toFilter("BBOX(GEOM, 108, 34, 109, 35)"), 6);
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0), queries.get(0).contains("GROUP BY ST_GEOHASH_CELL(GEOM, 6)"));
+
+        dialect.postCreateFeatureType(featureType, null, null, cx);
+        density.getCells("GEOTOOLS_CM", ECQL.toFilter("BBOX(GEOM, 108, 34, 109, 35)"), 6);
+        assertEquals(2, queries.size());
+        String sql = queries.get(1);
+        assertTrue(sql, sql.contains("GROUP BY ST_GEOHASH_CELL(GEOM_GEOHASH, 6)"));
+        assertTrue(sql, sql.contains("IS NULL"));
+    }
+
+    /**
+     * 地理坐标系中以米为单位的距离条件不能在Phoenix中精确判断，读取要素在客户端统计
+     * @throws Exception
+     */
+    @Test
+    public void testPostFilterOnClient() throws Exception {
+        List<GeoHashCell> cells = new GeoHashDensity(dataStore).getCells("GEOTOOLS_CM",
+                ECQL.toFilter("DWITHIN(GEOM, POINT(108.9 34.2), 500, meters)"), 4, "AREA");
+        assertTrue(queries.toString(), queries.isEmpty());
+        assertEquals(1, cells.size());
+        assertEquals(2, cells.get(0).getCount());
+        assertEquals(4.0, cells.get(0).getSum(), 1e-9);
+        assertTrue(cells.get(0).getBounds().contains(108.9, 34.2));
+    }
+
+    /**
+     * 没有geometry_columns元数据表、各列均存在的连接，执行的查询记录到queries中并返回空结果
+     * @param queries
+     * @return
+     */
+    private static Connection createConnection(final List<String> queries) {
+        final ResultSet empty = proxy(ResultSet.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return defaultValue(method.getReturnType());
+            }
+        });
+        final ResultSet exists = proxy(ResultSet.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return "next".equals(method.getName()) ? true : defaultValue(method.getReturnType());
+            }
+        });
+        final DatabaseMetaData metadata = proxy(DatabaseMetaData.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getSearchStringEscape".equals(method.getName()))
+                    return "\\";
+                if ("getColumns".equals(method.getName()))
+                    return exists;
+                return defaultValue(method.getReturnType());
+            }
+        });
+        final Statement st = proxy(Statement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("executeQuery".equals(method.getName())) {
+                    if (((String) args[0]).toLowerCase().contains("geometry_columns"))
+                        throw new SQLException("Table undefined");
+                    queries.add((String) args[0]);
+                    return empty;
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+        return proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getMetaData".equals(method.getName()))
+                    return metadata;
+                if ("createStatement".equals(method.getName()))
+                    return st;
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        return null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(GeoHashDensityTest.class.getClassLoader(), new Class[]{type}, handler));
+    }
+}
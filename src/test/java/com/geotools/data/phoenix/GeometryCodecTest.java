@@ -0,0 +1,116 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBWriter;
+import com.vividsolutions.jts.io.WKTReader;
+import org.geotools.data.phoenix.util.EnvelopeScanner;
+import org.geotools.data.phoenix.util.GeometryCodec;
+import org.geotools.data.phoenix.util.GeometryEncoding;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 空间列存储编码的测试类
+ * Created by Administrator on 2026/10/17.
+ */
+public class GeometryCodecTest {
+
+    private final static GeometryFactory FACTORY = new GeometryFactory();
+    private final static WKTReader READER = new WKTReader(FACTORY);
+
+    private final static String[] WKTS = {
+            "POINT (108.9402 34.3416)",
+            "POINT (-0.0000001 -89.9999999)",
+            "LINESTRING (0 0, 2 0, 5 0.5)",
+            "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 3, 3 3, 2 2))",
+            "MULTIPOINT ((1 1), (2 2))",
+            "MULTILINESTRING ((0 0, 1 1), (2 2, 3 3))",
+            "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))",
+            "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))",
+            "POLYGON EMPTY"
+    };
+
+    @Test
+    public void testRoundTrip() throws ParseException {
+        for (String wkt : WKTS) {
+            Geometry geometry = READER.read(wkt);
+            for (GeometryEncoding encoding : GeometryEncoding.values()) {
+                byte[] bytes = GeometryCodec.encode(geometry, encoding, 2, GeometryEncoding.DEFAULT_TWKB_PRECISION);
+                assertEquals(wkt, encoding, GeometryCodec.detect(bytes, 0, bytes.length));
+                Geometry decoded = GeometryCodec.decode(bytes, FACTORY);
+                assertTrue(wkt + " " + encoding, geometry.equalsExact(decoded, 1e-7));
+            }
+        }
+    }
+
+    @Test
+    public void testTWKBIsSmallerThanWKB() throws ParseException {
+        Geometry geometry = READER.read(WKTS[3]);
+        byte[] wkb = GeometryCodec.encode(geometry, GeometryEncoding.WKB, 2, 0);
+        byte[] twkb = GeometryCodec.encode(geometry, GeometryEncoding.TWKB, 2, 3);
+        assertTrue(twkb.length * 2 < wkb.length);
+    }
+
+    /**
+     * 从更大的字节数组中的某一段解码，模拟RegionServer端指向行数据的指针
+     */
+    @Test
+    public void testDecodeRange() throws ParseException {
+        Geometry geometry = READER.read(WKTS[2]);
+        for (GeometryEncoding encoding : GeometryEncoding.values()) {
+            byte[] bytes = GeometryCodec.encode(geometry, encoding, 2, 5);
+            byte[] row = new byte[bytes.length + 6];
+            System.arraycopy(bytes, 0, row, 3, bytes.length);
+            assertTrue(geometry.equalsExact(GeometryCodec.decode(row, 3, bytes.length, FACTORY)));
+        }
+    }
+
+    @Test
+    public void testDetectLegacyWkt() {
+        byte[] bytes = "GEOMETRYCOLLECTION (POINT (1 2))".getBytes(StandardCharsets.UTF_8);
+        assertEquals(GeometryEncoding.WKT, GeometryCodec.detect(bytes, 0, bytes.length));
+    }
+
+    /**
+     * 直接扫描得到的外包矩形应与解码后几何对象的外包矩形完全一致
+     */
+    @Test
+    public void testScanEnvelope() throws ParseException {
+        EnvelopeScanner scanner = new EnvelopeScanner();
+        Envelope envelope = new Envelope();
+        for (String wkt : WKTS) {
+            Geometry geometry = READER.read(wkt);
+            for (GeometryEncoding encoding : GeometryEncoding.values()) {
+                byte[] bytes = GeometryCodec.encode(geometry, encoding, 2, GeometryEncoding.DEFAULT_TWKB_PRECISION);
+                assertEquals(wkt + " " + encoding, !geometry.isEmpty(), scanner.scan(bytes, 0, bytes.length, envelope));
+                assertEquals(wkt + " " + encoding, GeometryCodec.decode(bytes, FACTORY).getEnvelopeInternal(), envelope);
+            }
+        }
+    }
+
+    @Test
+    public void testScanEnvelopeWithExtraOrdinates() throws ParseException {
+        EnvelopeScanner scanner = new EnvelopeScanner();
+        Envelope envelope = new Envelope();
+        Geometry geometry = READER.read("LINESTRING (1 2 300, -4 5e-3 -600)");
+        byte[] wkb = new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN, true).write(geometry);
+        scanner.scan(wkb, 0, wkb.length, envelope);
+        assertEquals(new Envelope(-4, 1, 0.005, 2), envelope);
+
+        byte[] wkt = "POINT Z (1.25E2 -0.000000000000000000000000123456789 7)".getBytes(StandardCharsets.UTF_8);
+        scanner.scan(wkt, 0, wkt.length, envelope);
+        assertEquals(new Envelope(125, 125, -1.23456789e-25, -1.23456789e-25), envelope);
+
+        byte[] empty = "POINT EMPTY".getBytes(StandardCharsets.UTF_8);
+        assertFalse(scanner.scan(empty, 0, empty.length, envelope));
+    }
+}
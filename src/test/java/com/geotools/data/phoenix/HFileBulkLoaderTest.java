@@ -0,0 +1,278 @@
+package com.geotools.data.phoenix;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.hfile.HFileScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.phoenix.HFileBulkLoader;
+import org.geotools.data.phoenix.PhoenixDialectPrepared;
+import org.geotools.data.store.ContentEntry;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.factory.Hints;
+import org.geotools.feature.NameImpl;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.JDBCFeatureSource;
+import org.geotools.jdbc.NonIncrementingPrimaryKeyColumn;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 离线生成HFile的测试类，在本地文件系统上验证取出KeyValue、排序去重及按表和列族分目录写出HFile，
+ * 以Phoenix连接中缓存的KeyValue作为输入，不需要HBase集群；加载到HBase的完整流程见minicluster配置中的测试
+ * Created by Administrator on 2026/10/17.
+ */
+public class HFileBulkLoaderTest {
+    private final static String TABLE = "GEOTOOLS_CM";
+    private final static String INDEX_TABLE = "GEOTOOLS_CM_GEOM_GEOHASH_IDX";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SimpleFeatureType featureType;
+    private Configuration conf;
+    private Path outputDir;
+    private FileSystem fs;
+
+    @Before
+    public void setUp() throws Exception {
+        featureType = DataUtilities.createType(TABLE, "NAME:String");
+        conf = new Configuration();
+        conf.set("fs.defaultFS", "file:///");
+        outputDir = new Path(folder.getRoot().toURI().toString(), "hfiles");
+        fs = outputDir.getFileSystem(conf);
+    }
+
+    /**
+     * 每写入两个要素取出一次KeyValue，各列族的KeyValue排序去重后写为一个HFile
+     * @throws Exception
+     */
+    @Test
+    public void testWriteSortedFiles() throws Exception {
+        HFileBulkLoader loader = createLoader(
+                Arrays.asList(
+                        table(TABLE, keyValue("r3", "0", 1, "c"), keyValue("r1", "0", 1, "a"), keyValue("r1", "0", 1, "a"), keyValue("r1", "1", 1, "x")),
+                        table(INDEX_TABLE, keyValue("i2", "0", 1, ""), keyValue("i1", "0", 1, ""))),
+                Arrays.asList(
+                        /*未指定时间戳的KeyValue取当前时间；同一行在之后的批次中重复写入*/
+                        table(TABLE, keyValue("r2", "0", HConstants.LATEST_TIMESTAMP, "b"), keyValue("r1", "0", 1, "a"))));
+        loader.setRowsPerDrain(2);
+        assertEquals(3, loader.write(TABLE, features(3)));
+
+        assertEquals(new HashSet<>(Arrays.asList(TABLE, INDEX_TABLE)), new HashSet<>(names(outputDir)));
+        assertEquals(new HashSet<>(Arrays.asList("0", "1")), new HashSet<>(names(new Path(outputDir, TABLE))));
+        List<KeyValue> keyValues = read(singleFile(new Path(new Path(outputDir, TABLE), "0")));
+        assertEquals(Arrays.asList("r1", "r2", "r3"), rows(keyValues));
+        assertTrue(keyValues.get(1).getTimestamp() != HConstants.LATEST_TIMESTAMP);
+        assertEquals(Collections.singletonList("r1"), rows(read(singleFile(new Path(new Path(outputDir, TABLE), "1")))));
+        assertEquals(Arrays.asList("i1", "i2"), rows(read(singleFile(new Path(new Path(outputDir, INDEX_TABLE), "0")))));
+    }
+
+    /**
+     * 一个列族的KeyValue达到单个HFile的上限时提前写出，同一列族的多个HFile各自有序
+     * @throws Exception
+     */
+    @Test
+    public void testKeyValuesPerFile() throws Exception {
+        HFileBulkLoader loader = createLoader(Collections.singletonList(
+                table(TABLE, keyValue("r5", "0", 1, "e"), keyValue("r4", "0", 1, "d"), keyValue("r3", "0", 1, "c"),
+                        keyValue("r2", "0", 1, "b"), keyValue("r1", "0", 1, "a"))));
+        loader.setKeyValuesPerFile(2);
+        loader.write(TABLE, features(1));
+
+        FileStatus[] files = fs.listStatus(new Path(new Path(outputDir, TABLE), "0"));
+        assertEquals(3, files.length);
+        List<String> rows = new ArrayList<>();
+        for (FileStatus file : files) {
+            List<String> fileRows = rows(read(file.getPath()));
+            List<String> sorted = new ArrayList<>(fileRows);
+            Collections.sort(sorted);
+            assertEquals(sorted, fileRows);
+            rows.addAll(fileRows);
+        }
+        Collections.sort(rows);
+        assertEquals(Arrays.asList("r1", "r2", "r3", "r4", "r5"), rows);
+    }
+
+    /**
+     * 以给定的KeyValue作为每次从Phoenix连接中取出的未提交数据的加载器
+     * @param drains 依次取出的各批数据，用完后取出的数据为空
+     * @return
+     * @throws Exception
+     */
+    @SafeVarargs
+    private final HFileBulkLoader createLoader(List<Pair<byte[], List<KeyValue>>>... drains) throws Exception {
+        final Queue<List<Pair<byte[], List<KeyValue>>>> queue = new LinkedList<>(Arrays.asList(drains));
+        return new HFileBulkLoader(createDataStore(), conf, outputDir) {
+            @Override
+            protected Iterator<Pair<byte[], List<KeyValue>>> getUncommittedData(Connection cx) {
+                List<Pair<byte[], List<KeyValue>>> data = queue.poll();
+                return data != null ? data.iterator() : Collections.<Pair<byte[], List<KeyValue>>>emptyIterator();
+            }
+        };
+    }
+
+    private static Pair<byte[], List<KeyValue>> table(String tableName, KeyValue... keyValues) {
+        return new Pair<byte[], List<KeyValue>>(Bytes.toBytes(tableName), new ArrayList<>(Arrays.asList(keyValues)));
+    }
+
+    private static KeyValue keyValue(String row, String family, long timestamp, String value) {
+        return new KeyValue(Bytes.toBytes(row), Bytes.toBytes(family), Bytes.toBytes("NAME"), timestamp, Bytes.toBytes(value));
+    }
+
+    /**
+     * 使用提供的要素ID的要素，不查询表中现有的最大ID
+     * @param count
+     * @return
+     */
+    private ListFeatureCollection features(int count) {
+        ListFeatureCollection features = new ListFeatureCollection(featureType);
+        for (int i = 1; i <= count; i++) {
+            SimpleFeature feature = SimpleFeatureBuilder.build(featureType, new Object[]{"n" + i}, TABLE + "." + i);
+            feature.getUserData().put(Hints.USE_PROVIDED_FID, Boolean.TRUE);
+            features.add(feature);
+        }
+        return features;
+    }
+
+    private List<String> names(Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (FileStatus status : fs.listStatus(dir)) {
+            names.add(status.getPath().getName());
+        }
+        return names;
+    }
+
+    private Path singleFile(Path dir) throws IOException {
+        FileStatus[] files = fs.listStatus(dir);
+        assertEquals(1, files.length);
+        return files[0].getPath();
+    }
+
+    /**
+     * 按顺序读出HFile中的全部KeyValue
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    private List<KeyValue> read(Path file) throws IOException {
+        List<KeyValue> keyValues = new ArrayList<>();
+        HFile.Reader reader = HFile.createReader(fs, file, new CacheConfig(conf), conf);
+        try {
+            reader.loadFileInfo();
+            HFileScanner scanner = reader.getScanner(false, false);
+            if (scanner.seekTo()) {
+                do {
+                    keyValues.add(scanner.getKeyValue());
+                } while (scanner.next());
+            }
+        } finally {
+            reader.close(false);
+        }
+        return keyValues;
+    }
+
+    private static List<String> rows(List<KeyValue> keyValues) {
+        List<String> rows = new ArrayList<>();
+        for (KeyValue keyValue : keyValues) {
+            rows.add(Bytes.toString(keyValue.getRow()));
+        }
+        return rows;
+    }
+
+    /**
+     * 以FID为主键的数据源，写入的行只缓存在连接中，取出后回滚
+     * @return
+     * @throws Exception
+     */
+    private JDBCDataStore createDataStore() throws Exception {
+        final PreparedStatement ps = proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return defaultValue(method.getReturnType());
+            }
+        });
+        final Connection cx = proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("prepareStatement".equals(method.getName()))
+                    return ps;
+                return defaultValue(method.getReturnType());
+            }
+        });
+        JDBCDataStore dataStore = new JDBCDataStore() {
+            @Override
+            public SimpleFeatureType getSchema(String typeName) throws IOException {
+                return featureType;
+            }
+
+            @Override
+            public ContentFeatureSource getFeatureSource(String typeName) throws IOException {
+                return new JDBCFeatureSource(new ContentEntry(this, new NameImpl(typeName)), null) {
+                    @Override
+                    public PrimaryKey getPrimaryKey() {
+                        return new PrimaryKey(TABLE, Collections.<PrimaryKeyColumn>singletonList(
+                                new NonIncrementingPrimaryKeyColumn("FID", Integer.class)));
+                    }
+                };
+            }
+        };
+        dataStore.setSQLDialect(new PhoenixDialectPrepared(dataStore) {
+        });
+        dataStore.setDataSource(proxy(DataSource.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return "getConnection".equals(method.getName()) ? cx : null;
+            }
+        }));
+        return dataStore;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        return null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(HFileBulkLoaderTest.class.getClassLoader(), new Class[]{type}, handler));
+    }
+}
@@ -0,0 +1,200 @@
+package com.geotools.data.phoenix;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.memory.MemoryDataStore;
+import org.geotools.data.phoenix.KeysetPager;
+import org.geotools.data.phoenix.PhoenixFilterToSQL;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.text.ecql.ECQL;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.NonIncrementingPrimaryKeyColumn;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按主键的键集分页的测试类，字典序比较应编码为行值构造器，使Phoenix直接从上一页最后一行的键开始扫描
+ * Created by Administrator on 2026/10/17.
+ */
+public class KeysetPagerTest {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+    private static SimpleFeatureType featureType;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        featureType = DataUtilities.createType("GEOTOOLS_CM", "REGION:String,FID:Integer,GEOM_GEOHASH:Long,NAME:String,GEOM:Point:srid=4326");
+    }
+
+    @Test
+    public void testEncodeKeyset() throws Exception {
+        assertEquals("FID > 7", encodeNextPage(Arrays.<Object>asList(7), "FID").trim());
+        assertEquals("(FID, GEOM_GEOHASH) > (7, 4050001234)", encodeNextPage(Arrays.<Object>asList(7, 4050001234L), "FID", "GEOM_GEOHASH").trim());
+        assertEquals("(REGION, FID, GEOM_GEOHASH) > ('xi''an', 7, 4050001234)",
+                encodeNextPage(Arrays.<Object>asList("xi'an", 7, 4050001234L), "REGION", "FID", "GEOM_GEOHASH").trim());
+        /*与原过滤条件组合*/
+        JDBCDataStore dataStore = createDataStore(null);
+        KeysetPager pager = new KeysetPager(dataStore, "GEOTOOLS_CM", Arrays.asList("FID", "GEOM_GEOHASH"), ECQL.toFilter("NAME = 'a'"), 10);
+        pager.setLastKey(Arrays.<Object>asList(7, 4050001234L));
+        String sql = encode(pager.getQuery().getFilter(), "FID", "GEOM_GEOHASH");
+        assertTrue(sql, sql.contains("NAME = 'a'"));
+        assertTrue(sql, sql.contains("(FID, GEOM_GEOHASH) > (7, 4050001234)"));
+    }
+
+    /**
+     * 不是主键上按主键顺序的字典序比较时按一般的OR编码
+     * @throws Exception
+     */
+    @Test
+    public void testEncodeFallback() throws Exception {
+        String[] filters = {
+                /*非主键列*/
+                "NAME > 'a' OR (NAME = 'a' AND FID > 7)",
+                /*主键列顺序颠倒*/
+                "GEOM_GEOHASH > 5 OR (GEOM_GEOHASH = 5 AND FID > 7)",
+                /*前缀的取值不一致*/
+                "FID > 7 OR (FID = 8 AND GEOM_GEOHASH > 5)",
+                /*前缀不是相等比较*/
+                "FID > 7 OR (FID >= 7 AND GEOM_GEOHASH > 5)",
+                /*缺少第一个分支*/
+                "(FID = 7 AND GEOM_GEOHASH > 5) OR NAME = 'a'"
+        };
+        for (String cql : filters) {
+            String sql = encode(ECQL.toFilter(cql), "FID", "GEOM_GEOHASH");
+            assertTrue(sql, sql.contains(" OR "));
+            assertFalse(sql, sql.contains("(FID, GEOM_GEOHASH)"));
+        }
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        JDBCDataStore dataStore = createDataStore(createFeatures(5));
+        KeysetPager pager = new KeysetPager(dataStore, "GEOTOOLS_CM", Collections.singletonList("FID"), null, 2);
+        assertTrue(pager.hasNext());
+        assertNull(pager.getLastKey());
+        assertEquals(Arrays.asList(1, 2), fids(pager.next()));
+        assertEquals(Collections.<Object>singletonList(2), pager.getLastKey());
+        assertTrue(pager.hasNext());
+        assertEquals(Arrays.asList(3, 4), fids(pager.next()));
+        /*最后一页不满*/
+        assertEquals(Collections.singletonList(5), fids(pager.next()));
+        assertFalse(pager.hasNext());
+        assertEquals(Collections.<Object>singletonList(5), pager.getLastKey());
+        assertTrue(pager.next().isEmpty());
+
+        /*从保存的主键恢复*/
+        pager.setLastKey(Collections.<Object>singletonList(2));
+        assertTrue(pager.hasNext());
+        assertEquals(Arrays.asList(3, 4), fids(pager.next()));
+    }
+
+    /**
+     * 最后一页恰好满时再读取一次空页才知道已读完，空页不改变记住的主键
+     * @throws Exception
+     */
+    @Test
+    public void testFullLastPage() throws Exception {
+        JDBCDataStore dataStore = createDataStore(createFeatures(4));
+        KeysetPager pager = new KeysetPager(dataStore, "GEOTOOLS_CM", Collections.singletonList("FID"), null, 2);
+        assertEquals(Arrays.asList(1, 2), fids(pager.next()));
+        assertEquals(Arrays.asList(3, 4), fids(pager.next()));
+        assertTrue(pager.hasNext());
+        assertTrue(pager.next().isEmpty());
+        assertFalse(pager.hasNext());
+        assertEquals(Collections.<Object>singletonList(4), pager.getLastKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLastKeySize() throws Exception {
+        KeysetPager pager = new KeysetPager(createDataStore(null), "GEOTOOLS_CM", Arrays.asList("FID", "GEOM_GEOHASH"), null, 2);
+        pager.setLastKey(Collections.<Object>singletonList(7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrimaryKeyNotExposed() throws Exception {
+        new KeysetPager(new JDBCDataStore(), "GEOTOOLS_CM", Collections.singletonList("FID"), null, 2);
+    }
+
+    /**
+     * 上一页最后一行为指定主键时，下一页的过滤条件编码后的SQL
+     * @param lastKey
+     * @param keyColumns
+     * @return
+     * @throws Exception
+     */
+    private static String encodeNextPage(List<Object> lastKey, String... keyColumns) throws Exception {
+        KeysetPager pager = new KeysetPager(createDataStore(null), "GEOTOOLS_CM", Arrays.asList(keyColumns), null, 10);
+        pager.setLastKey(lastKey);
+        return encode(pager.getQuery().getFilter(), keyColumns);
+    }
+
+    private static String encode(Filter filter, String... keyColumns) throws Exception {
+        List<PrimaryKeyColumn> columns = new ArrayList<>();
+        for (String column : keyColumns) {
+            columns.add(new NonIncrementingPrimaryKeyColumn(column, featureType.getDescriptor(column).getType().getBinding()));
+        }
+        PhoenixFilterToSQL encoder = new PhoenixFilterToSQL();
+        encoder.setFeatureType(featureType);
+        encoder.setPrimaryKey(new PrimaryKey("GEOTOOLS_CM", columns));
+        encoder.setInline(true);
+        return encoder.encodeToString(filter);
+    }
+
+    /**
+     * 暴露主键列的数据源，要素从内存数据源中读取
+     * @param features 为null时不读取要素
+     * @return
+     */
+    private static JDBCDataStore createDataStore(List<SimpleFeature> features) {
+        final MemoryDataStore memory = new MemoryDataStore();
+        if (features != null)
+            memory.addFeatures(features);
+        JDBCDataStore dataStore = new JDBCDataStore() {
+            @Override
+            public FeatureReader<SimpleFeatureType, SimpleFeature> getFeatureReader(Query query, Transaction tx) throws IOException {
+                return memory.getFeatureReader(query, tx);
+            }
+        };
+        dataStore.setExposePrimaryKeyColumns(true);
+        return dataStore;
+    }
+
+    private static List<SimpleFeature> createFeatures(int count) {
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
+        List<SimpleFeature> features = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            builder.set("REGION", "xi'an");
+            builder.set("FID", i);
+            builder.set("GEOM_GEOHASH", 4050001234L + i);
+            features.add(builder.buildFeature("GEOTOOLS_CM." + i));
+        }
+        return features;
+    }
+
+    private static List<Integer> fids(List<SimpleFeature> page) {
+        List<Integer> fids = new ArrayList<>();
+        for (SimpleFeature feature : page) {
+            fids.add((Integer) feature.getAttribute("FID"));
+        }
+        return fids;
+    }
+}
@@ -0,0 +1,95 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.geotools.data.phoenix.PhoenixDialectBasic;
+import org.geotools.jdbc.JDBCDataStore;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 图层范围聚合的测试类，GeoTools按空间列的序号读取各空间列的范围，每个空间列的范围由连续的四列聚合值组成
+ * Created by Administrator on 2026/10/17.
+ */
+public class PhoenixBoundsTest {
+
+    @Test
+    public void testTwoGeometryColumns() throws Exception {
+        JDBCDataStore dataStore = new JDBCDataStore();
+        PhoenixDialectBasic dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+
+        /*GeoTools依次写出各空间列的范围，以逗号分隔*/
+        StringBuffer sql = new StringBuffer("SELECT ");
+        dialect.encodeGeometryEnvelope("GEOTOOLS_CM", "G1", sql);
+        sql.append(",");
+        dialect.encodeGeometryEnvelope("GEOTOOLS_CM", "G2", sql);
+        String select = sql.toString();
+        assertTrue(select, select.contains("MIN(ST_XMIN(G1)) AS G1_XMIN"));
+        assertTrue(select, select.contains("MAX(ST_YMAX(G2)) AS G2_YMAX"));
+
+        ResultSet rs = createResultSet(new String[]{"G1_XMIN", "G1_YMIN", "G1_XMAX", "G1_YMAX", "G2_XMIN", "G2_YMIN", "G2_XMAX", "G2_YMAX"},
+                new Double[]{108.0, 34.0, 109.0, 35.0, -74.0, 40.0, -73.0, 41.0});
+        /*第i个空间列以i + 1调用*/
+        assertEquals(new Envelope(108, 109, 34, 35), dialect.decodeGeometryEnvelope(rs, 1, null));
+        assertEquals(new Envelope(-74, -73, 40, 41), dialect.decodeGeometryEnvelope(rs, 2, null));
+    }
+
+    /**
+     * 没有要素时聚合值为空，返回空矩形
+     * @throws Exception
+     */
+    @Test
+    public void testEmptyTable() throws Exception {
+        JDBCDataStore dataStore = new JDBCDataStore();
+        PhoenixDialectBasic dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+        ResultSet rs = createResultSet(new String[]{"G1_XMIN", "G1_YMIN", "G1_XMAX", "G1_YMAX", "G2_XMIN", "G2_YMIN", "G2_XMAX", "G2_YMAX"},
+                new Double[]{108.0, 34.0, 109.0, 35.0, null, null, null, null});
+        assertEquals(new Envelope(108, 109, 34, 35), dialect.decodeGeometryEnvelope(rs, 1, null));
+        assertTrue(dialect.decodeGeometryEnvelope(rs, 2, null).isNull());
+    }
+
+    /**
+     * 按列别名和取值构造的单行结果集
+     * @param labels
+     * @param values 为null的取值按SQL空值返回
+     * @return
+     */
+    private static ResultSet createResultSet(final String[] labels, final Double[] values) {
+        final ResultSetMetaData metadata = (ResultSetMetaData) Proxy.newProxyInstance(PhoenixBoundsTest.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getColumnCount".equals(method.getName()))
+                    return labels.length;
+                if ("getColumnLabel".equals(method.getName()))
+                    return labels[(Integer) args[0] - 1];
+                return null;
+            }
+        });
+        return (ResultSet) Proxy.newProxyInstance(PhoenixBoundsTest.class.getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+            private boolean wasNull;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getMetaData".equals(method.getName()))
+                    return metadata;
+                if ("getDouble".equals(method.getName())) {
+                    Double value = values[(Integer) args[0] - 1];
+                    wasNull = value == null;
+                    return wasNull ? 0.0 : value;
+                }
+                if ("wasNull".equals(method.getName()))
+                    return wasNull;
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.phoenix.PhoenixBatchWriter;
+import org.geotools.data.phoenix.PhoenixBulkWriter;
+import org.geotools.data.phoenix.PhoenixDialectPrepared;
+import org.geotools.data.store.ContentEntry;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.factory.Hints;
+import org.geotools.feature.NameImpl;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.JDBCFeatureSource;
+import org.geotools.jdbc.NonIncrementingPrimaryKeyColumn;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 并行分区批量写入的分区及定时提交出错的测试类
+ * Created by Administrator on 2026/10/17.
+ */
+public class PhoenixBulkWriterTest {
+
+    /**
+     * 只覆盖一个城市的数据也均匀地分布到各分区
+     * @throws Exception
+     */
+    @Test
+    public void testClusteredExtentSpreads() throws Exception {
+        SimpleFeatureType featureType = DataUtilities.createType("GEOTOOLS_CM", "GEOM:Point:srid=4326");
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
+        GeometryFactory factory = new GeometryFactory();
+        Random random = new Random(1);
+        int partitions = 8;
+        int count = 8000;
+        int[] counts = new int[partitions];
+        for (int i = 0; i < count; i++) {
+            /*西安市区约0.2度见方的范围*/
+            builder.add(factory.createPoint(new Coordinate(108.8 + random.nextDouble() * 0.2, 34.2 + random.nextDouble() * 0.2)));
+            SimpleFeature feature = builder.buildFeature("GEOTOOLS_CM." + (i + 1));
+            counts[PhoenixBulkWriter.partitionOf(feature.getID(), partitions)]++;
+        }
+        for (int partition = 0; partition < partitions; partition++) {
+            assertTrue("partition " + partition + ": " + counts[partition], Math.abs(counts[partition] - count / partitions) < count / partitions / 5);
+        }
+    }
+
+    @Test
+    public void testPartitionRange() {
+        for (String id : new String[]{"", "GEOTOOLS_CM.1", "GEOTOOLS_CM.-7", "西安"}) {
+            for (int partitions = 1; partitions < 10; partitions++) {
+                int partition = PhoenixBulkWriter.partitionOf(id, partitions);
+                assertTrue(partition >= 0 && partition < partitions);
+            }
+        }
+    }
+
+    /**
+     * 定时提交失败时缓存的行已丢失，调用方之后的写入、提交和关闭都抛出错误
+     * @throws Exception
+     */
+    @Test
+    public void testScheduledCommitFailure() throws Exception {
+        CountDownLatch committed = new CountDownLatch(1);
+        JDBCDataStore dataStore = createFailingDataStore(committed);
+        PhoenixBatchWriter writer = new PhoenixBatchWriter(dataStore, "GEOTOOLS_CM", 1000, 50);
+        writer.write(feature(1));
+        assertTrue(committed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        try {
+            writer.write(feature(2));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        try {
+            writer.commit();
+            fail();
+        } catch (IOException e) {
+            /*之前的定时提交失败*/
+        }
+        try {
+            writer.close();
+            fail();
+        } catch (IOException e) {
+            /*关闭时仍抛出，连接已释放*/
+        }
+    }
+
+    /**
+     * 分区写入器定时提交失败时，批量写入器的写入和关闭抛出错误
+     * @throws Exception
+     */
+    @Test
+    public void testBulkScheduledCommitFailure() throws Exception {
+        CountDownLatch committed = new CountDownLatch(1);
+        PhoenixBulkWriter writer = new PhoenixBulkWriter(createFailingDataStore(committed), "GEOTOOLS_CM", 1, 1000, 50, 10);
+        writer.write(feature(1));
+        assertTrue(committed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        try {
+            writer.write(feature(2));
+            fail();
+        } catch (IOException e) {
+            /*定时提交失败*/
+        }
+        try {
+            writer.close();
+            fail();
+        } catch (IOException e) {
+            /*定时提交失败*/
+        }
+    }
+
+    private static SimpleFeature feature(int id) throws Exception {
+        SimpleFeatureType featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String");
+        SimpleFeature feature = SimpleFeatureBuilder.build(featureType, new Object[]{"n" + id}, "GEOTOOLS_CM." + id);
+        feature.getUserData().put(Hints.USE_PROVIDED_FID, Boolean.TRUE);
+        return feature;
+    }
+
+    /**
+     * 以FID为主键、提交总是失败的数据源
+     * @param committed 尝试提交时计数
+     * @return
+     * @throws Exception
+     */
+    private static JDBCDataStore createFailingDataStore(final CountDownLatch committed) throws Exception {
+        final SimpleFeatureType featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String");
+        final PreparedStatement ps = proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return defaultValue(method.getReturnType());
+            }
+        });
+        final Connection cx = proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("prepareStatement".equals(method.getName()))
+                    return ps;
+                if ("commit".equals(method.getName())) {
+                    committed.countDown();
+                    throw new SQLException("Region server unavailable");
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+        JDBCDataStore dataStore = new JDBCDataStore() {
+            @Override
+            public SimpleFeatureType getSchema(String typeName) throws IOException {
+                return featureType;
+            }
+
+            @Override
+            public ContentFeatureSource getFeatureSource(String typeName) throws IOException {
+                return new JDBCFeatureSource(new ContentEntry(this, new NameImpl(typeName)), null) {
+                    @Override
+                    public PrimaryKey getPrimaryKey() {
+                        return new PrimaryKey("GEOTOOLS_CM", Collections.<PrimaryKeyColumn>singletonList(
+                                new NonIncrementingPrimaryKeyColumn("FID", Integer.class)));
+                    }
+                };
+            }
+        };
+        dataStore.setSQLDialect(new PhoenixDialectPrepared(dataStore) {
+        });
+        dataStore.setDataSource(proxy(DataSource.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return "getConnection".equals(method.getName()) ? cx : null;
+            }
+        }));
+        return dataStore;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        return null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(PhoenixBulkWriterTest.class.getClassLoader(), new Class[]{type}, handler));
+    }
+}
@@ -0,0 +1,338 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.phoenix.PhoenixDialect;
+import org.geotools.data.phoenix.PhoenixDialectBasic;
+import org.geotools.data.phoenix.PhoenixDialectPrepared;
+import org.geotools.data.phoenix.PhoenixFilterToSQL;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.NonIncrementingPrimaryKeyColumn;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.geotools.jdbc.SequencedPrimaryKeyColumn;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 点空间列的_GEOHASH主键取值的测试类，写入的键由同一行的几何对象计算，并与要素ID一致
+ * Created by Administrator on 2026/10/17.
+ */
+public class PhoenixDialectGeoHashTest {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+    private final static String SEQUENCE = "GEOTOOLS_CM.GEOM";
+
+    private SimpleFeatureType featureType;
+    private Point point;
+    private Connection cx;
+    /**
+     * 预编译语句上调用过的绑定方法，形如"setBytes(2)"
+     */
+    private List<String> bindings;
+
+    @Before
+    public void setUp() throws Exception {
+        featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,GEOM:Point:srid=4326,AREA:Polygon:srid=4326");
+        point = new GeometryFactory().createPoint(new Coordinate(108.9, 34.2));
+        bindings = new ArrayList<>();
+        final DatabaseMetaData metadata = proxy(DatabaseMetaData.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getSearchStringEscape".equals(method.getName()))
+                    return "\\";
+                if ("getColumns".equals(method.getName()))
+                    return columns("GEOM".equals(args[3]) || "AREA".equals(args[3]));
+                return null;
+            }
+        });
+        /*没有geometry_columns元数据表*/
+        final Statement st = proxy(Statement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("executeQuery".equals(method.getName()))
+                    throw new SQLException("Table undefined");
+                return null;
+            }
+        });
+        cx = proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getMetaData".equals(method.getName()))
+                    return metadata;
+                if ("createStatement".equals(method.getName()))
+                    return st;
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testBasicUpsert() throws Exception {
+        PhoenixDialectBasic dialect = createBasicDialect();
+        assertEquals(SEQUENCE, dialect.getSequenceForColumn("PUBLIC", "GEOTOOLS_CM", "GEOM_GEOHASH", cx));
+        assertNull(dialect.getSequenceForColumn("PUBLIC", "GEOTOOLS_CM", "FID", cx));
+        /*表中没有对应空间列的_GEOHASH列*/
+        assertNull(dialect.getSequenceForColumn("PUBLIC", "GEOTOOLS_CM", "LOCATION_GEOHASH", cx));
+
+        StringBuffer sql = new StringBuffer("UPSERT INTO GEOTOOLS_CM (NAME, GEOM, AREA, FID, GEOM_GEOHASH) VALUES ('a', ");
+        dialect.encodeGeometryValue(point, 2, 4326, sql);
+        sql.append(", ");
+        dialect.encodeGeometryValue(point.buffer(1), 2, 4326, sql);
+        assertEquals(PhoenixDialect.encodeGeoHash(point), dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+        /*取值只用于本行*/
+        assertEquals(0L, dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+
+        /*下一行*/
+        Point next = new GeometryFactory().createPoint(new Coordinate(-73.9, 40.7));
+        sql = new StringBuffer("UPSERT INTO GEOTOOLS_CM (NAME, GEOM, AREA, FID, GEOM_GEOHASH) VALUES ('b', ");
+        dialect.encodeGeometryValue(next, 2, 4326, sql);
+        assertEquals(PhoenixDialect.encodeGeoHash(next), dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+    }
+
+    /**
+     * 没有写出本行的空间列时按空几何对象取0
+     * @throws Exception
+     */
+    @Test
+    public void testMissingGeometry() throws Exception {
+        PhoenixDialectBasic dialect = createBasicDialect();
+        assertEquals(0L, dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+        /*过滤条件中的几何字面量不是本行的取值*/
+        StringBuffer sql = new StringBuffer("SELECT FID FROM GEOTOOLS_CM WHERE ST_INTERSECTS(GEOM, ");
+        dialect.encodeGeometryValue(point, 2, 4326, sql);
+        assertEquals(0L, dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+    }
+
+    /**
+     * GeoTools写入空值时直接拼接null而不编码几何对象，其后的空间列仍按列的位置取值
+     * @throws Exception
+     */
+    @Test
+    public void testInsertNullGeometry() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,GEOM:Point:srid=4326,LOC:Point:srid=4326");
+        List<PrimaryKeyColumn> columns = new ArrayList<>();
+        columns.add(new NonIncrementingPrimaryKeyColumn("FID", Integer.class));
+        columns.add(new SequencedPrimaryKeyColumn("GEOM_GEOHASH", Long.class, SEQUENCE));
+        columns.add(new SequencedPrimaryKeyColumn("LOC_GEOHASH", Long.class, "GEOTOOLS_CM.LOC"));
+        InsertingDataStore dataStore = new InsertingDataStore(new PrimaryKey("GEOTOOLS_CM", columns));
+        PhoenixDialectBasic dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+        List<String> updates = new ArrayList<>();
+        Connection cx = createInsertConnection(updates);
+        dialect.postCreateFeatureType(type, null, null, cx);
+
+        Point loc = new GeometryFactory().createPoint(new Coordinate(-73.9, 40.7));
+        SimpleFeature feature = SimpleFeatureBuilder.build(type, new Object[]{"a", null, loc}, null);
+        dataStore.insert(feature, type, cx);
+        String sql = updates.get(0).replaceAll("\\s", "");
+        assertTrue(sql, sql.startsWith("UPSERTINTOGEOTOOLS_CM"));
+        assertTrue(sql, sql.endsWith(",0," + PhoenixDialect.encodeGeoHash(loc) + ")"));
+        String fid = (String) feature.getUserData().get("fid");
+        assertTrue(fid, fid.endsWith(".0." + PhoenixDialect.encodeGeoHash(loc)));
+
+        /*第一个空间列有值、第二个为空*/
+        feature = SimpleFeatureBuilder.build(type, new Object[]{"b", point, null}, null);
+        dataStore.insert(feature, type, cx);
+        sql = updates.get(1).replaceAll("\\s", "");
+        assertTrue(sql, sql.endsWith("," + PhoenixDialect.encodeGeoHash(point) + ",0)"));
+    }
+
+    @Test
+    public void testPreparedUpsert() throws Exception {
+        JDBCDataStore dataStore = new JDBCDataStore();
+        PhoenixDialectPrepared dialect = new PhoenixDialectPrepared(dataStore) {
+        };
+        dataStore.setSQLDialect(dialect);
+        dialect.postCreateFeatureType(featureType, null, "PUBLIC", cx);
+
+        StringBuffer sql = new StringBuffer("UPSERT INTO GEOTOOLS_CM (NAME, GEOM, AREA, FID, GEOM_GEOHASH) VALUES (?, ");
+        dialect.prepareGeometryValue(Point.class, 2, 4326, Point.class, sql);
+        sql.append(", ");
+        dialect.prepareGeometryValue(Polygon.class, 2, 4326, Polygon.class, sql);
+        sql.append(", ?, ?)");
+        PreparedStatement ps = createStatement();
+        /*同一语句逐行绑定*/
+        for (Point value : Arrays.asList(point, new GeometryFactory().createPoint(new Coordinate(-73.9, 40.7)))) {
+            dialect.setGeometryValue(value, 2, 4326, Point.class, ps, 2);
+            dialect.setGeometryValue(value.buffer(1), 2, 4326, Polygon.class, ps, 3);
+            assertEquals(PhoenixDialect.encodeGeoHash(value), dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+        }
+        /*未登记编码的表为早期的WKT表*/
+        assertEquals(Arrays.asList("setString(2)", "setString(3)", "setString(2)", "setString(3)"), bindings);
+
+        /*过滤条件中的几何字面量绑定为WKB，不作为本行的取值*/
+        bindings.clear();
+        dialect.prepareGeometryValue(Point.class, 2, 4326, Point.class, new StringBuffer());
+        dialect.setGeometryValue(point, 2, 4326, Point.class, ps, 1);
+        assertEquals(Arrays.asList("setBytes(1)"), bindings);
+        assertEquals(0L, dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx));
+    }
+
+    /**
+     * 插入后返回的要素ID按同一键值查回刚写入的行
+     * @throws Exception
+     */
+    @Test
+    public void testFeatureIdRoundTrip() throws Exception {
+        PhoenixDialectBasic dialect = createBasicDialect();
+        StringBuffer sql = new StringBuffer("UPSERT INTO GEOTOOLS_CM (NAME, GEOM, AREA, FID, GEOM_GEOHASH) VALUES ('a', ");
+        dialect.encodeGeometryValue(point, 2, 4326, sql);
+        Object geoHash = dialect.getNextSequenceValue("PUBLIC", SEQUENCE, cx);
+        /*GeoTools以主键取值依次拼接要素ID*/
+        String fid = "GEOTOOLS_CM.7." + geoHash;
+
+        List<PrimaryKeyColumn> columns = new ArrayList<>();
+        columns.add(new NonIncrementingPrimaryKeyColumn("FID", Integer.class));
+        columns.add(new SequencedPrimaryKeyColumn("GEOM_GEOHASH", Long.class, SEQUENCE));
+        PhoenixFilterToSQL encoder = new PhoenixFilterToSQL();
+        encoder.setFeatureType(featureType);
+        encoder.setPrimaryKey(new PrimaryKey("GEOTOOLS_CM", columns));
+        encoder.setInline(true);
+        String where = encoder.encodeToString(FF.id(FF.featureId(fid)));
+        assertEquals("((FID, GEOM_GEOHASH) IN ((7, " + PhoenixDialect.encodeGeoHash(point) + ")))", where.trim());
+    }
+
+    private PhoenixDialectBasic createBasicDialect() throws Exception {
+        JDBCDataStore dataStore = new JDBCDataStore();
+        PhoenixDialectBasic dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+        dialect.postCreateFeatureType(featureType, null, "PUBLIC", cx);
+        return dialect;
+    }
+
+    /**
+     * 写入语句记录到updates中的连接，没有geometry_columns元数据表，FID列当前的最大值为6
+     * @param updates
+     * @return
+     */
+    private static Connection createInsertConnection(final List<String> updates) {
+        final ResultSet max = proxy(ResultSet.class, new InvocationHandler() {
+            private boolean read;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("next".equals(method.getName())) {
+                    boolean next = !read;
+                    read = true;
+                    return next;
+                }
+                if (method.getName().startsWith("get"))
+                    return method.getReturnType() == long.class ? (Object) 6L : (Object) 6;
+                return defaultValue(method.getReturnType());
+            }
+        });
+        final Statement st = proxy(Statement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("executeQuery".equals(method.getName())) {
+                    if (((String) args[0]).toLowerCase().contains("geometry_columns"))
+                        throw new SQLException("Table undefined");
+                    return max;
+                }
+                if ("executeUpdate".equals(method.getName()) || "execute".equals(method.getName()))
+                    updates.add((String) args[0]);
+                return defaultValue(method.getReturnType());
+            }
+        });
+        return proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("createStatement".equals(method.getName()))
+                    return st;
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        return null;
+    }
+
+    /**
+     * 记录绑定方法的预编译语句
+     * @return
+     */
+    private PreparedStatement createStatement() {
+        return proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().startsWith("set"))
+                    bindings.add(method.getName() + "(" + args[0] + ")");
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 元数据中查询列的结果集
+     * @param exists 列是否存在
+     * @return
+     */
+    private static ResultSet columns(final boolean exists) {
+        return proxy(ResultSet.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("next".equals(method.getName()))
+                    return exists;
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 以给定主键写入要素的数据源
+     */
+    private static class InsertingDataStore extends JDBCDataStore {
+        private final PrimaryKey primaryKey;
+
+        InsertingDataStore(PrimaryKey primaryKey) {
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        protected PrimaryKey getPrimaryKey(SimpleFeatureType featureType) throws IOException {
+            return primaryKey;
+        }
+
+        @Override
+        protected void insert(SimpleFeature feature, SimpleFeatureType featureType, Connection cx) throws IOException {
+            super.insert(feature, featureType, cx);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(PhoenixDialectGeoHashTest.class.getClassLoader(), new Class[]{type}, handler));
+    }
+}
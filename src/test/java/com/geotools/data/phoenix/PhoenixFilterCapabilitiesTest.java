@@ -0,0 +1,156 @@
+package com.geotools.data.phoenix;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.phoenix.PhoenixDialectBasic;
+import org.geotools.data.phoenix.PhoenixFilterToSQL;
+import org.geotools.filter.FilterCapabilities;
+import org.geotools.filter.text.ecql.ECQL;
+import org.geotools.filter.visitor.CapabilitiesFilterSplitter;
+import org.geotools.jdbc.JDBCDataStore;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 过滤条件下推能力的测试类，常用的图层过滤条件都应完整地编码为Phoenix的SQL，不留在客户端判断
+ * Created by Administrator on 2026/10/17.
+ */
+public class PhoenixFilterCapabilitiesTest {
+    private static SimpleFeatureType featureType;
+    private static SimpleFeatureType projectedType;
+
+    /**
+     * 常用的图层过滤条件
+     */
+    private final static String[] FILTERS = {
+            "NAME = 'xi''an' AND HEIGHT >= 10",
+            "HEIGHT < 5 OR HEIGHT > 100",
+            "NAME <> 'a'",
+            "NOT (HEIGHT <= 1)",
+            "HEIGHT BETWEEN 1 AND 5",
+            "NAME LIKE 'Xi%'",
+            "NAME ILIKE 'xi_an%'",
+            "NAME IS NULL",
+            "NAME IS NOT NULL",
+            "in(NAME, 'a', 'b', 'c') = true",
+            "CREATED AFTER 2016-01-01T00:00:00Z",
+            "CREATED BEFORE 2016-01-01T00:00:00Z",
+            "CREATED DURING 2016-01-01T00:00:00Z/2016-02-01T00:00:00Z",
+            "CREATED TEQUALS 2016-01-01T00:00:00Z",
+            "IN ('GEOTOOLS_CM.1', 'GEOTOOLS_CM.2')",
+            "BBOX(GEOM, 108, 34, 109, 35) AND HEIGHT < 100",
+            "INTERSECTS(GEOM, POLYGON((108 34, 109 34, 109 35, 108 34))) OR NAME = 'b'"
+    };
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,HEIGHT:Double,CREATED:java.util.Date,GEOM:Point:srid=4326");
+        projectedType = DataUtilities.createType("GEOTOOLS_PM", "NAME:String,GEOM:Point:srid=3857");
+    }
+
+    @Test
+    public void testNoPostFilter() throws Exception {
+        FilterCapabilities caps = new PhoenixFilterToSQL().getCapabilities();
+        for (String cql : FILTERS) {
+            CapabilitiesFilterSplitter splitter = new CapabilitiesFilterSplitter(caps, featureType, null);
+            ECQL.toFilter(cql).accept(splitter, null);
+            assertEquals(cql, Filter.INCLUDE, splitter.getFilterPost());
+        }
+    }
+
+    /**
+     * 编码后的SQL
+     * @param cql
+     * @return
+     * @throws Exception
+     */
+    private static String encode(String cql) throws Exception {
+        return encode(featureType, cql);
+    }
+
+    private static String encode(SimpleFeatureType type, String cql) throws Exception {
+        PhoenixFilterToSQL encoder = new PhoenixFilterToSQL();
+        encoder.setFeatureType(type);
+        encoder.setInline(true);
+        return encoder.encodeToString(ECQL.toFilter(cql));
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        assertEquals("(NAME IN ('a', 'b', 'c'))", encode("in(NAME, 'a', 'b', 'c') = true").trim());
+        assertEquals("(NAME NOT IN ('a', 'b'))", encode("in(NAME, 'a', 'b') = false").trim());
+        assertEquals("NAME LIKE 'Xi%'", encode("NAME LIKE 'Xi%'").trim());
+        assertEquals("UPPER(NAME) LIKE 'XI_AN%'", encode("NAME ILIKE 'xi_an%'").trim());
+        /*模式中转义的通配符按字面匹配*/
+        assertEquals("NAME LIKE '50\\%%'", encode("NAME LIKE '50\\%%'").trim());
+        assertEquals("TO_CHAR(HEIGHT) LIKE '1%'", encode("HEIGHT LIKE '1%'").trim());
+        assertTrue(encode("CREATED AFTER 2016-01-01T00:00:00Z").contains("TO_DATE('2016-01-01 00:00:00.000', 'yyyy-MM-dd HH:mm:ss.SSS')"));
+        String during = encode("CREATED DURING 2016-01-01T00:00:00Z/2016-02-01T00:00:00Z");
+        assertTrue(during.contains("TO_DATE('2016-01-01 00:00:00.000'"));
+        assertTrue(during.contains("TO_DATE('2016-02-01 00:00:00.000'"));
+    }
+
+    /**
+     * 投影坐标系中的距离按坐标系单位换算后完整下推
+     * @throws Exception
+     */
+    @Test
+    public void testDWithinProjectedUnits() throws Exception {
+        PhoenixDialectBasic dialect = createDialect();
+        Filter filter = ECQL.toFilter("DWITHIN(GEOM, POINT(12100000 4050000), 0.1, kilometers) AND NAME = 'a'");
+        Filter[] split = dialect.splitFilter(filter, projectedType);
+        assertEquals(Filter.INCLUDE, split[1]);
+        assertTrue(encode(projectedType, "DWITHIN(GEOM, POINT(12100000 4050000), 0.1, kilometers)").contains("CAST(100.0 AS DOUBLE)"));
+        assertTrue(encode(projectedType, "DWITHIN(GEOM, POINT(12100000 4050000), 300, feet)").contains("CAST(91.44"));
+    }
+
+    /**
+     * 地理坐标系中以米为单位的距离按能覆盖精确结果的度数下推，精确判断留在客户端
+     * @throws Exception
+     */
+    @Test
+    public void testDWithinGeographicUnits() throws Exception {
+        PhoenixDialectBasic dialect = createDialect();
+        Filter dwithin = ECQL.toFilter("DWITHIN(GEOM, POINT(108.9 34.2), 0.1, kilometers)");
+        Filter created = ECQL.toFilter("CREATED AFTER 2016-01-01T00:00:00Z");
+        Filter[] split = dialect.splitFilter(ECQL.toFilter("DWITHIN(GEOM, POINT(108.9 34.2), 0.1, kilometers) AND CREATED AFTER 2016-01-01T00:00:00Z"), featureType);
+        assertEquals(dwithin, split[1]);
+        /*距离条件同时下推，用于缩小扫描范围*/
+        assertTrue(split[0] instanceof And);
+        assertTrue(((And) split[0]).getChildren().contains(dwithin));
+        assertTrue(((And) split[0]).getChildren().contains(created));
+        /*含近似距离条件的OR整体留在客户端*/
+        Filter or = ECQL.toFilter("DWITHIN(GEOM, POINT(108.9 34.2), 500, meters) OR NAME = 'a'");
+        split = dialect.splitFilter(or, featureType);
+        assertEquals(Filter.INCLUDE, split[0]);
+        assertEquals(or, split[1]);
+
+        String sql = encode("DWITHIN(GEOM, POINT(108.9 34.2), 500, meters)");
+        Matcher matcher = Pattern.compile("ST_DWITHIN\\(.*CAST\\(([0-9.E-]+) AS DOUBLE\\)").matcher(sql);
+        assertTrue(sql, matcher.find());
+        double degrees = Double.parseDouble(matcher.group(1));
+        /*500米约为0.0045度纬度、0.0054度经度*/
+        assertTrue(sql, degrees >= Math.hypot(500 / 110574d, 500 / (111319.49 * Math.cos(Math.toRadians(34.2)))));
+        assertTrue(sql, degrees < 0.01);
+        /*Beyond取度数的下界*/
+        sql = encode("BEYOND(GEOM, POINT(108.9 34.2), 500, meters)");
+        assertFalse(sql, sql.contains("CAST(500.0"));
+        assertTrue(sql, sql.contains("ST_BEYOND("));
+    }
+
+    private static PhoenixDialectBasic createDialect() {
+        JDBCDataStore dataStore = new JDBCDataStore();
+        PhoenixDialectBasic dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+        return dialect;
+    }
+}
@@ -0,0 +1,190 @@
+package com.geotools.data.phoenix;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.Query;
+import org.geotools.data.phoenix.PhoenixDialect;
+import org.geotools.data.phoenix.PhoenixDialectBasic;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.filter.text.ecql.ECQL;
+import org.geotools.jdbc.JDBCDataStore;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Phoenix查询提示的测试类，未指定的提示按查询条件取默认值，显式指定的取值优先
+ * Created by Administrator on 2026/10/17.
+ */
+public class PhoenixSelectHintsTest {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+    private static SimpleFeatureType featureType;
+
+    private JDBCDataStore dataStore;
+    private PhoenixDialectBasic dialect;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,GEOM:Point:srid=4326");
+    }
+
+    @Before
+    public void setUp() {
+        dataStore = new JDBCDataStore();
+        dialect = new PhoenixDialectBasic(dataStore);
+        dataStore.setSQLDialect(dialect);
+    }
+
+    /**
+     * 只有不限个数且没有空间过滤条件的查询默认添加NO_CACHE
+     * @throws Exception
+     */
+    @Test
+    public void testNoCacheDefault() throws Exception {
+        assertEquals("/*+ NO_CACHE */ ", hints(new Query("GEOTOOLS_CM")));
+        assertEquals("/*+ NO_CACHE */ ", hints(new Query("GEOTOOLS_CM", ECQL.toFilter("NAME = 'a'"))));
+        Query limited = new Query("GEOTOOLS_CM");
+        limited.setMaxFeatures(10);
+        assertEquals("", hints(limited));
+        assertEquals("", hints(new Query("GEOTOOLS_CM", ECQL.toFilter("BBOX(GEOM, 108, 34, 109, 35)"))));
+        assertEquals("", hints(new Query("GEOTOOLS_CM", ECQL.toFilter("NAME = 'a' AND NOT INTERSECTS(GEOM, POINT(108 34))"))));
+    }
+
+    /**
+     * 按要素ID查询默认添加SMALL
+     * @throws Exception
+     */
+    @Test
+    public void testSmallDefault() throws Exception {
+        Filter id = FF.id(FF.featureId("GEOTOOLS_CM.1"));
+        assertEquals("/*+ NO_CACHE SMALL */ ", hints(new Query("GEOTOOLS_CM", id)));
+        Query limited = new Query("GEOTOOLS_CM", id);
+        limited.setMaxFeatures(10);
+        assertEquals("/*+ SMALL */ ", hints(limited));
+    }
+
+    /**
+     * 显式指定为Boolean.FALSE时关闭默认添加的提示
+     * @throws Exception
+     */
+    @Test
+    public void testExplicitFalse() throws Exception {
+        Query query = new Query("GEOTOOLS_CM", FF.id(FF.featureId("GEOTOOLS_CM.1")));
+        query.getHints().put(PhoenixDialect.HINT_NO_CACHE, Boolean.FALSE);
+        assertEquals("/*+ SMALL */ ", hints(query));
+        query.getHints().put(PhoenixDialect.HINT_SMALL, Boolean.FALSE);
+        assertEquals("", hints(query));
+        /*显式开启默认不添加的提示*/
+        query.getHints().put(PhoenixDialect.HINT_SKIP_SCAN, Boolean.TRUE);
+        query.getHints().put(PhoenixDialect.HINT_NO_CACHE, Boolean.TRUE);
+        query.setMaxFeatures(10);
+        assertEquals("/*+ SKIP_SCAN NO_CACHE */ ", hints(query));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        Query query = new Query("GEOTOOLS_CM");
+        query.setMaxFeatures(10);
+        query.getHints().put(PhoenixDialect.HINT_INDEX, " GEOTOOLS_CM_NAME_IDX ");
+        assertEquals("/*+ INDEX(GEOTOOLS_CM GEOTOOLS_CM_NAME_IDX) */ ", hints(query));
+        /*_GEOHASH列上的索引与指定的索引写在同一个INDEX提示中*/
+        query.getHints().put(PhoenixDialect.HINT_GEOHASH_INDEX, Boolean.TRUE);
+        String sql = hints(query);
+        assertTrue(sql, sql.startsWith("/*+ INDEX(GEOTOOLS_CM GEOTOOLS_CM_NAME_IDX GEOM_GEOHASH"));
+        /*其他提示原样加入*/
+        query.getHints().remove(PhoenixDialect.HINT_GEOHASH_INDEX);
+        query.getHints().put(PhoenixDialect.HINT_QUERY, "USE_SORT_MERGE_JOIN");
+        assertEquals("/*+ INDEX(GEOTOOLS_CM GEOTOOLS_CM_NAME_IDX) USE_SORT_MERGE_JOIN */ ", hints(query));
+    }
+
+    @Test
+    public void testIndexWithSchema() throws Exception {
+        dataStore.setDatabaseSchema("GIS");
+        Query query = new Query("GEOTOOLS_CM");
+        query.setMaxFeatures(10);
+        query.getHints().put(PhoenixDialect.HINT_INDEX, "GEOTOOLS_CM_NAME_IDX");
+        assertEquals("/*+ INDEX(GIS.GEOTOOLS_CM GEOTOOLS_CM_NAME_IDX) */ ", hints(query));
+    }
+
+    /**
+     * 过滤条件下推为_GEOHASH键范围时默认使用_GEOHASH列上的索引，_GEOHASH不是数据表主键的前导列
+     * @throws Exception
+     */
+    @Test
+    public void testGeoHashIndexDefault() throws Exception {
+        /*未登记_GEOHASH列的表不生成键范围*/
+        assertEquals("", hints(limited("BBOX(GEOM, 108, 34, 109, 35)")));
+
+        dialect.postCreateFeatureType(featureType, null, null, createConnection());
+        String[] covered = {
+                "BBOX(GEOM, 108, 34, 109, 35)",
+                "BBOX(GEOM, 108, 34, 109, 35) AND NAME = 'a'",
+                "INTERSECTS(GEOM, POLYGON((108 34, 109 34, 109 35, 108 34)))",
+                "DWITHIN(GEOM, POINT(108.9 34.2), 500, meters)"
+        };
+        for (String cql : covered) {
+            String sql = hints(limited(cql));
+            assertTrue(cql + ": " + sql, sql.startsWith("/*+ INDEX(GEOTOOLS_CM GEOM_GEOHASH"));
+        }
+        String[] uncovered = {
+                "NAME = 'a'",
+                "DISJOINT(GEOM, POLYGON((108 34, 109 34, 109 35, 108 34)))",
+                "BEYOND(GEOM, POINT(108.9 34.2), 500, meters)",
+                "BBOX(GEOM, 108, 34, 109, 35) OR NAME = 'a'"
+        };
+        for (String cql : uncovered) {
+            String sql = hints(limited(cql));
+            assertFalse(cql + ": " + sql, sql.contains("INDEX("));
+        }
+        /*显式关闭*/
+        Query query = limited("BBOX(GEOM, 108, 34, 109, 35)");
+        query.getHints().put(PhoenixDialect.HINT_GEOHASH_INDEX, Boolean.FALSE);
+        assertEquals("", hints(query));
+    }
+
+    private static Query limited(String cql) throws Exception {
+        Query query = new Query("GEOTOOLS_CM", ECQL.toFilter(cql));
+        query.setMaxFeatures(10);
+        return query;
+    }
+
+    /**
+     * 没有geometry_columns元数据表的连接
+     * @return
+     */
+    private static Connection createConnection() {
+        final Statement st = (Statement) Proxy.newProxyInstance(PhoenixSelectHintsTest.class.getClassLoader(), new Class[]{Statement.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("executeQuery".equals(method.getName()))
+                    throw new SQLException("Table undefined");
+                return null;
+            }
+        });
+        return (Connection) Proxy.newProxyInstance(PhoenixSelectHintsTest.class.getClassLoader(), new Class[]{Connection.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return "createStatement".equals(method.getName()) ? st : null;
+            }
+        });
+    }
+
+    private String hints(Query query) {
+        StringBuffer sql = new StringBuffer();
+        dialect.handleSelectHints(sql, featureType, query);
+        return sql.toString();
+    }
+}
@@ -0,0 +1,367 @@
+package com.geotools.data.phoenix;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.Determinism;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.schema.PDatum;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.schema.types.PVarbinary;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.geotools.data.phoenix.function.BeyondFunction;
+import org.geotools.data.phoenix.function.ContainsFunction;
+import org.geotools.data.phoenix.function.DisjointFunction;
+import org.geotools.data.phoenix.function.DwithinFunction;
+import org.geotools.data.phoenix.function.GeohashCellFunction;
+import org.geotools.data.phoenix.function.GeometryCache;
+import org.geotools.data.phoenix.function.IntersectsFunction;
+import org.geotools.data.phoenix.function.MbrintersectsFunction;
+import org.geotools.data.phoenix.function.WithinFunction;
+import org.geotools.data.phoenix.function.XmaxFunction;
+import org.geotools.data.phoenix.function.XminFunction;
+import org.geotools.data.phoenix.function.YmaxFunction;
+import org.geotools.data.phoenix.function.YminFunction;
+import org.geotools.data.phoenix.util.GeometryCodec;
+import org.geotools.data.phoenix.util.GeoHashConverter;
+import org.geotools.data.phoenix.util.GeometryEncoding;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 空间函数求值的单元测试类，无需连接Phoenix集群
+ * Created by Administrator on 2026/10/17.
+ */
+public class PhoenixSpatialFunctionTest {
+
+    private final static String POLYGON = "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))";
+
+    /**
+     * 构造逐行求值的参数，模拟表中的空间列
+     * @param wkt
+     * @return
+     */
+    static Expression column(String wkt) throws SQLException {
+        return LiteralExpression.newConstant(wkt, PVarchar.INSTANCE, Determinism.PER_ROW);
+    }
+
+    /**
+     * 构造逐行求值的二进制参数，模拟以WKB或TWKB存储的空间列
+     * @param wkt
+     * @param encoding
+     * @return
+     */
+    static Expression column(String wkt, GeometryEncoding encoding) throws SQLException, ParseException {
+        byte[] bytes = GeometryCodec.encode(new WKTReader().read(wkt), encoding, 2, GeometryEncoding.DEFAULT_TWKB_PRECISION);
+        return LiteralExpression.newConstant(bytes, PVarbinary.INSTANCE, Determinism.PER_ROW);
+    }
+
+    /**
+     * 构造逐行求值的降序二进制参数，模拟降序主键中的空间列，存储的字节经过取反
+     * @param wkt
+     * @param encoding
+     * @return
+     */
+    static Expression descColumn(String wkt, GeometryEncoding encoding) throws SQLException, ParseException {
+        byte[] bytes = GeometryCodec.encode(new WKTReader().read(wkt), encoding, 2, GeometryEncoding.DEFAULT_TWKB_PRECISION);
+        return LiteralExpression.newConstant(bytes, PVarbinary.INSTANCE, SortOrder.DESC, Determinism.PER_ROW);
+    }
+
+    /**
+     * 构造常量参数，模拟PhoenixFilterToSQL生成的几何字面量
+     * @param wkt
+     * @return
+     */
+    static Expression literal(String wkt) throws SQLException {
+        return LiteralExpression.newConstant(wkt, PVarchar.INSTANCE, Determinism.ALWAYS);
+    }
+
+    private final static byte[] FAMILY = Bytes.toBytes("0");
+    private final static byte[] QUALIFIER = Bytes.toBytes("GEOM");
+
+    /**
+     * 构造引用HBase单元格的空间列表达式，与RegionServer端的列表达式一致
+     * @return
+     */
+    static Expression storedColumn() {
+        PDatum datum = new PDatum() {
+            @Override
+            public boolean isNullable() {
+                return true;
+            }
+
+            @Override
+            public PDataType getDataType() {
+                return PVarbinary.INSTANCE;
+            }
+
+            @Override
+            public Integer getMaxLength() {
+                return null;
+            }
+
+            @Override
+            public Integer getScale() {
+                return null;
+            }
+
+            @Override
+            public SortOrder getSortOrder() {
+                return SortOrder.getDefault();
+            }
+        };
+        return new KeyValueColumnExpression(datum, FAMILY, QUALIFIER);
+    }
+
+    /**
+     * 构造只包含空间列单元格的一行
+     * @param rowKey 行键
+     * @param timestamp 单元格时间戳
+     * @param wkt 空间列的取值
+     * @return
+     */
+    static Tuple row(String rowKey, long timestamp, String wkt) throws ParseException {
+        byte[] value = GeometryCodec.encode(new WKTReader().read(wkt), GeometryEncoding.WKB, 2, 0);
+        return new SingleKeyValueTuple(new KeyValue(Bytes.toBytes(rowKey), FAMILY, QUALIFIER, timestamp, value));
+    }
+
+    /**
+     * 求值并解析函数返回的整数结果
+     * @param function
+     * @return
+     */
+    static int evaluate(Expression function) {
+        return evaluate(function, null);
+    }
+
+    static int evaluate(Expression function, Tuple tuple) {
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        assertTrue(function.evaluate(tuple, ptr));
+        return (Integer) PInteger.INSTANCE.toObject(ptr);
+    }
+
+    /**
+     * 记录几何解析次数的ST_INTERSECTS函数
+     */
+    static class CountingIntersectsFunction extends IntersectsFunction {
+        int decodeCount;
+
+        CountingIntersectsFunction(List<Expression> children) {
+            super(children);
+        }
+
+        @Override
+        protected Geometry decodeGeometry(Expression param, ImmutableBytesWritable ptr) {
+            decodeCount++;
+            return super.decodeGeometry(param, ptr);
+        }
+    }
+
+    @Test
+    public void testConstantArgumentParsedOnce() throws SQLException {
+        CountingIntersectsFunction function = new CountingIntersectsFunction(
+                Arrays.asList(column("POINT (5 5)"), literal(POLYGON)));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, evaluate(function));
+        }
+        /*列参数每行解析一次，字面量只解析一次*/
+        assertEquals(11, function.decodeCount);
+    }
+
+    /**
+     * 外包矩形不相交的行不需要解码几何对象
+     */
+    @Test
+    public void testEnvelopeRejectSkipsDecode() throws SQLException {
+        CountingIntersectsFunction function = new CountingIntersectsFunction(
+                Arrays.asList(column("POINT (15 5)"), literal(POLYGON)));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, evaluate(function));
+        }
+        assertEquals(1, function.decodeCount);
+        assertEquals(1, evaluate(new DisjointFunction(Arrays.asList(column("POINT (15 5)"), literal(POLYGON)))));
+        assertEquals(0, evaluate(new ContainsFunction(Arrays.asList(literal(POLYGON), column("LINESTRING (5 5, 15 5)")))));
+    }
+
+    @Test
+    public void testIntersects() throws SQLException {
+        assertEquals(1, evaluate(new IntersectsFunction(Arrays.asList(column("POINT (5 5)"), literal(POLYGON)))));
+        assertEquals(0, evaluate(new IntersectsFunction(Arrays.asList(column("POINT (15 5)"), literal(POLYGON)))));
+    }
+
+    /**
+     * 常量参数分别位于第一个和第二个位置时，预处理几何对象的判断结果应与普通判断一致
+     */
+    @Test
+    public void testPreparedLiteral() throws SQLException {
+        String[] points = {"POINT (5 5)", "POINT (0 5)", "POINT (15 5)"};
+        int[] contains = {1, 0, 0};
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(contains[i], evaluate(new ContainsFunction(Arrays.asList(literal(POLYGON), column(points[i])))));
+            assertEquals(contains[i], evaluate(new WithinFunction(Arrays.asList(column(points[i]), literal(POLYGON)))));
+            assertEquals(contains[i], evaluate(new WithinFunction(Arrays.asList(column(points[i]), column(POLYGON)))));
+            assertEquals(i < 2 ? 1 : 0, evaluate(new IntersectsFunction(Arrays.asList(literal(POLYGON), column(points[i])))));
+        }
+    }
+
+    @Test
+    public void testBinaryColumn() throws SQLException, ParseException {
+        for (GeometryEncoding encoding : new GeometryEncoding[]{GeometryEncoding.WKB, GeometryEncoding.TWKB}) {
+            assertEquals(1, evaluate(new IntersectsFunction(Arrays.asList(column("POINT (5 5)", encoding), literal(POLYGON)))));
+            assertEquals(0, evaluate(new IntersectsFunction(Arrays.asList(column("POINT (15 5)", encoding), literal(POLYGON)))));
+            assertEquals(1, evaluate(new WithinFunction(Arrays.asList(column("POINT (5 5)", encoding), column(POLYGON, encoding)))));
+        }
+    }
+
+    @Test
+    public void testMbrIntersects() throws SQLException, ParseException {
+        /*外包矩形相交但几何对象不相交*/
+        String line = "LINESTRING (9 12, 12 9)";
+        for (GeometryEncoding encoding : GeometryEncoding.values()) {
+            assertEquals(1, evaluate(new MbrintersectsFunction(Arrays.asList(column("POINT (10 10)", encoding), literal(POLYGON)))));
+            assertEquals(1, evaluate(new MbrintersectsFunction(Arrays.asList(literal(POLYGON), column(line, encoding)))));
+            assertEquals(1, evaluate(new MbrintersectsFunction(Arrays.asList(column("POINT (9.5 9.5)", encoding), column(line, encoding)))));
+            assertEquals(0, evaluate(new MbrintersectsFunction(Arrays.asList(column("POINT (15 5)", encoding), column(line, encoding)))));
+        }
+    }
+
+    /**
+     * 同一单元格重复扫描时命中缓存，单元格更新后时间戳不同，不会取到旧的几何对象
+     */
+    @Test
+    public void testGeometryCache() throws SQLException, ParseException {
+        GeometryCache cache = GeometryCache.getInstance();
+        cache.clear();
+        CountingIntersectsFunction function = new CountingIntersectsFunction(Arrays.asList(storedColumn(), literal(POLYGON)));
+        Tuple first = row("row1", 1L, "POINT (5 5)");
+        for (int i = 0; i < 5; i++) {
+            assertEquals(1, evaluate(function, first));
+        }
+        assertEquals(2, function.decodeCount);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(4, cache.getHitCount());
+
+        assertEquals(0, evaluate(function, row("row1", 2L, "LINESTRING (9 12, 12 9)")));
+        assertEquals(3, function.decodeCount);
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void testGeometryCacheEviction() throws ParseException {
+        GeometryCache cache = new GeometryCache(16 * 1024);
+        GeometryCache.Key key = new GeometryCache.Key();
+        Geometry geometry = new WKTReader().read(POLYGON);
+        byte[] value = GeometryCodec.encode(geometry, GeometryEncoding.WKB, 2, 0);
+        for (int i = 0; i < 1000; i++) {
+            byte[] rowKey = Bytes.toBytes(i);
+            cache.put(key.set(rowKey, 0, rowKey.length, FAMILY, QUALIFIER, 1L), value, 0, value.length, geometry);
+        }
+        assertTrue(cache.getByteSize() <= cache.getMaxBytes());
+        assertTrue(cache.getEvictionCount() > 0);
+        byte[] last = Bytes.toBytes(999);
+        assertNotNull(cache.get(key.set(last, 0, last.length, FAMILY, QUALIFIER, 1L), value, 0, value.length));
+        assertNull(cache.get(key.set(last, 0, last.length, FAMILY, QUALIFIER, 2L), value, 0, value.length));
+    }
+
+    /**
+     * 求值并解析函数返回的浮点数结果
+     */
+    static double evaluateDouble(Expression function) {
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        assertTrue(function.evaluate(null, ptr));
+        return (Double) PDouble.INSTANCE.toObject(ptr);
+    }
+
+    @Test
+    public void testEnvelopeOrdinates() throws SQLException, ParseException {
+        String line = "LINESTRING (-3.5 2, 7 -1.25, 4 9)";
+        for (GeometryEncoding encoding : GeometryEncoding.values()) {
+            assertEquals(-3.5, evaluateDouble(new XminFunction(Arrays.asList(column(line, encoding)))), 0);
+            assertEquals(-1.25, evaluateDouble(new YminFunction(Arrays.asList(column(line, encoding)))), 0);
+            assertEquals(7, evaluateDouble(new XmaxFunction(Arrays.asList(column(line, encoding)))), 0);
+            assertEquals(9, evaluateDouble(new YmaxFunction(Arrays.asList(column(line, encoding)))), 0);
+        }
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        assertTrue(new XminFunction(Arrays.asList(column("POINT EMPTY"))).evaluate(null, ptr));
+        assertEquals(0, ptr.getLength());
+    }
+
+    /**
+     * 降序存储的参数先还原字节再扫描外包矩形或解码
+     */
+    @Test
+    public void testDescendingColumn() throws SQLException, ParseException {
+        String line = "LINESTRING (-3.5 2, 7 -1.25, 4 9)";
+        for (GeometryEncoding encoding : GeometryEncoding.values()) {
+            assertEquals(-3.5, evaluateDouble(new XminFunction(Arrays.asList(descColumn(line, encoding)))), 0);
+            assertEquals(9, evaluateDouble(new YmaxFunction(Arrays.asList(descColumn(line, encoding)))), 0);
+            assertEquals(1, evaluate(new IntersectsFunction(Arrays.asList(descColumn("POINT (5 5)", encoding), literal(POLYGON)))));
+            assertEquals(0, evaluate(new IntersectsFunction(Arrays.asList(descColumn("POINT (15 5)", encoding), literal(POLYGON)))));
+        }
+    }
+
+    /**
+     * 点数据与其GEOHASH列应落入同一网格，网格范围包含该点
+     */
+    @Test
+    public void testGeohashCell() throws SQLException, ParseException {
+        double x = 108.9402, y = 34.3416;
+        long geoHash = GeoHashConverter.longAndLatiToGeohash(x, y);
+        Expression precision = LiteralExpression.newConstant(6, PInteger.INSTANCE, Determinism.ALWAYS);
+        Expression hashColumn = LiteralExpression.newConstant(geoHash, PLong.INSTANCE, Determinism.PER_ROW);
+        long fromHash = evaluateLong(new GeohashCellFunction(Arrays.asList(hashColumn, precision)));
+        for (GeometryEncoding encoding : GeometryEncoding.values()) {
+            Expression point = column("POINT (" + x + " " + y + ")", encoding);
+            assertEquals(fromHash, evaluateLong(new GeohashCellFunction(Arrays.asList(point, precision))));
+        }
+        assertEquals(GeoHashConverter.truncate(geoHash, 6), fromHash);
+        assertEquals(0, fromHash & ((1L << (64 - 30)) - 1));
+        double[] bounds = GeoHashConverter.cellBounds(fromHash, 6);
+        assertTrue(bounds[0] <= x && x <= bounds[2] && bounds[1] <= y && y <= bounds[3]);
+        assertTrue(bounds[2] - bounds[0] < 0.011 && bounds[3] - bounds[1] < 0.0055);
+    }
+
+    static long evaluateLong(Expression function) {
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        assertTrue(function.evaluate(null, ptr));
+        return (Long) PLong.INSTANCE.toObject(ptr);
+    }
+
+    @Test
+    public void testDistancePredicates() throws SQLException, ParseException {
+        Expression distance = LiteralExpression.newConstant(5.0, PDouble.INSTANCE, Determinism.ALWAYS);
+        String[] geometries = {"POINT (3 4)", "POINT (3 4.5)", "LINESTRING (-11 -10, -11 10)", "LINESTRING (20 20, 30 20)"};
+        int[] within = {1, 0, 0, 1};
+        Expression target = literal("POINT (0 0)");
+        Expression line = literal("LINESTRING (-5 -1, -5 1, 15 20)");
+        for (GeometryEncoding encoding : GeometryEncoding.values()) {
+            for (int i = 0; i < 2; i++) {
+                assertEquals(within[i], evaluate(new DwithinFunction(Arrays.asList(column(geometries[i], encoding), target, distance))));
+                assertEquals(1 - within[i], evaluate(new BeyondFunction(Arrays.asList(target, column(geometries[i], encoding), distance))));
+            }
+            for (int i = 2; i < 4; i++) {
+                assertEquals(geometries[i], within[i], evaluate(new DwithinFunction(Arrays.asList(line, column(geometries[i], encoding), distance))));
+            }
+        }
+        assertEquals(0, evaluate(new BeyondFunction(Arrays.asList(column("POINT EMPTY"), target, distance))));
+    }
+}
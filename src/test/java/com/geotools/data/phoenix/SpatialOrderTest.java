@@ -0,0 +1,56 @@
+package com.geotools.data.phoenix;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.Query;
+import org.geotools.data.phoenix.PhoenixDialect;
+import org.geotools.data.phoenix.SpatialOrder;
+import org.geotools.factory.CommonFactoryFinder;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按GeoHash的Z序输出的查询方式的测试类
+ * Created by Administrator on 2026/10/17.
+ */
+public class SpatialOrderTest {
+    private final static FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    @Test
+    public void testZOrder() throws Exception {
+        SimpleFeatureType featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,GEOM:Point:srid=4326");
+        featureType.getUserData().put(PhoenixDialect.GEOHASH_COLUMN, "GEOM_GEOHASH");
+        Query query = new Query("GEOTOOLS_CM");
+        query.setSortBy(new SortBy[]{FF.sort("NAME", SortOrder.DESCENDING)});
+
+        Query ordered = SpatialOrder.zOrder(query, featureType);
+        assertEquals(2, ordered.getSortBy().length);
+        assertEquals("GEOM_GEOHASH", ordered.getSortBy()[0].getPropertyName().getPropertyName());
+        assertEquals(SortOrder.ASCENDING, ordered.getSortBy()[0].getSortOrder());
+        assertEquals("NAME", ordered.getSortBy()[1].getPropertyName().getPropertyName());
+        assertTrue(SpatialOrder.isZOrdered(featureType, ordered));
+        /*原查询不变*/
+        assertEquals(1, query.getSortBy().length);
+        assertFalse(SpatialOrder.isZOrdered(featureType, query));
+        /*按空间列本身排序不是Z序*/
+        query.setSortBy(new SortBy[]{FF.sort("GEOM", SortOrder.ASCENDING)});
+        assertFalse(SpatialOrder.isZOrdered(featureType, query));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoGeoHashColumn() throws Exception {
+        SimpleFeatureType featureType = DataUtilities.createType("GEOTOOLS_CM", "NAME:String,GEOM:Point:srid=4326");
+        assertNull(featureType.getUserData().get(PhoenixDialect.GEOHASH_COLUMN));
+        Query query = new Query("GEOTOOLS_CM");
+        query.setSortBy(new SortBy[]{FF.sort("GEOM", SortOrder.ASCENDING)});
+        assertFalse(SpatialOrder.isZOrdered(featureType, query));
+        SpatialOrder.zOrder(new Query("GEOTOOLS_CM"), featureType);
+    }
+}